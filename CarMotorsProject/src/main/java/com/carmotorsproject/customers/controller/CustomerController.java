@@ -7,13 +7,22 @@ package com.carmotorsproject.customers.controller;
 
 import com.carmotorsproject.customers.model.Customer;
 import com.carmotorsproject.customers.model.CustomerDAO;
+import com.carmotorsproject.customers.model.CustomerSearchService;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CustomerController {
+    private static final int SEARCH_LIMIT = 200;
+
     private CustomerDAO customerDAO;
+    private CustomerSearchService searchService;
 
     public CustomerController() {
         this.customerDAO = new CustomerDAO();
+        this.searchService = CustomerSearchService.getInstance();
     }
 
     public void addCustomer(Customer customer) {
@@ -35,4 +44,30 @@ public class CustomerController {
     public List<Customer> getAllCustomers() {
         return customerDAO.findAll();
     }
+
+    public Page<Customer> getCustomerPage(PageRequest request) {
+        return customerDAO.findPage(request);
+    }
+
+    public List<PageRequest> getCustomerPageBoundaries(PageRequest first) {
+        return customerDAO.findPageBoundaries(first);
+    }
+
+    public int countCustomers() {
+        return customerDAO.count();
+    }
+
+    public CompletableFuture<List<Customer>> getAllCustomersAsync() {
+        return AsyncDAO.supply(customerDAO::findAll);
+    }
+
+    /** Busca por nombre, identificación, teléfono o correo, ordenado por relevancia. */
+    public List<Customer> searchCustomers(String query) {
+        return searchService.search(query, SEARCH_LIMIT);
+    }
+
+    // La primera búsqueda carga el índice completo: nunca en el EDT
+    public CompletableFuture<List<Customer>> searchCustomersAsync(String query) {
+        return AsyncDAO.supply(() -> searchService.search(query, SEARCH_LIMIT));
+    }
 }
\ No newline at end of file
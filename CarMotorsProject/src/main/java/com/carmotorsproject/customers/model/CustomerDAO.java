@@ -6,22 +6,49 @@
 package com.carmotorsproject.customers.model;
 
 
+import com.carmotorsproject.utils.EntityCache;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import com.carmotorsproject.utils.QueryUtil;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CustomerDAO implements CustomerDAOInterface {
-    private Connection db;
+    private static final NamedQuery SAVE = QueryRegistry.register("CustomerDAO.save",
+            "INSERT INTO customers (name, identification_number, phone, email, address, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("CustomerDAO.findById",
+            "SELECT * FROM customers WHERE customer_id = ?");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("CustomerDAO.findAll",
+            "SELECT * FROM customers");
+    private static final NamedQuery UPDATE = QueryRegistry.register("CustomerDAO.update",
+            "UPDATE customers SET name = ?, identification_number = ?, phone = ?, email = ?, address = ?, last_update_date = ? WHERE customer_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("CustomerDAO.delete",
+            "DELETE FROM customers WHERE customer_id = ?");
+    private static final NamedQuery FIND_LAST_UPDATE_DATES = QueryRegistry.register("CustomerDAO.findLastUpdateDates",
+            "SELECT customer_id, last_update_date FROM customers");
+
+    private static final EntityCache<Customer> CACHE = new EntityCache<>("customers", 2000);
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM customers", "customer_id", null, "customers")
+            .sortable("name", "name")
+            .sortable("identification_number", "identification_number");
 
     public CustomerDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(Customer customer) {
-        String sql = "INSERT INTO customers (name, identification_number, phone, email, address, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, customer.getName());
             pstmt.setString(2, customer.getIdentificationNumber());
             pstmt.setString(3, customer.getPhone());
@@ -38,25 +65,22 @@ public class CustomerDAO implements CustomerDAOInterface {
         } catch (SQLException e) {
             throw new RuntimeException("Error al guardar cliente: " + e.getMessage());
         }
+        CustomerSearchService.getInstance().indexed(customer);
+        EntityChanges.inserted(Customer.class, customer.getCustomerId());
     }
 
     @Override
     public Customer findById(int id) {
-        String sql = "SELECT * FROM customers WHERE customer_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        return CACHE.get(id, this::loadById);
+    }
+
+    private Customer loadById(int id) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Customer(
-                    rs.getInt("customer_id"),
-                    rs.getString("name"),
-                    rs.getString("identification_number"),
-                    rs.getString("phone"),
-                    rs.getString("email"),
-                    rs.getString("address"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                );
+                return new CustomerRowMapper().mapRow(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error al buscar cliente: " + e.getMessage());
@@ -67,20 +91,12 @@ public class CustomerDAO implements CustomerDAOInterface {
     @Override
     public List<Customer> findAll() {
         List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            CustomerRowMapper mapper = new CustomerRowMapper();
             while (rs.next()) {
-                customers.add(new Customer(
-                    rs.getInt("customer_id"),
-                    rs.getString("name"),
-                    rs.getString("identification_number"),
-                    rs.getString("phone"),
-                    rs.getString("email"),
-                    rs.getString("address"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                ));
+                customers.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error al obtener clientes: " + e.getMessage());
@@ -88,10 +104,53 @@ public class CustomerDAO implements CustomerDAOInterface {
         return customers;
     }
 
+    @Override
+    public List<Customer> findByIds(List<Integer> ids) {
+        List<Customer> customers = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return customers;
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            for (List<Integer> chunk : QueryUtil.chunk(ids)) {
+                String sql = "SELECT * FROM customers WHERE customer_id IN " + QueryUtil.inPlaceholders(chunk.size());
+                try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        CustomerRowMapper mapper = new CustomerRowMapper();
+                        while (rs.next()) {
+                            customers.add(mapper.mapRow(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al buscar clientes: " + e.getMessage());
+        }
+        return customers;
+    }
+
+    /** customer_id y last_update_date de todos los clientes, para detectar cambios hechos desde otros equipos. */
+    @Override
+    public Map<Integer, Date> findLastUpdateDates() {
+        Map<Integer, Date> dates = new HashMap<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_LAST_UPDATE_DATES.prepare(db);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                dates.put(rs.getInt(1), rs.getTimestamp(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al leer fechas de actualización de clientes: " + e.getMessage());
+        }
+        return dates;
+    }
+
     @Override
     public void update(Customer customer) {
-        String sql = "UPDATE customers SET name = ?, identification_number = ?, phone = ?, email = ?, address = ?, last_update_date = ? WHERE customer_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE.prepare(db)) {
             pstmt.setString(1, customer.getName());
             pstmt.setString(2, customer.getIdentificationNumber());
             pstmt.setString(3, customer.getPhone());
@@ -102,17 +161,52 @@ public class CustomerDAO implements CustomerDAOInterface {
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error al actualizar cliente: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(customer.getCustomerId());
         }
+        CustomerSearchService.getInstance().indexed(customer);
+        EntityChanges.updated(Customer.class, customer.getCustomerId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM customers WHERE customer_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error al eliminar cliente: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(id);
+        }
+        CustomerSearchService.getInstance().removed(id);
+        EntityChanges.deleted(Customer.class, id);
+    }
+
+    @Override
+    public Page<Customer> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new CustomerRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al obtener página de clientes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al obtener los inicios de página de clientes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al contar clientes: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
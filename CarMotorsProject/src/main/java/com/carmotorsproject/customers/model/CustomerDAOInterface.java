@@ -5,7 +5,11 @@
  */
 package com.carmotorsproject.customers.model;
 
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -17,4 +21,9 @@ public interface CustomerDAOInterface {
     List<Customer> findAll();
     void update(Customer customer);
     void delete(int id);
+    Page<Customer> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
+    List<Customer> findByIds(List<Integer> ids);
+    Map<Integer, Date> findLastUpdateDates();
 }
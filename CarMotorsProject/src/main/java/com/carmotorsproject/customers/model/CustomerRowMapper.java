@@ -0,0 +1,44 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.carmotorsproject.customers.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code customers} a {@link Customer}.
+ *
+ * @author ADMiN
+ */
+public class CustomerRowMapper extends IndexedRowMapper<Customer> {
+    public CustomerRowMapper() {
+        super(
+            "customer_id",
+            "name",
+            "identification_number",
+            "phone",
+            "email",
+            "address",
+            "creation_date",
+            "last_update_date"
+        );
+    }
+
+    @Override
+    protected Customer map(ResultSet rs, int[] col) throws SQLException {
+        return new Customer(
+            rs.getInt(col[0]),
+            rs.getString(col[1]),
+            rs.getString(col[2]),
+            rs.getString(col[3]),
+            rs.getString(col[4]),
+            rs.getString(col[5]),
+            rs.getTimestamp(col[6]),
+            rs.getTimestamp(col[7])
+        );
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.carmotorsproject.customers.model;
+
+import com.carmotorsproject.utils.NGramIndex;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda de clientes por nombre, identificación, teléfono o correo sin
+ * consultar la base de datos.
+ *
+ * La primera búsqueda carga todos los clientes en un {@link NGramIndex}; a
+ * partir de ahí CustomerDAO avisa de cada alta, modificación o baja con
+ * {@link #indexed(Customer)} y {@link #removed(int)}. La identificación y el
+ * teléfono se indexan también sin separadores, para que "CC1234567" o
+ * "3001234567" encuentren "CC-1.234.567" o "300 123 4567". Además, una
+ * consulta que coincide completa con una identificación o un teléfono se
+ * resuelve con un mapa hash, sin pasar por el índice: es la búsqueda más
+ * frecuente en recepción y la más cara con trigramas de solo dígitos.
+ *
+ * Los cambios hechos desde otros equipos no pasan por este CustomerDAO: cada
+ * {@link #CHECK_PERIOD_SECONDS} segundos se comparan los last_update_date de
+ * la tabla con los del índice, igual que en CachedPartDAO, y se reindexan los
+ * clientes nuevos o modificados y se quitan los borrados.
+ *
+ * @author ADMiN
+ */
+public class CustomerSearchService {
+    private static final long CHECK_PERIOD_SECONDS = 30;
+    private static CustomerSearchService instance;
+
+    private final Supplier<List<Customer>> loader;
+    // Nulo cuando los clientes no vienen de la base de datos (p. ej. en el benchmark)
+    private final CustomerDAOInterface dao;
+    // Pesos: nombre, identificación (tal cual y compacta), teléfono (tal cual y compacto), correo
+    private final NGramIndex index = new NGramIndex(3, 3, 3, 2, 2, 1.5);
+    private final Map<Integer, Customer> customers = new ConcurrentHashMap<>();
+    // Identificación o teléfono compactos -> clientes
+    private final Map<String, Set<Integer>> exactKeys = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private ScheduledExecutorService checker;
+
+    /** Índice sobre una lista fija de clientes, sin verificación periódica. */
+    public CustomerSearchService(Supplier<List<Customer>> loader) {
+        this.loader = loader;
+        this.dao = null;
+    }
+
+    public CustomerSearchService(CustomerDAOInterface dao) {
+        this.loader = dao::findAll;
+        this.dao = dao;
+    }
+
+    public static synchronized CustomerSearchService getInstance() {
+        if (instance == null) {
+            instance = new CustomerSearchService(new CustomerDAO());
+        }
+        return instance;
+    }
+
+    /** Clientes que contienen todos los términos, de más a menos relevante. */
+    public List<Customer> search(String query, int limit) {
+        ensureLoaded();
+        List<Customer> result = new ArrayList<>();
+        Set<Integer> exact = exactKeys.get(compact(query));
+        if (exact != null) {
+            for (Integer id : new TreeSet<>(exact)) {
+                Customer customer = customers.get(id);
+                if (customer != null && result.size() < limit) {
+                    result.add(copy(customer));
+                }
+            }
+            if (!result.isEmpty()) {
+                return result;
+            }
+        }
+        for (int id : index.search(query, limit)) {
+            Customer customer = customers.get(id);
+            if (customer != null) {
+                result.add(copy(customer));
+            }
+        }
+        return result;
+    }
+
+    /** Alta o modificación hecha por CustomerDAO. No hace nada si el índice aún no se ha cargado. */
+    public synchronized void indexed(Customer customer) {
+        if (loaded) {
+            put(copy(customer));
+        }
+    }
+
+    public synchronized void removed(int customerId) {
+        if (loaded) {
+            Customer previous = customers.remove(customerId);
+            if (previous != null) {
+                removeExactKeys(previous);
+            }
+            index.remove(customerId);
+        }
+    }
+
+    /** Descarta el índice; la siguiente búsqueda lo vuelve a cargar. */
+    public synchronized void invalidate() {
+        loaded = false;
+        customers.clear();
+        exactKeys.clear();
+        index.clear();
+    }
+
+    public int size() {
+        return customers.size();
+    }
+
+    /**
+     * Compara el índice con la tabla y reindexa lo que cambió fuera de esta
+     * aplicación. Devuelve el número de clientes reindexados o quitados.
+     */
+    public synchronized int checkConsistency() {
+        if (!loaded || dao == null) {
+            return 0;
+        }
+        Map<Integer, Date> dates = dao.findLastUpdateDates();
+        List<Integer> stale = new ArrayList<>();
+        dates.forEach((id, lastUpdate) -> {
+            Customer indexed = customers.get(id);
+            if (indexed == null || !Objects.equals(millis(indexed.getLastUpdateDate()), millis(lastUpdate))) {
+                stale.add(id);
+            }
+        });
+        int removed = 0;
+        for (Integer id : new ArrayList<>(customers.keySet())) {
+            if (!dates.containsKey(id)) {
+                removed(id);
+                removed++;
+            }
+        }
+        for (Customer customer : dao.findByIds(stale)) {
+            put(copy(customer));
+        }
+        return stale.size() + removed;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                for (Customer customer : loader.get()) {
+                    put(copy(customer));
+                }
+                loaded = true;
+                if (dao != null) {
+                    startChecker();
+                }
+            }
+        }
+    }
+
+    private void startChecker() {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-customers-consistency");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(() -> {
+            try {
+                checkConsistency();
+            } catch (RuntimeException e) {
+                System.err.println("Error al verificar el índice de clientes: " + e.getMessage());
+            }
+        }, CHECK_PERIOD_SECONDS, CHECK_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static Long millis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private void put(Customer customer) {
+        Customer previous = customers.put(customer.getCustomerId(), customer);
+        if (previous != null) {
+            removeExactKeys(previous);
+        }
+        addExactKey(compact(customer.getIdentificationNumber()), customer.getCustomerId());
+        addExactKey(compact(customer.getPhone()), customer.getCustomerId());
+        index.put(customer.getCustomerId(),
+                customer.getName(),
+                customer.getIdentificationNumber(),
+                compact(customer.getIdentificationNumber()),
+                customer.getPhone(),
+                compact(customer.getPhone()),
+                customer.getEmail());
+    }
+
+    private void addExactKey(String key, int customerId) {
+        if (key != null && !key.isEmpty()) {
+            exactKeys.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(customerId);
+        }
+    }
+
+    private void removeExactKeys(Customer customer) {
+        for (String key : new String[]{compact(customer.getIdentificationNumber()), compact(customer.getPhone())}) {
+            if (key != null) {
+                exactKeys.computeIfPresent(key, (k, ids) -> {
+                    ids.remove(customer.getCustomerId());
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private static String compact(String value) {
+        return value != null ? NGramIndex.normalize(value).replace(" ", "") : null;
+    }
+
+    private static Customer copy(Customer customer) {
+        return new Customer(
+            customer.getCustomerId(),
+            customer.getName(),
+            customer.getIdentificationNumber(),
+            customer.getPhone(),
+            customer.getEmail(),
+            customer.getAddress(),
+            customer.getCreationDate(),
+            customer.getLastUpdateDate()
+        );
+    }
+}
@@ -7,17 +7,25 @@ package com.carmotorsproject.customers.views;
 
 import com.carmotorsproject.customers.controller.CustomerController;
 import com.carmotorsproject.customers.model.Customer;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.PagedTableModel;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CustomerView extends JFrame {
     private CustomerController controller;
+    private static final String[] COLUMNS = {"ID", "Nombre", "Identificación", "Teléfono", "Correo", "Dirección"};
+
     private JTextField txtCustomerId, txtName, txtIdentificationNumber, txtPhone, txtEmail, txtAddress;
+    private JTextField txtSearch;
     private JTable customerTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Customer> tableModel;
+    private CompletableFuture<List<Customer>> pendingSearch;
 
     public CustomerView(CustomerController controller) {
         this.controller = controller;
@@ -78,31 +86,51 @@ public class CustomerView extends JFrame {
 
         formPanel.add(buttonPanel);
 
+        // Búsqueda
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        txtSearch = new JTextField(25);
+        JButton btnSearch = new JButton("Buscar");
+        searchPanel.add(new JLabel("Buscar (nombre, identificación, teléfono o correo):"));
+        searchPanel.add(txtSearch);
+        searchPanel.add(btnSearch);
+
         // Tabla
-        String[] columnNames = {"ID", "Nombre", "Identificación", "Teléfono", "Correo", "Dirección"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new PagedTableModel<>(COLUMNS, request -> controller.getCustomerPage(request),
+                first -> controller.getCustomerPageBoundaries(first),
+                () -> controller.countCustomers(), CustomerView::columnValue);
+        tableModel.trackChanges(Customer.class, Customer::getCustomerId, id -> controller.findById(id));
         customerTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(customerTable);
 
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.add(searchPanel, BorderLayout.NORTH);
+        tablePanel.add(scrollPane, BorderLayout.CENTER);
+
         panel.add(formPanel, BorderLayout.NORTH);
-        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(tablePanel, BorderLayout.CENTER);
 
         // Acciones de los botones
         btnAdd.addActionListener(e -> addCustomer());
         btnUpdate.addActionListener(e -> updateCustomer());
         btnDelete.addActionListener(e -> deleteCustomer());
         btnClear.addActionListener(e -> clearFields());
+        btnSearch.addActionListener(e -> searchCustomers());
+        txtSearch.addActionListener(e -> searchCustomers());
 
         // Selección de fila en la tabla
         customerTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && customerTable.getSelectedRow() != -1) {
                 int row = customerTable.getSelectedRow();
-                txtCustomerId.setText(tableModel.getValueAt(row, 0).toString());
-                txtName.setText(tableModel.getValueAt(row, 1).toString());
-                txtIdentificationNumber.setText(tableModel.getValueAt(row, 2).toString());
-                txtPhone.setText(tableModel.getValueAt(row, 3).toString());
-                txtEmail.setText(tableModel.getValueAt(row, 4).toString());
-                txtAddress.setText(tableModel.getValueAt(row, 5).toString());
+                TableModel model = customerTable.getModel();
+                if (model == tableModel && tableModel.getRow(row) == null) {
+                    return;
+                }
+                txtCustomerId.setText(model.getValueAt(row, 0).toString());
+                txtName.setText(model.getValueAt(row, 1).toString());
+                txtIdentificationNumber.setText(model.getValueAt(row, 2).toString());
+                txtPhone.setText(model.getValueAt(row, 3).toString());
+                txtEmail.setText(model.getValueAt(row, 4).toString());
+                txtAddress.setText(model.getValueAt(row, 5).toString());
             }
         });
     }
@@ -121,7 +149,6 @@ public class CustomerView extends JFrame {
                     new Date()
                 );
                 controller.addCustomer(customer);
-                loadCustomers();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Cliente agregado con éxito");
             }
@@ -144,7 +171,6 @@ public class CustomerView extends JFrame {
                     new Date()
                 );
                 controller.updateCustomer(customer);
-                loadCustomers();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Cliente actualizado con éxito");
             }
@@ -162,7 +188,6 @@ public class CustomerView extends JFrame {
                 int confirm = JOptionPane.showConfirmDialog(this, "¿Está seguro de eliminar este cliente?", "Confirmar", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     controller.deleteCustomer(customerId);
-                    loadCustomers();
                     clearFields();
                     JOptionPane.showMessageDialog(this, "Cliente eliminado con éxito");
                 }
@@ -181,6 +206,11 @@ public class CustomerView extends JFrame {
         txtPhone.setText("");
         txtEmail.setText("");
         txtAddress.setText("");
+        txtSearch.setText("");
+        // Tras una búsqueda se vuelve a la tabla completa, que ya está al día
+        if (customerTable.getModel() != tableModel) {
+            customerTable.setModel(tableModel);
+        }
     }
 
     private boolean validateFields() {
@@ -192,17 +222,51 @@ public class CustomerView extends JFrame {
     }
 
     private void loadCustomers() {
-        tableModel.setRowCount(0);
-        List<Customer> customers = controller.getAllCustomers();
+        tableModel.refresh();
+    }
+
+    private void searchCustomers() {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(true);
+        }
+        String query = txtSearch.getText().trim();
+        if (query.isEmpty()) {
+            customerTable.setModel(tableModel);
+            return;
+        }
+        pendingSearch = AsyncDAO.onEdt(controller.searchCustomersAsync(query), this::showResults,
+                error -> JOptionPane.showMessageDialog(this, "Error al buscar clientes: " + AsyncDAO.describe(error),
+                        "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private void showResults(List<Customer> customers) {
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
         for (Customer customer : customers) {
-            tableModel.addRow(new Object[]{
-                customer.getCustomerId(),
-                customer.getName(),
-                customer.getIdentificationNumber(),
-                customer.getPhone(),
-                customer.getEmail(),
-                customer.getAddress()
-            });
+            Object[] row = new Object[COLUMNS.length];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = columnValue(customer, column);
+            }
+            model.addRow(row);
+        }
+        customerTable.setModel(model);
+    }
+
+    private static Object columnValue(Customer row, int column) {
+        switch (column) {
+            case 0:
+                return row.getCustomerId();
+            case 1:
+                return row.getName();
+            case 2:
+                return row.getIdentificationNumber();
+            case 3:
+                return row.getPhone();
+            case 4:
+                return row.getEmail();
+            case 5:
+                return row.getAddress();
+            default:
+                return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -8,20 +8,29 @@ package com.carmotorsproject.invoices.controller;
 import com.carmotorsproject.invoices.model.Invoice;
 import com.carmotorsproject.invoices.model.InvoiceDAO;
 import com.carmotorsproject.invoices.model.PDFGenerator;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class InvoiceController {
+    private static final NamedQuery PARTS_COST = QueryRegistry.register("InvoiceController.calculatePartsCost",
+            "SELECT SUM(pis.quantity_used * pis.unit_price) AS parts_cost FROM parts_in_service pis WHERE pis.service_id = ?");
+    private static final NamedQuery LABOR_COST = QueryRegistry.register("InvoiceController.getLaborCost",
+            "SELECT labor_cost FROM services WHERE service_id = ?");
+
     private InvoiceDAO invoiceDAO;
-    private Connection db;
 
     public InvoiceController() {
         this.invoiceDAO = new InvoiceDAO();
-        this.db = DatabaseConnection.getConnection();
     }
 
     public void addInvoice(Invoice invoice) {
@@ -51,6 +60,22 @@ public class InvoiceController {
         return invoiceDAO.findAll();
     }
 
+    public Page<Invoice> getInvoicePage(PageRequest request) {
+        return invoiceDAO.findPage(request);
+    }
+
+    public List<PageRequest> getInvoicePageBoundaries(PageRequest first) {
+        return invoiceDAO.findPageBoundaries(first);
+    }
+
+    public int countInvoices() {
+        return invoiceDAO.count();
+    }
+
+    public CompletableFuture<List<Invoice>> getAllInvoicesAsync() {
+        return AsyncDAO.supply(invoiceDAO::findAll);
+    }
+
     public void generateInvoicePDF(int invoiceId) {
         /*Invoice invoice = findById(invoiceId);
         if (invoice != null) {
@@ -61,10 +86,8 @@ public class InvoiceController {
     }
 
     private double calculatePartsCost(int serviceId) {
-        String sql = "SELECT SUM(pis.quantity_used * pis.unit_price) AS parts_cost " +
-                    "FROM parts_in_service pis " +
-                    "WHERE pis.service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = PARTS_COST.prepare(db)) {
             pstmt.setInt(1, serviceId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -77,8 +100,8 @@ public class InvoiceController {
     }
 
     private double getLaborCost(int serviceId) {
-        String sql = "SELECT labor_cost FROM services WHERE service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = LABOR_COST.prepare(db)) {
             pstmt.setInt(1, serviceId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
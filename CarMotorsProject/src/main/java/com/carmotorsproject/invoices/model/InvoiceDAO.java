@@ -5,7 +5,13 @@
  */
 package com.carmotorsproject.invoices.model;
 
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -15,16 +21,37 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class InvoiceDAO implements InvoiceDAOInterface {
-    private Connection db;
+    private static final NamedQuery SAVE = QueryRegistry.register("InvoiceDAO.save",
+            "INSERT INTO invoices (service_id, issue_date, invoice_number, subtotal, taxes, total, electronic_invoice_id, qr_code) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery DELETE = QueryRegistry.register("InvoiceDAO.delete",
+            "DELETE FROM invoices WHERE invoice_id = ?");
+
+    private static final String SELECT_INVOICE =
+            "SELECT i.*, c.name AS customer_name, c.identification_number AS customer_document, c.address AS customer_address, " +
+            "s.description AS service_description, s.labor_cost, " +
+            "COALESCE(SUM(pis.quantity_used), 0) AS parts_quantity " +
+            "FROM invoices i " +
+            "JOIN services s ON i.service_id = s.service_id " +
+            "JOIN vehicles v ON s.vehicle_id = v.vehicle_id " +
+            "JOIN customers c ON v.customer_id = c.customer_id " +
+            "LEFT JOIN parts_in_service pis ON s.service_id = pis.service_id";
+
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("InvoiceDAO.findById",
+            SELECT_INVOICE + " WHERE i.invoice_id = ? GROUP BY i.invoice_id");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("InvoiceDAO.findAll",
+            SELECT_INVOICE + " GROUP BY i.invoice_id");
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery(SELECT_INVOICE, "i.invoice_id", "i.invoice_id", "invoices")
+            .sortable("issue_date", "i.issue_date")
+            .sortable("invoice_number", "i.invoice_number");
 
     public InvoiceDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(Invoice invoice) {
-        String sql = "INSERT INTO invoices (service_id, issue_date, invoice_number, subtotal, taxes, total, electronic_invoice_id, qr_code) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setInt(1, invoice.getServiceId());
             pstmt.setTimestamp(2, new Timestamp(invoice.getIssueDate().getTime()));
             pstmt.setString(3, invoice.getInvoiceNumber());
@@ -42,41 +69,17 @@ public class InvoiceDAO implements InvoiceDAOInterface {
         } catch (SQLException e) {
             throw new RuntimeException("Error saving invoice: " + e.getMessage());
         }
+        EntityChanges.inserted(Invoice.class, invoice.getInvoiceId());
     }
 
     @Override
     public Invoice findById(int id) {
-        String sql = "SELECT i.*, c.name AS customer_name, c.identification_number AS customer_document, c.address AS customer_address, " +
-                    "s.description AS service_description, s.labor_cost, " +
-                    "COALESCE(SUM(pis.quantity_used), 0) AS parts_quantity " +
-                    "FROM invoices i " +
-                    "JOIN services s ON i.service_id = s.service_id " +
-                    "JOIN vehicles v ON s.vehicle_id = v.vehicle_id " +
-                    "JOIN customers c ON v.customer_id = c.customer_id " +
-                    "LEFT JOIN parts_in_service pis ON s.service_id = pis.service_id " +
-                    "WHERE i.invoice_id = ? " +
-                    "GROUP BY i.invoice_id";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Invoice(
-                    rs.getInt("invoice_id"),
-                    rs.getInt("service_id"),
-                    rs.getTimestamp("issue_date"),
-                    rs.getString("invoice_number"),
-                    rs.getDouble("subtotal"),
-                    rs.getDouble("taxes"),
-                    rs.getDouble("total"),
-                    rs.getString("electronic_invoice_id"),
-                    rs.getString("qr_code"),
-                    rs.getString("customer_name"),
-                    rs.getString("customer_document"),
-                    rs.getString("customer_address"),
-                    rs.getString("service_description"),
-                    rs.getInt("parts_quantity"),
-                    rs.getDouble("labor_cost")
-                );
+                return new InvoiceRowMapper().mapRow(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error searching for invoice: " + e.getMessage());
@@ -87,35 +90,12 @@ public class InvoiceDAO implements InvoiceDAOInterface {
     @Override
     public List<Invoice> findAll() {
         List<Invoice> invoices = new ArrayList<>();
-        String sql = "SELECT i.*, c.name AS customer_name, c.identification_number AS customer_document, c.address AS customer_address, " +
-                    "s.description AS service_description, s.labor_cost, " +
-                    "COALESCE(SUM(pis.quantity_used), 0) AS parts_quantity " +
-                    "FROM invoices i " +
-                    "JOIN services s ON i.service_id = s.service_id " +
-                    "JOIN vehicles v ON s.vehicle_id = v.vehicle_id " +
-                    "JOIN customers c ON v.customer_id = c.customer_id " +
-                    "LEFT JOIN parts_in_service pis ON s.service_id = pis.service_id " +
-                    "GROUP BY i.invoice_id";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            InvoiceRowMapper mapper = new InvoiceRowMapper();
             while (rs.next()) {
-                invoices.add(new Invoice(
-                    rs.getInt("invoice_id"),
-                    rs.getInt("service_id"),
-                    rs.getTimestamp("issue_date"),
-                    rs.getString("invoice_number"),
-                    rs.getDouble("subtotal"),
-                    rs.getDouble("taxes"),
-                    rs.getDouble("total"),
-                    rs.getString("electronic_invoice_id"),
-                    rs.getString("qr_code"),
-                    rs.getString("customer_name"),
-                    rs.getString("customer_document"),
-                    rs.getString("customer_address"),
-                    rs.getString("service_description"),
-                    rs.getInt("parts_quantity"),
-                    rs.getDouble("labor_cost")
-                ));
+                invoices.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting invoices:" + e.getMessage());
@@ -125,12 +105,40 @@ public class InvoiceDAO implements InvoiceDAOInterface {
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM invoices WHERE invoice_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting invoice: " + e.getMessage());
         }
+        EntityChanges.deleted(Invoice.class, id);
+    }
+
+    @Override
+    public Page<Invoice> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new InvoiceRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of invoices: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of invoices: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting invoices: " + e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,8 @@
  */
 package com.carmotorsproject.invoices.model;
 
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
 
 /**
@@ -16,4 +18,7 @@ public interface InvoiceDAOInterface {
     Invoice findById(int id);
     List<Invoice> findAll();
     void delete(int id);
+    Page<Invoice> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
 }
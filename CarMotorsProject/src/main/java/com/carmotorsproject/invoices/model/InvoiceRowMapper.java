@@ -0,0 +1,58 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.carmotorsproject.invoices.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de la consulta de facturas (con datos de cliente y servicio) a {@link Invoice}.
+ *
+ * @author ADMiN
+ */
+public class InvoiceRowMapper extends IndexedRowMapper<Invoice> {
+    public InvoiceRowMapper() {
+        super(
+            "invoice_id",
+            "service_id",
+            "issue_date",
+            "invoice_number",
+            "subtotal",
+            "taxes",
+            "total",
+            "electronic_invoice_id",
+            "qr_code",
+            "customer_name",
+            "customer_document",
+            "customer_address",
+            "service_description",
+            "parts_quantity",
+            "labor_cost"
+        );
+    }
+
+    @Override
+    protected Invoice map(ResultSet rs, int[] col) throws SQLException {
+        return new Invoice(
+            rs.getInt(col[0]),
+            rs.getInt(col[1]),
+            rs.getTimestamp(col[2]),
+            rs.getString(col[3]),
+            rs.getDouble(col[4]),
+            rs.getDouble(col[5]),
+            rs.getDouble(col[6]),
+            rs.getString(col[7]),
+            rs.getString(col[8]),
+            rs.getString(col[9]),
+            rs.getString(col[10]),
+            rs.getString(col[11]),
+            rs.getString(col[12]),
+            rs.getInt(col[13]),
+            rs.getDouble(col[14])
+        );
+    }
+}
@@ -8,17 +8,16 @@ package com.carmotorsproject.invoices.views;
 
 import com.carmotorsproject.invoices.controller.InvoiceController;
 import com.carmotorsproject.invoices.model.Invoice;
+import com.carmotorsproject.utils.PagedTableModel;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.Date;
-import java.util.List;
 
 public class InvoiceView extends JFrame {
     private InvoiceController controller;
     private JTextField txtInvoiceId, txtServiceId, txtInvoiceNumber;
     private JTable invoiceTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Invoice> tableModel;
 
     public InvoiceView(InvoiceController controller) {
         this.controller = controller;
@@ -69,7 +68,10 @@ public class InvoiceView extends JFrame {
 
         // Tabla
         String[] columnNames = {"ID", "ID Servicio", "Cliente", "Número", "Descripción", "Repuestos", "Mano de Obra", "Subtotal", "Impuestos", "Total", "Fecha"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new PagedTableModel<>(columnNames, request -> controller.getInvoicePage(request),
+                first -> controller.getInvoicePageBoundaries(first),
+                () -> controller.countInvoices(), InvoiceView::columnValue);
+        tableModel.trackChanges(Invoice.class, Invoice::getInvoiceId, id -> controller.findById(id));
         invoiceTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(invoiceTable);
 
@@ -86,6 +88,9 @@ public class InvoiceView extends JFrame {
         invoiceTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && invoiceTable.getSelectedRow() != -1) {
                 int row = invoiceTable.getSelectedRow();
+                if (tableModel.getRow(row) == null) {
+                    return;
+                }
                 txtInvoiceId.setText(tableModel.getValueAt(row, 0).toString());
                 txtServiceId.setText(tableModel.getValueAt(row, 1).toString());
                 txtInvoiceNumber.setText(tableModel.getValueAt(row, 3).toString());
@@ -114,7 +119,6 @@ public class InvoiceView extends JFrame {
                     0.0 // labor_cost
                 );
                 controller.addInvoice(invoice);
-                loadInvoices();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Factura agregada con éxito");
             }
@@ -132,7 +136,6 @@ public class InvoiceView extends JFrame {
                 int confirm = JOptionPane.showConfirmDialog(this, "¿Está seguro de eliminar esta factura?", "Confirmar", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     controller.deleteInvoice(invoiceId);
-                    loadInvoices();
                     clearFields();
                     JOptionPane.showMessageDialog(this, "Factura eliminada con éxito");
                 }
@@ -173,22 +176,35 @@ public class InvoiceView extends JFrame {
     }
 
     private void loadInvoices() {
-        tableModel.setRowCount(0);
-        List<Invoice> invoices = controller.getAllInvoices();
-        for (Invoice invoice : invoices) {
-            tableModel.addRow(new Object[]{
-                invoice.getInvoiceId(),
-                invoice.getServiceId(),
-                invoice.getCustomerName(),
-                invoice.getInvoiceNumber(),
-                invoice.getServiceDescription(),
-                invoice.getPartsQuantity(),
-                invoice.getLaborCost(),
-                invoice.getSubtotal(),
-                invoice.getTaxes(),
-                invoice.getTotal(),
-                invoice.getIssueDate()
-            });
+        tableModel.refresh();
+    }
+
+    private static Object columnValue(Invoice row, int column) {
+        switch (column) {
+            case 0:
+                return row.getInvoiceId();
+            case 1:
+                return row.getServiceId();
+            case 2:
+                return row.getCustomerName();
+            case 3:
+                return row.getInvoiceNumber();
+            case 4:
+                return row.getServiceDescription();
+            case 5:
+                return row.getPartsQuantity();
+            case 6:
+                return row.getLaborCost();
+            case 7:
+                return row.getSubtotal();
+            case 8:
+                return row.getTaxes();
+            case 9:
+                return row.getTotal();
+            case 10:
+                return row.getIssueDate();
+            default:
+                return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -4,36 +4,94 @@
  */
 package com.carmotorsproject.parts.controller;
 import com.carmotorsproject.parts.model.Part;
-import com.carmotorsproject.parts.model.PartDAO;
-import java.text.SimpleDateFormat;
+import com.carmotorsproject.parts.model.CachedPartDAO;
+import com.carmotorsproject.parts.model.ExpirationScheduler;
+import com.carmotorsproject.parts.model.PartDAOInterface;
+import com.carmotorsproject.parts.model.StockLedgerDAO;
+import com.carmotorsproject.parts.model.StockLedgerDAOInterface;
+import com.carmotorsproject.parts.model.StockWatcher;
+import com.carmotorsproject.utils.AsyncDAO;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 public class InventoryReportController {
-    private PartDAO partDAO;
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private PartDAOInterface partDAO;
+    private StockWatcher stockWatcher;
+    private ExpirationScheduler expirationScheduler;
+    private StockLedgerDAOInterface ledgerDAO;
+    // Los reportes se generan en hilos de AsyncDAO; DateTimeFormatter es inmutable
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
 
     public InventoryReportController() {
-        this.partDAO = new PartDAO();
+        this.partDAO = CachedPartDAO.getInstance();
+        this.stockWatcher = StockWatcher.getInstance();
+        this.expirationScheduler = ExpirationScheduler.getInstance();
+        this.ledgerDAO = new StockLedgerDAO();
+    }
+
+    public CompletableFuture<String> generateStatusReportAsync() {
+        return AsyncDAO.supply(this::generateStatusReport);
+    }
+
+    public CompletableFuture<String> generateCriticalStockReportAsync() {
+        return AsyncDAO.supply(this::generateCriticalStockReport);
+    }
+
+    public CompletableFuture<String> generateExpirationReportAsync() {
+        return AsyncDAO.supply(this::generateExpirationReport);
+    }
+
+    public CompletableFuture<String> generateConsumptionReportAsync(Date from, Date to) {
+        return AsyncDAO.supply(() -> generateConsumptionReport(from, to));
+    }
+
+    /** Consumo neto por repuesto en [from, to), leído del libro de movimientos. */
+    public String generateConsumptionReport(Date from, Date to) {
+        StringBuilder report = new StringBuilder("Spare Parts Consumption Report\n");
+        report.append("================================\n");
+        report.append("Period: ").append(formatDate(from)).append(" - ").append(formatDate(to)).append("\n\n");
+
+        Map<Integer, Integer> consumption = ledgerDAO.consumptionBetween(from, to);
+        if (consumption.isEmpty()) {
+            report.append("There was no spare part consumption in this period.\n");
+            return report.toString();
+        }
+        Map<Integer, String> names = new HashMap<>();
+        for (Part part : partDAO.findByIds(new ArrayList<>(consumption.keySet()))) {
+            names.put(part.getPartId(), part.getName());
+        }
+        int total = 0;
+        for (Map.Entry<Integer, Integer> entry : consumption.entrySet()) {
+            report.append("- ").append(names.getOrDefault(entry.getKey(), "(deleted)"))
+                    .append(" (ID: ").append(entry.getKey())
+                    .append("): ").append(entry.getValue()).append(" units\n");
+            total += entry.getValue();
+        }
+        report.append("\nTotal units consumed: ").append(total).append("\n");
+        return report.toString();
     }
 
     public String generateStatusReport() {
         StringBuilder report = new StringBuilder("Spare Parts Report by State\n");
         report.append("================================\n\n");
 
-        List<Part> parts = partDAO.findAll();
-        parts.stream()
-                .collect(Collectors.groupingBy(Part::getStatus))
-                .forEach((status, statusParts) -> {
-                    report.append("Estado: ").append(status).append("\n");
-                    statusParts.forEach(part -> {
-                        report.append("- ").append(part.getName())
-                                .append(" (ID: ").append(part.getPartId()).append(")\n");
-                    });
-                    report.append("Total in this state:").append(statusParts.size()).append("\n\n");
-                });
+        // Totales con GROUP BY y una consulta por estado (idx_parts_status)
+        for (Map.Entry<String, Integer> entry : partDAO.countByStatus().entrySet()) {
+            report.append("Estado: ").append(entry.getKey()).append("\n");
+            for (Part part : partDAO.findByStatus(entry.getKey())) {
+                report.append("- ").append(part.getName()).append(" (ID: ").append(part.getPartId()).append(")\n");
+            }
+            report.append("Total in this state:").append(entry.getValue()).append("\n\n");
+        }
 
         return report.toString();
     }
@@ -42,21 +100,19 @@ public class InventoryReportController {
         StringBuilder report = new StringBuilder("Critical Stock Report\n");
         report.append("================================\n\n");
 
-        List<Part> parts = partDAO.findAll();
-        List<Part> criticalStockParts = parts.stream()
-                .filter(part -> part.getQuantityInStock() <= part.getMinimumStock())
-                .toList();
+        List<Part> critical = stockWatcher.getLowStock();
+        for (Part part : critical) {
+            report.append("- ").append(part.getName())
+                    .append(" (ID: ").append(part.getPartId())
+                    .append("), Stock Actual: ").append(part.getQuantityInStock())
+                    .append(", Stock Mínimo: ").append(part.getMinimumStock()).append("\n");
+        }
+        int criticalCount = critical.size();
 
-        if (criticalStockParts.isEmpty()) {
+        if (criticalCount == 0) {
             report.append("There are no spare parts in critical stock.\n");
         } else {
-            criticalStockParts.forEach(part -> {
-                report.append("- ").append(part.getName())
-                        .append(" (ID: ").append(part.getPartId())
-                        .append("), Stock Actual: ").append(part.getQuantityInStock())
-                        .append(", Stock Mínimo: ").append(part.getMinimumStock()).append("\n");
-            });
-            report.append("Total spare parts with critical stock: ").append(criticalStockParts.size()).append("\n");
+            report.append("Total spare parts with critical stock: ").append(criticalCount).append("\n");
         }
 
         return report.toString();
@@ -67,18 +123,8 @@ public class InventoryReportController {
         report.append("================================\n\n");
 
         Date today = new Date();
-        List<Part> parts = partDAO.findAll();
-        List<Part> expirationParts = parts.stream()
-                .filter(part -> part.getEstimatedLifespan() != null)
-                .toList();
-
-        if (expirationParts.isEmpty()) {
-            report.append("There are no spare parts with a registered expiration date..\n");
-            return report.toString();
-        }
-
         boolean hasIssues = false;
-        for (Part part : expirationParts) {
+        for (Part part : expirationScheduler.expiringWithinWindow()) {
             long diffInMillies = part.getEstimatedLifespan().getTime() - today.getTime();
             long daysUntilExpiration = TimeUnit.DAYS.convert(diffInMillies, TimeUnit.MILLISECONDS);
 
@@ -86,17 +132,23 @@ public class InventoryReportController {
                 report.append("- ").append(part.getName())
                         .append(" (ID: ").append(part.getPartId())
                         .append(") ha caducado el ")
-                        .append(dateFormat.format(part.getEstimatedLifespan())).append("\n");
+                        .append(formatDate(part.getEstimatedLifespan())).append("\n");
                 hasIssues = true;
-            } else if (daysUntilExpiration <= 30) {
+            } else if (daysUntilExpiration <= expirationScheduler.getWindowDays()) {
                 report.append("- ").append(part.getName())
                         .append(" (ID: ").append(part.getPartId())
                         .append(") is about to expire (")
                         .append(daysUntilExpiration).append(" days remaining). Expiration date: ")
-                        .append(dateFormat.format(part.getEstimatedLifespan())).append("\n");
+                        .append(formatDate(part.getEstimatedLifespan())).append("\n");
                 hasIssues = true;
             }
         }
+        boolean hasExpirationDates = expirationScheduler.size() > 0;
+
+        if (!hasExpirationDates) {
+            report.append("There are no spare parts with a registered expiration date..\n");
+            return report.toString();
+        }
 
         if (!hasIssues) {
             report.append("There are no expired or close-to-expiry spare parts.\n");
@@ -104,4 +156,9 @@ public class InventoryReportController {
 
         return report.toString();
     }
-}
\ No newline at end of file
+
+    /** Acepta también java.sql.Date, cuyo toInstant() no está soportado. */
+    private static String formatDate(Date date) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(date.getTime()));
+    }
+}
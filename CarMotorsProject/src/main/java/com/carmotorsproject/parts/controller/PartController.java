@@ -5,24 +5,41 @@
 package com.carmotorsproject.parts.controller;
 
 import com.carmotorsproject.parts.model.Part;
-import com.carmotorsproject.parts.model.PartDAO;
+import com.carmotorsproject.parts.model.CachedPartDAO;
+import com.carmotorsproject.parts.model.ExpirationListener;
+import com.carmotorsproject.parts.model.ExpirationScheduler;
 import com.carmotorsproject.parts.model.PartDAOInterface;
+import com.carmotorsproject.parts.model.StockLedgerDAO;
+import com.carmotorsproject.parts.model.StockThresholdListener;
+import com.carmotorsproject.parts.model.StockWatcher;
 import com.carmotorsproject.parts.views.PartView;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class PartController {
+    // Más resultados no caben de forma útil en la tabla de búsqueda
+    private static final int SEARCH_LIMIT = 500;
+
     private final PartDAOInterface dao;
+    private final StockWatcher stockWatcher;
+    private final ExpirationScheduler expirationScheduler;
     private final PartView view;
 
     public PartController(PartView view) {
-        this.dao = new PartDAO();
+        this.dao = CachedPartDAO.getInstance();
+        this.stockWatcher = StockWatcher.getInstance();
+        this.expirationScheduler = ExpirationScheduler.getInstance();
         this.view = view;
+        StockLedgerDAO.startPeriodicSnapshots();
     }
 
     public void addPart(Part part) {
         try {
             dao.save(part);
-            view.refreshTable();
+            view.showAllRows();
             view.showAlert("Repuesto agregado exitosamente.");
         } catch (Exception e) {
             view.showAlert("Error al agregar repuesto: " + e.getMessage());
@@ -33,43 +50,95 @@ public class PartController {
         return dao.findAll();
     }
 
-    public void updatePart(Part part) {
+    public Page<Part> getPartPage(PageRequest request) {
+        return dao.findPage(request);
+    }
+
+    public List<PageRequest> getPartPageBoundaries(PageRequest first) {
+        return dao.findPageBoundaries(first);
+    }
+
+    public int countParts() {
+        return dao.count();
+    }
+
+    public Part getPartById(int partId) {
+        return dao.findById(partId);
+    }
+
+    /**
+     * Guarda los datos del repuesto y, si el formulario cambió la cantidad,
+     * aplica {@code stockDelta} (lo editado menos lo que se mostró al cargarlo)
+     * como ajuste condicional. Así no se pisan los consumos hechos mientras se
+     * editaba, y un ajuste que dejaría lo disponible negativo se rechaza.
+     */
+    public void updatePart(Part part, int stockDelta) {
         try {
             dao.update(part);
-            view.refreshTable();
-            view.showAlert("Repuesto actualizado exitosamente.");
         } catch (Exception e) {
             view.showAlert("Error al actualizar repuesto: " + e.getMessage());
+            return;
+        }
+        try {
+            if (stockDelta != 0) {
+                dao.updateStock(part.getPartId(), stockDelta);
+            }
+            view.showAlert("Repuesto actualizado exitosamente.");
+        } catch (Exception e) {
+            view.showAlert("Repuesto actualizado, pero no se pudo ajustar el stock: " + e.getMessage());
+        } finally {
+            view.showAllRows();
         }
     }
 
     public void deletePart(int id) {
         try {
             dao.delete(id);
-            view.refreshTable();
+            view.showAllRows();
             view.showAlert("Repuesto eliminado exitosamente.");
         } catch (Exception e) {
             view.showAlert("Error al eliminar repuesto: " + e.getMessage());
         }
     }
 
+    /** Busca por nombre, tipo, marca/modelo compatible o lote, ordenado por relevancia. */
     public List<Part> searchPart(String searchTerm) {
-        return dao.searchByName(searchTerm);
+        return dao.search(searchTerm, SEARCH_LIMIT);
     }
 
-    public void recordPartUsage(int serviceId, int partId, int quantityUsed, double unitPrice) {
-        try {
-            dao.recordPartUsage(serviceId, partId, quantityUsed, unitPrice);
-            view.refreshTable();
-        } catch (Exception e) {
-            view.showAlert("Error registering spare usage: " + e.getMessage());
-        }
+    public List<Part> getLowStockParts() {
+        return stockWatcher.getLowStock();
+    }
+
+    /** Suscribe el listener a los cruces del stock mínimo y carga el conjunto en segundo plano. */
+    public void watchStock(StockThresholdListener listener) {
+        stockWatcher.subscribe(listener);
+        AsyncDAO.run(stockWatcher::load);
+    }
+
+    /** Suscribe el listener a los avisos de caducidad y carga el planificador en segundo plano. */
+    public void watchExpirations(ExpirationListener listener) {
+        expirationScheduler.subscribe(listener);
+        AsyncDAO.run(expirationScheduler::load);
+    }
+
+    /** Caducados y por caducar, sin recorrer el inventario. */
+    public CompletableFuture<List<Part>> getExpiringPartsAsync() {
+        return AsyncDAO.supply(expirationScheduler::expiringWithinWindow);
+    }
+
+    public CompletableFuture<List<Part>> getAllPartsAsync() {
+        return AsyncDAO.supply(dao::findAll);
+    }
+
+    public CompletableFuture<List<Part>> searchPartAsync(String searchTerm) {
+        return AsyncDAO.supply(() -> dao.search(searchTerm, SEARCH_LIMIT));
     }
 
     public void adjustStock(int partId, int quantity) {
         try {
             dao.updateStock(partId, quantity);
-            view.refreshTable();
+            view.showAllRows();
         } catch (Exception e) {
             view.showAlert("Error adjusting stock: " + e.getMessage());
         }
@@ -10,8 +10,10 @@ import com.carmotorsproject.parts.model.PurchaseOrderDAO;
 import com.carmotorsproject.parts.model.PurchaseOrderDAOInterface;
 import com.carmotorsproject.parts.model.PurchaseOrderDetail;
 import com.carmotorsproject.parts.views.PurchaseOrderView;
+import com.carmotorsproject.utils.AsyncDAO;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class PurchaseOrderController {
     private final PurchaseOrderDAOInterface dao;
@@ -25,31 +27,46 @@ public class PurchaseOrderController {
     public void addPurchaseOrder(PurchaseOrder order) {
         try {
             dao.save(order);
-            view.refreshTable();
             view.showAlert("Purchase order created successfully.");
         } catch (Exception e) {
             view.showAlert("Error al crear orden de compra: " + e.getMessage());
         }
     }
 
+    public void addPurchaseOrders(List<PurchaseOrder> orders) {
+        try {
+            dao.saveAll(orders);
+            view.showAlert(orders.size() + " purchase orders created successfully.");
+        } catch (Exception e) {
+            view.showAlert("Error al crear ordenes de compra: " + e.getMessage());
+        }
+    }
+
     public List<PurchaseOrder> getAllPurchaseOrders() {
         return dao.findAll();
     }
 
+    public PurchaseOrder getPurchaseOrderById(int orderId) {
+        return dao.findById(orderId);
+    }
+
     public void updatePurchaseOrder(PurchaseOrder order) {
         try {
             dao.update(order);
-            view.refreshTable();
             view.showAlert("Purchase order updated successfully.");
         } catch (Exception e) {
             view.showAlert("Error updating purchase order: " + e.getMessage());
         }
     }
 
+    /** Recepción de la mercancía fuera del EDT: la orden pasa a recibida y su stock entra al inventario. */
+    public CompletableFuture<Void> receivePurchaseOrderAsync(int orderId) {
+        return AsyncDAO.run(() -> dao.receive(orderId));
+    }
+
     public void deletePurchaseOrder(int id) {
         try {
             dao.delete(id);
-            view.refreshTable();
             view.showAlert("Purchase order successfully deleted.");
         } catch (Exception e) {
             view.showAlert("Error deleting purchase order: " + e.getMessage());
@@ -8,7 +8,11 @@ import com.carmotorsproject.parts.model.Supplier;
 import com.carmotorsproject.parts.model.SupplierDAO;
 import com.carmotorsproject.parts.model.SupplierDAOInterface;
 import com.carmotorsproject.parts.views.SupplierView;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class SupplierController {
     private final SupplierDAOInterface supplierDAO;
@@ -23,7 +27,7 @@ public class SupplierController {
         try {
             supplierDAO.save(supplier);
             view.showAlert("Supplier added successfully.");
-            view.refreshTable();
+            view.showAllRows();
         } catch (IllegalArgumentException e) {
             view.showAlert(e.getMessage());
         } catch (Exception e) {
@@ -31,15 +35,31 @@ public class SupplierController {
         }
     }
 
+    public Supplier getSupplierById(int supplierId) {
+        return supplierDAO.findById(supplierId);
+    }
+
     public List<Supplier> getAllSupplier() {
         return supplierDAO.findAll();
     }
 
+    public Page<Supplier> getSupplierPage(PageRequest request) {
+        return supplierDAO.findPage(request);
+    }
+
+    public List<PageRequest> getSupplierPageBoundaries(PageRequest first) {
+        return supplierDAO.findPageBoundaries(first);
+    }
+
+    public int countSuppliers() {
+        return supplierDAO.count();
+    }
+
     public void updateSupplier(Supplier supplier) {
         try {
             supplierDAO.update(supplier);
             view.showAlert("Supplier updated successfully.");
-            view.refreshTable();
+            view.showAllRows();
         } catch (Exception e) {
             view.showAlert("Error updating supplier: " + e.getMessage());
         }
@@ -49,7 +69,7 @@ public class SupplierController {
         try {
             supplierDAO.delete(id);
             view.showAlert("Supplier deleted successfully.");
-            view.refreshTable();
+            view.showAllRows();
         } catch (Exception e) {
             view.showAlert("Error deleting supplier: " + e.getMessage());
         }
@@ -58,4 +78,12 @@ public class SupplierController {
     public List<Supplier> searchSupplier(String searchTerm) {
         return supplierDAO.searchByName(searchTerm);
     }
+
+    public CompletableFuture<List<Supplier>> getAllSupplierAsync() {
+        return AsyncDAO.supply(supplierDAO::findAll);
+    }
+
+    public CompletableFuture<List<Supplier>> searchSupplierAsync(String searchTerm) {
+        return AsyncDAO.supply(() -> supplierDAO.searchByName(searchTerm));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,446 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.NGramIndex;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de PartDAOInterface con caché write-through de todo el inventario.
+ *
+ * Las lecturas se sirven de una instantánea en memoria que se carga la primera
+ * vez que se necesita. Cada escritura va primero a la base de datos y después
+ * actualiza la instantánea en el mismo lugar. Cada {@link #CHECK_PERIOD_SECONDS}
+ * segundos se comparan los last_update_date de la tabla con los de la
+ * instantánea para recoger los cambios hechos desde otros equipos: se recargan
+ * las filas nuevas o modificadas y se quitan las borradas.
+ *
+ * Los cambios detectados en la verificación se publican en {@link EntityChanges}
+ * igual que los propios.
+ *
+ * {@link #search(String, int)} se resuelve con un {@link NGramIndex} sobre
+ * nombre, tipo, marca/modelo compatible y lote que se mantiene junto con la
+ * instantánea, sin consultar la base de datos.
+ *
+ * Las lecturas devuelven copias, así que modificar un Part devuelto no altera
+ * la caché hasta que se guarda con {@link #update(Part)}.
+ *
+ * @author camper
+ */
+public class CachedPartDAO implements PartDAOInterface {
+    private static final long CHECK_PERIOD_SECONDS = 30;
+    private static CachedPartDAO instance;
+
+    private final PartDAOInterface delegate;
+    private final Map<Integer, Part> snapshot = new ConcurrentSkipListMap<>();
+    // Pesos: nombre, tipo, marca/modelo compatible, lote
+    private final NGramIndex index = new NGramIndex(4, 1.5, 2, 1);
+    // Serializa escrituras y verificaciones para que una no pise a la otra
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private ScheduledExecutorService checker;
+
+    public CachedPartDAO(PartDAOInterface delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Instancia compartida por los controladores, para que todos vean la misma instantánea. */
+    public static synchronized CachedPartDAO getInstance() {
+        if (instance == null) {
+            instance = new CachedPartDAO(new PartDAO());
+        }
+        return instance;
+    }
+
+    @Override
+    public void save(Part part) {
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            delegate.save(part);
+            cache(new Part(part));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Part findById(int id) {
+        ensureLoaded();
+        awaitPendingWrite(id);
+        Part part = snapshot.get(id);
+        return part != null ? new Part(part) : null;
+    }
+
+    @Override
+    public List<Part> findByIds(List<Integer> ids) {
+        ensureLoaded();
+        List<Part> parts = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Part part = snapshot.get(id);
+            if (part != null) {
+                parts.add(new Part(part));
+            }
+        }
+        return parts;
+    }
+
+    @Override
+    public List<Part> findAll() {
+        ensureLoaded();
+        List<Part> parts = new ArrayList<>(snapshot.size());
+        for (Part part : snapshot.values()) {
+            parts.add(new Part(part));
+        }
+        return parts;
+    }
+
+    @Override
+    public void update(Part part) {
+        ensureLoaded();
+        // Con el lock de stock del repuesto (primero ese y después el general, como en stockWrite)
+        // una escritura de stock no puede colarse entre la relectura y el cache
+        ReentrantLock stockLock = PartDAO.STOCK_LOCKS.get(part.getPartId());
+        stockLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                delegate.update(part);
+                // update no escribe quantity_in_stock: se guarda la fila releída, no el Part recibido
+                for (Part fresh : delegate.findByIds(List.of(part.getPartId()))) {
+                    cache(fresh);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            stockLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        ensureLoaded();
+        writeLock.lock();
+        try {
+            delegate.delete(id);
+            evict(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void recordPartUsage(int serviceId, int partId, int quantityUsed, double unitPrice) {
+        stockWrite(partId, () -> delegate.recordPartUsage(serviceId, partId, quantityUsed, unitPrice));
+    }
+
+    @Override
+    public void updateStock(int partId, int quantity) {
+        stockWrite(partId, () -> delegate.updateStock(partId, quantity));
+    }
+
+    // Reservar y liberar no cambian quantity_in_stock: la instantánea no se toca
+    @Override
+    public StockReservation reserveStock(int partId, int serviceId, int quantity) {
+        return delegate.reserveStock(partId, serviceId, quantity);
+    }
+
+    @Override
+    public void commitReservation(StockReservation reservation, double unitPrice) {
+        stockWrite(reservation.getPartId(), () -> delegate.commitReservation(reservation, unitPrice));
+    }
+
+    @Override
+    public void releaseReservation(StockReservation reservation) {
+        delegate.releaseReservation(reservation);
+    }
+
+    @Override
+    public int releaseReservationsOlderThan(Date cutoff) {
+        return delegate.releaseReservationsOlderThan(cutoff);
+    }
+
+    @Override
+    public void recordStockMovements(List<StockMovement> movements) {
+        Set<Integer> partIds = new LinkedHashSet<>();
+        for (StockMovement movement : movements) {
+            partIds.add(movement.getPartId());
+        }
+        stockWrite(partIds, () -> delegate.recordStockMovements(movements));
+    }
+
+    @Override
+    public List<Part> searchByName(String name) {
+        ensureLoaded();
+        String term = name.toLowerCase(Locale.ROOT);
+        return snapshot.values().stream()
+                .filter(part -> part.getName() != null && part.getName().toLowerCase(Locale.ROOT).contains(term))
+                .map(Part::new)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Part> search(String query, int limit) {
+        ensureLoaded();
+        int[] ids = index.search(query, limit);
+        List<Part> parts = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Part part = snapshot.get(id);
+            if (part != null) {
+                parts.add(new Part(part));
+            }
+        }
+        return parts;
+    }
+
+    @Override
+    public Page<Part> findPage(PageRequest request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        return delegate.findPageBoundaries(first);
+    }
+
+    @Override
+    public int count() {
+        ensureLoaded();
+        return snapshot.size();
+    }
+
+    /**
+     * Directo a la tabla, sin cargar la instantánea: quien recorre todos los
+     * repuestos en streaming cuenta con memoria constante.
+     */
+    @Override
+    public Stream<Part> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Map<Integer, Date> findLastUpdateDates() {
+        return delegate.findLastUpdateDates();
+    }
+
+    // Los reportes van directo a la base de datos: solo viajan las filas del
+    // reporte y no obligan a cargar la instantánea completa.
+    @Override
+    public Map<String, Integer> countByStatus() {
+        return delegate.countByStatus();
+    }
+
+    @Override
+    public List<Part> findByStatus(String status) {
+        return delegate.findByStatus(status);
+    }
+
+    @Override
+    public List<Part> findCriticalStock() {
+        return delegate.findCriticalStock();
+    }
+
+    @Override
+    public List<Part> findWithLifespan() {
+        return delegate.findWithLifespan();
+    }
+
+    /**
+     * Compara la instantánea con la tabla y recarga lo que cambió fuera de esta
+     * aplicación. Devuelve el número de repuestos recargados o eliminados.
+     */
+    public int checkConsistency() {
+        if (!loaded) {
+            return 0;
+        }
+        writeLock.lock();
+        try {
+            Map<Integer, Date> dates = delegate.findLastUpdateDates();
+            List<Integer> stale = new ArrayList<>();
+            dates.forEach((id, lastUpdate) -> {
+                Part cached = snapshot.get(id);
+                // last_update_date guarda milisegundos (V7): un cambio en el mismo segundo también cuenta
+                if (cached == null || !Objects.equals(millis(cached.getLastUpdateDate()), millis(lastUpdate))) {
+                    stale.add(id);
+                }
+            });
+            int removed = 0;
+            for (Integer id : new ArrayList<>(snapshot.keySet())) {
+                if (!dates.containsKey(id)) {
+                    evict(id);
+                    StockWatcher.getInstance().removed(id);
+                    ExpirationScheduler.getInstance().removed(id);
+                    EntityChanges.deleted(Part.class, id);
+                    removed++;
+                }
+            }
+            for (Part part : delegate.findByIds(stale)) {
+                boolean inserted = cache(part) == null;
+                StockWatcher.getInstance().changed(part);
+                ExpirationScheduler.getInstance().changed(part);
+                if (inserted) {
+                    EntityChanges.inserted(Part.class, part.getPartId());
+                } else {
+                    EntityChanges.updated(Part.class, part.getPartId());
+                }
+            }
+            return stale.size() + removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Descarta la instantánea; la siguiente lectura la vuelve a cargar completa. */
+    public void invalidate() {
+        writeLock.lock();
+        try {
+            loaded = false;
+            snapshot.clear();
+            index.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!loaded) {
+                snapshot.clear();
+                index.clear();
+                // En streaming: la tabla no se tiene dos veces en memoria (lista y
+                // ResultSet completos) además de la instantánea mientras se carga
+                try (Stream<Part> parts = delegate.streamAll()) {
+                    parts.forEach(this::cache);
+                }
+                loaded = true;
+                startChecker();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private synchronized void startChecker() {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-parts-consistency");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(() -> {
+            try {
+                checkConsistency();
+            } catch (RuntimeException e) {
+                System.err.println("Error checking spare parts cache: " + e.getMessage());
+            }
+        }, CHECK_PERIOD_SECONDS, CHECK_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * PartDAO publica el cambio antes de que aquí se actualice la instantánea;
+     * quien relee la fila al recibir el aviso espera a que termine la escritura,
+     * general o de stock de ese repuesto.
+     */
+    private void awaitPendingWrite(int id) {
+        awaitUnlocked(writeLock);
+        awaitUnlocked(PartDAO.STOCK_LOCKS.get(id));
+    }
+
+    private static void awaitUnlocked(ReentrantLock lock) {
+        if (lock.isLocked() && !lock.isHeldByCurrentThread()) {
+            lock.lock();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Relee en la instantánea compartida, si ya se creó, los repuestos cuyo
+     * stock cambió fuera de este DAO (p. ej. los repuestos de un servicio).
+     */
+    static void refreshStock(Collection<Integer> partIds) {
+        CachedPartDAO cached;
+        synchronized (CachedPartDAO.class) {
+            cached = instance;
+        }
+        if (cached != null) {
+            cached.stockWrite(partIds, () -> { });
+        }
+    }
+
+    /**
+     * Escritura de stock con el lock del repuesto en lugar del general, para
+     * que consumos de repuestos distintos no se esperen. Después relee la fila
+     * en vez de repetir la suma, así una verificación concurrente no la aplica
+     * dos veces.
+     */
+    private void stockWrite(int partId, Runnable write) {
+        stockWrite(List.of(partId), write);
+    }
+
+    private void stockWrite(Collection<Integer> partIds, Runnable write) {
+        List<ReentrantLock> locks = PartDAO.STOCK_LOCKS.getAll(partIds);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            write.run();
+            if (loaded) {
+                List<Part> fresh = delegate.findByIds(new ArrayList<>(partIds));
+                writeLock.lock();
+                try {
+                    for (Part part : fresh) {
+                        cache(part);
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    /** Guarda el repuesto en la instantánea y en el índice; devuelve el anterior. */
+    private Part cache(Part part) {
+        index.put(part.getPartId(), part.getName(), part.getType(), part.getCompatibleMakeModel(), part.getBatchId());
+        return snapshot.put(part.getPartId(), part);
+    }
+
+    private void evict(int id) {
+        snapshot.remove(id);
+        index.remove(id);
+    }
+
+    private static Long millis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+}
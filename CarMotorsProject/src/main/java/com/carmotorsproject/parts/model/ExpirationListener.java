@@ -0,0 +1,18 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+/**
+ *
+ * @author camper
+ */
+@FunctionalInterface
+public interface ExpirationListener {
+    /**
+     * El repuesto entró en la ventana de aviso ({@code EXPIRING}) o caducó
+     * ({@code EXPIRED}). Se llama siempre en el EDT.
+     */
+    void expirationStageReached(Part part, ExpirationScheduler.Stage stage);
+}
@@ -0,0 +1,307 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Caducidad de los repuestos ordenada por estimated_lifespan.
+ *
+ * Guarda solo los repuestos con fecha de vida útil, en un TreeSet ordenado por
+ * esa fecha para responder "¿qué caduca antes de X?" recorriendo únicamente el
+ * resultado. Cada repuesto pasa por tres etapas: OK, EXPIRING (caduca en
+ * {@code windowDays} días o menos) y EXPIRED (la fecha ya pasó). Los cambios
+ * de etapa futuros esperan en una cola de prioridad por instante; un hilo
+ * programado duerme hasta el primero y entonces avisa a los
+ * {@link ExpirationListener} en el EDT.
+ *
+ * Se carga una vez y después PartDAO le pasa cada alta, modificación y baja.
+ * Al cargar no se avisa de lo que ya estaba caducado o por caducar: eso se
+ * consulta con {@link #expiringBefore(Date)}. Los listeners se guardan con
+ * referencias débiles, como en EntityChanges.
+ *
+ * Las etapas siguen el mismo cálculo que los reportes: días enteros
+ * truncados entre la fecha de vida útil y ahora; EXPIRING con 0 a
+ * windowDays días, EXPIRED con menos de 0.
+ *
+ * @author camper
+ */
+public class ExpirationScheduler {
+    public enum Stage { OK, EXPIRING, EXPIRED }
+
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    // Tope del sueño del hilo: si el reloj del sistema salta, se corrige en este plazo
+    private static final long MAX_SLEEP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static ExpirationScheduler instance;
+
+    private final Supplier<List<Part>> loader;
+    private final int windowDays;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byLifespan = new TreeSet<>(
+            Comparator.comparingLong((Entry e) -> e.lifespan).thenComparingInt(e -> e.part.getPartId()));
+    // Pueden quedar disparos de entradas ya reemplazadas; se descartan al salir
+    private final PriorityQueue<Trigger> triggers = new PriorityQueue<>(Comparator.comparingLong((Trigger t) -> t.at));
+    private final List<WeakReference<ExpirationListener>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> nextTick;
+    private long nextTickAt = Long.MAX_VALUE;
+    private volatile boolean loaded;
+
+    public ExpirationScheduler(Supplier<List<Part>> loader, int windowDays) {
+        this.loader = loader;
+        this.windowDays = windowDays;
+    }
+
+    public static synchronized ExpirationScheduler getInstance() {
+        if (instance == null) {
+            PartDAO dao = new PartDAO();
+            instance = new ExpirationScheduler(dao::findWithLifespan, DEFAULT_WINDOW_DAYS);
+        }
+        return instance;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /** Repuestos con vida útil registrada. */
+    public synchronized int size() {
+        load();
+        return entries.size();
+    }
+
+    /** Copias de los repuestos cuya vida útil termina antes de {@code until}, de la más próxima a la más lejana. */
+    public synchronized List<Part> expiringBefore(Date until) {
+        load();
+        List<Part> parts = new ArrayList<>();
+        for (Entry entry : byLifespan) {
+            if (entry.lifespan >= until.getTime()) {
+                break;
+            }
+            parts.add(new Part(entry.part));
+        }
+        return parts;
+    }
+
+    /** Caducados y los que caducan dentro de la ventana de aviso. */
+    public List<Part> expiringWithinWindow() {
+        return expiringBefore(new Date(System.currentTimeMillis() + (windowDays + 1) * DAY_MILLIS));
+    }
+
+    public synchronized Stage stageOf(int partId) {
+        load();
+        Entry entry = entries.get(partId);
+        return entry != null ? entry.stage : Stage.OK;
+    }
+
+    public void subscribe(ExpirationListener listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    public void unsubscribe(ExpirationListener listener) {
+        listeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+    }
+
+    /** Carga los repuestos y arranca el hilo; antes de eso no hay avisos. */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Part part : loader.get()) {
+            put(part, now, false);
+        }
+        loaded = true;
+        reschedule();
+    }
+
+    /** Alta o modificación hecha por PartDAO. */
+    public synchronized void changed(Part part) {
+        if (!loaded) {
+            return;
+        }
+        put(part, System.currentTimeMillis(), true);
+        reschedule();
+    }
+
+    public synchronized void removed(int partId) {
+        if (loaded) {
+            Entry previous = entries.remove(partId);
+            if (previous != null) {
+                byLifespan.remove(previous);
+            }
+        }
+    }
+
+    /** Descarta todo; el siguiente uso vuelve a cargar. */
+    public synchronized void invalidate() {
+        loaded = false;
+        entries.clear();
+        byLifespan.clear();
+        triggers.clear();
+        cancelTick();
+    }
+
+    private void put(Part part, long now, boolean notify) {
+        Entry previous = entries.remove(part.getPartId());
+        if (previous != null) {
+            byLifespan.remove(previous);
+        }
+        if (part.getEstimatedLifespan() == null) {
+            return;
+        }
+        Entry entry = new Entry(new Part(part), part.getEstimatedLifespan().getTime());
+        entry.stage = stageAt(entry.lifespan, now);
+        entries.put(part.getPartId(), entry);
+        byLifespan.add(entry);
+        if (entry.stage == Stage.OK) {
+            triggers.add(new Trigger(expiringFrom(entry.lifespan), entry, Stage.EXPIRING));
+        }
+        if (entry.stage != Stage.EXPIRED) {
+            triggers.add(new Trigger(entry.lifespan + DAY_MILLIS, entry, Stage.EXPIRED));
+        }
+        if (notify && entry.stage != Stage.OK && (previous == null || previous.stage != entry.stage)) {
+            fire(entry.part, entry.stage);
+        }
+        if (triggers.size() > 2 * entries.size() + 64) {
+            compactTriggers();
+        }
+    }
+
+    /** Primer instante en que faltan windowDays días o menos (truncados) para la fecha. */
+    private long expiringFrom(long lifespan) {
+        return lifespan - (windowDays + 1) * DAY_MILLIS + 1;
+    }
+
+    private Stage stageAt(long lifespan, long now) {
+        if (now >= lifespan + DAY_MILLIS) {
+            return Stage.EXPIRED;
+        }
+        return now >= expiringFrom(lifespan) ? Stage.EXPIRING : Stage.OK;
+    }
+
+    private synchronized void tick() {
+        nextTick = null;
+        nextTickAt = Long.MAX_VALUE;
+        long now = System.currentTimeMillis();
+        while (!triggers.isEmpty() && triggers.peek().at <= now) {
+            Trigger trigger = triggers.poll();
+            Entry entry = trigger.entry;
+            if (entries.get(entry.part.getPartId()) != entry || entry.stage.ordinal() >= trigger.stage.ordinal()) {
+                continue;
+            }
+            entry.stage = trigger.stage;
+            fire(entry.part, entry.stage);
+        }
+        reschedule();
+    }
+
+    /** Programa el hilo para el primer disparo pendiente si llega antes que lo ya programado. */
+    private void reschedule() {
+        if (!loaded || triggers.isEmpty()) {
+            return;
+        }
+        long at = Math.min(triggers.peek().at, System.currentTimeMillis() + MAX_SLEEP_MILLIS);
+        if (nextTick != null && nextTickAt <= at) {
+            return;
+        }
+        cancelTick();
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "carmotors-parts-expiration");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        long delay = Math.max(0, at - System.currentTimeMillis());
+        nextTickAt = at;
+        nextTick = timer.schedule(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                System.err.println("Error checking spare part expirations: " + e.getMessage());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelTick() {
+        if (nextTick != null) {
+            nextTick.cancel(false);
+            nextTick = null;
+        }
+        nextTickAt = Long.MAX_VALUE;
+    }
+
+    private void compactTriggers() {
+        List<Trigger> live = new ArrayList<>();
+        for (Trigger trigger : triggers) {
+            if (entries.get(trigger.entry.part.getPartId()) == trigger.entry) {
+                live.add(trigger);
+            }
+        }
+        triggers.clear();
+        triggers.addAll(live);
+    }
+
+    private void fire(Part part, Stage stage) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Part event = new Part(part);
+        SwingUtilities.invokeLater(() -> {
+            for (WeakReference<ExpirationListener> ref : listeners) {
+                ExpirationListener listener = ref.get();
+                if (listener == null) {
+                    listeners.remove(ref);
+                    continue;
+                }
+                try {
+                    listener.expirationStageReached(event, stage);
+                } catch (RuntimeException e) {
+                    System.err.println("Error notifying expiration of part " + part.getPartId() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static final class Entry {
+        private final Part part;
+        private final long lifespan;
+        private Stage stage;
+
+        Entry(Part part, long lifespan) {
+            this.part = part;
+            this.lifespan = lifespan;
+        }
+    }
+
+    private static final class Trigger {
+        private final long at;
+        private final Entry entry;
+        private final Stage stage;
+
+        Trigger(long at, Entry entry, Stage stage) {
+            this.at = at;
+            this.entry = entry;
+            this.stage = stage;
+        }
+    }
+}
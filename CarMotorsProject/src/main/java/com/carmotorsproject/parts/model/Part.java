@@ -39,6 +39,13 @@ public class Part {
         this.lastUpdateDate = lastUpdateDate;
     }
 
+    /** Copia de otro repuesto, para entregar instantáneas que el receptor pueda modificar. */
+    public Part(Part other) {
+        this(other.partId, other.name, other.type, other.compatibleMakeModel, other.supplierId,
+                other.quantityInStock, other.minimumStock, other.entryDate, other.estimatedLifespan,
+                other.status, other.batchId, other.creationDate, other.lastUpdateDate);
+    }
+
     public int getPartId() { return partId; }
     public String getName() { return name; }
     public String getType() { return type; }
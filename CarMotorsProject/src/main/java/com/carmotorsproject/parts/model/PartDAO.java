@@ -5,12 +5,23 @@
 package com.carmotorsproject.parts.model;
 
 
+import com.carmotorsproject.utils.EntityCache;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import com.carmotorsproject.utils.QueryUtil;
+import com.carmotorsproject.utils.StreamingQuery;
+import com.carmotorsproject.utils.StripedLock;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 import java.sql.Connection;
@@ -20,69 +31,133 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class PartDAO implements PartDAOInterface {
-    private Connection db;
+    private static final NamedQuery SAVE = QueryRegistry.register("PartDAO.save",
+            "INSERT INTO parts (name, type, compatible_make_model, supplier_id, quantity_in_stock, minimum_stock, entry_date, estimated_lifespan, status, batch_id, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("PartDAO.findById",
+            "SELECT * FROM parts WHERE part_id = ?");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("PartDAO.findAll",
+            "SELECT * FROM parts");
+    private static final NamedQuery UPDATE = QueryRegistry.register("PartDAO.update",
+            "UPDATE parts SET name = ?, type = ?, compatible_make_model = ?, supplier_id = ?, minimum_stock = ?, entry_date = ?, estimated_lifespan = ?, status = ?, batch_id = ?, last_update_date = ? WHERE part_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("PartDAO.delete",
+            "DELETE FROM parts WHERE part_id = ?");
+    private static final NamedQuery RECORD_PART_USAGE = QueryRegistry.register("PartDAO.recordPartUsage",
+            "INSERT INTO parts_in_service (service_id, part_id, quantity_used, unit_price) VALUES (?, ?, ?, ?)");
+    // Las escrituras de stock son condicionales: no hacen nada si lo disponible
+    // (quantity_in_stock - reserved_quantity) no alcanza, y entonces se avisa con una excepción
+    private static final NamedQuery ADJUST_STOCK = QueryRegistry.register("PartDAO.adjustStock",
+            "UPDATE parts SET quantity_in_stock = quantity_in_stock + ? WHERE part_id = ? AND (? >= 0 OR quantity_in_stock - reserved_quantity + ? >= 0)");
+    private static final NamedQuery RESERVE_STOCK = QueryRegistry.register("PartDAO.reserveStock",
+            "UPDATE parts SET reserved_quantity = reserved_quantity + ? WHERE part_id = ? AND quantity_in_stock - reserved_quantity >= ?");
+    private static final NamedQuery CONSUME_RESERVED = QueryRegistry.register("PartDAO.consumeReserved",
+            "UPDATE parts SET quantity_in_stock = quantity_in_stock - ?, reserved_quantity = reserved_quantity - ? WHERE part_id = ? AND reserved_quantity >= ?");
+    private static final NamedQuery RELEASE_RESERVED = QueryRegistry.register("PartDAO.releaseReserved",
+            "UPDATE parts SET reserved_quantity = reserved_quantity - ? WHERE part_id = ? AND reserved_quantity >= ?");
+    private static final NamedQuery INSERT_RESERVATION = QueryRegistry.register("PartDAO.insertReservation",
+            "INSERT INTO stock_reservations (part_id, service_id, quantity, created_at) VALUES (?, ?, ?, ?)");
+    private static final NamedQuery DELETE_RESERVATION = QueryRegistry.register("PartDAO.deleteReservation",
+            "DELETE FROM stock_reservations WHERE reservation_id = ?");
+    private static final NamedQuery FIND_RESERVATIONS_BEFORE = QueryRegistry.register("PartDAO.findReservationsBefore",
+            "SELECT * FROM stock_reservations WHERE created_at < ? ORDER BY reservation_id");
+    private static final NamedQuery SEARCH_BY_NAME = QueryRegistry.register("PartDAO.searchByName",
+            "SELECT * FROM parts WHERE name LIKE ?");
+    private static final NamedQuery SEARCH = QueryRegistry.register("PartDAO.search",
+            "SELECT * FROM parts WHERE name LIKE ? OR type LIKE ? OR compatible_make_model LIKE ? OR batch_id LIKE ? ORDER BY name LIMIT ?");
+    private static final NamedQuery FIND_LAST_UPDATE_DATES = QueryRegistry.register("PartDAO.findLastUpdateDates",
+            "SELECT part_id, last_update_date FROM parts");
+    // Consultas de los reportes de inventario: filtran y agrupan en el servidor
+    private static final NamedQuery COUNT_BY_STATUS = QueryRegistry.register("PartDAO.countByStatus",
+            "SELECT status, COUNT(*) FROM parts GROUP BY status ORDER BY status");
+    private static final NamedQuery FIND_BY_STATUS = QueryRegistry.register("PartDAO.findByStatus",
+            "SELECT * FROM parts WHERE status = ? ORDER BY part_id");
+    private static final NamedQuery FIND_CRITICAL_STOCK = QueryRegistry.register("PartDAO.findCriticalStock",
+            "SELECT * FROM parts WHERE quantity_in_stock <= minimum_stock ORDER BY part_id");
+    private static final NamedQuery FIND_WITH_LIFESPAN = QueryRegistry.register("PartDAO.findWithLifespan",
+            "SELECT * FROM parts WHERE estimated_lifespan IS NOT NULL ORDER BY estimated_lifespan, part_id");
+
+    private static final EntityCache<Part> CACHE = new EntityCache<>("parts", 2000);
+    // Un lock por grupo de part_id para las escrituras de stock; CachedPartDAO usa los mismos
+    static final StripedLock STOCK_LOCKS = new StripedLock(64);
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM parts", "part_id", null, "parts")
+            .sortable("name", "name")
+            .sortable("quantity_in_stock", "quantity_in_stock")
+            .sortable("entry_date", "entry_date");
 
     public PartDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
+    /** Alta del repuesto; el stock inicial entra al libro como recepción, en la misma transacción. */
     @Override
     public void save(Part part) {
-        String sql = "INSERT INTO parts (name, type, compatible_make_model, supplier_id, quantity_in_stock, minimum_stock, entry_date, estimated_lifespan, status, batch_id, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, part.getName());
-            pstmt.setString(2, part.getType());
-            pstmt.setString(3, part.getCompatibleMakeModel());
-            if (part.getSupplierId() != null) {
-                pstmt.setInt(4, part.getSupplierId());
-            } else {
-                pstmt.setNull(4, Types.INTEGER);
-            }
-            pstmt.setInt(5, part.getQuantityInStock());
-            pstmt.setInt(6, part.getMinimumStock());
-            pstmt.setDate(7, part.getEntryDate() != null ? new java.sql.Date(part.getEntryDate().getTime()) : null);
-            pstmt.setDate(8, part.getEstimatedLifespan() != null ? new java.sql.Date(part.getEstimatedLifespan().getTime()) : null);
-            pstmt.setString(9, part.getStatus());
-            pstmt.setString(10, part.getBatchId());
-            pstmt.setTimestamp(11, part.getCreationDate() != null ? new Timestamp(part.getCreationDate().getTime()) : null);
-            pstmt.setTimestamp(12, part.getLastUpdateDate() != null ? new Timestamp(part.getLastUpdateDate().getTime()) : null);
-            pstmt.executeUpdate();
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setString(1, part.getName());
+                    pstmt.setString(2, part.getType());
+                    pstmt.setString(3, part.getCompatibleMakeModel());
+                    if (part.getSupplierId() != null) {
+                        pstmt.setInt(4, part.getSupplierId());
+                    } else {
+                        pstmt.setNull(4, Types.INTEGER);
+                    }
+                    pstmt.setInt(5, part.getQuantityInStock());
+                    pstmt.setInt(6, part.getMinimumStock());
+                    pstmt.setDate(7, part.getEntryDate() != null ? new java.sql.Date(part.getEntryDate().getTime()) : null);
+                    pstmt.setDate(8, part.getEstimatedLifespan() != null ? new java.sql.Date(part.getEstimatedLifespan().getTime()) : null);
+                    pstmt.setString(9, part.getStatus());
+                    pstmt.setString(10, part.getBatchId());
+                    pstmt.setTimestamp(11, part.getCreationDate() != null ? new Timestamp(part.getCreationDate().getTime()) : null);
+                    pstmt.setTimestamp(12, part.getLastUpdateDate() != null ? new Timestamp(part.getLastUpdateDate().getTime()) : null);
+                    pstmt.executeUpdate();
 
-            ResultSet rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                part.setPartId(rs.getInt(1));
+                    ResultSet rs = pstmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        part.setPartId(rs.getInt(1));
+                    }
+                }
+                if (part.getQuantityInStock() != 0) {
+                    StockMovementType type = part.getQuantityInStock() > 0 ? StockMovementType.Receipt : StockMovementType.Adjustment;
+                    StockLedgerDAO.append(db, List.of(new StockMovement(part.getPartId(), type, part.getQuantityInStock(), null)));
+                }
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error saving spare: " + e.getMessage());
         }
+        StockWatcher.getInstance().changed(part);
+        ExpirationScheduler.getInstance().changed(part);
+        EntityChanges.inserted(Part.class, part.getPartId());
     }
 
     @Override
     public Part findById(int id) {
-        String sql = "SELECT * FROM parts WHERE part_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        return CACHE.get(id, this::loadById);
+    }
+
+    private Part loadById(int id) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Part(
-                    rs.getInt("part_id"),
-                    rs.getString("name"),
-                    rs.getString("type"),
-                    rs.getString("compatible_make_model"),
-                    rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
-                    rs.getInt("quantity_in_stock"),
-                    rs.getInt("minimum_stock"),
-                    rs.getDate("entry_date"),
-                    rs.getDate("estimated_lifespan"),
-                    rs.getString("status"),
-                    rs.getString("batch_id"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                );
+                return new PartRowMapper().mapRow(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error searching for spare part: " + e.getMessage());
@@ -90,28 +165,42 @@ public class PartDAO implements PartDAOInterface {
         return null;
     }
 
+    @Override
+    public List<Part> findByIds(List<Integer> ids) {
+        List<Part> parts = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return parts;
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            for (List<Integer> chunk : QueryUtil.chunk(ids)) {
+                String sql = "SELECT * FROM parts WHERE part_id IN " + QueryUtil.inPlaceholders(chunk.size());
+                try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        PartRowMapper mapper = new PartRowMapper();
+                        while (rs.next()) {
+                            parts.add(mapper.mapRow(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching for spare parts: " + e.getMessage());
+        }
+        return parts;
+    }
+
     @Override
     public List<Part> findAll() {
         List<Part> parts = new ArrayList<>();
-        String sql = "SELECT * FROM parts";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            PartRowMapper mapper = new PartRowMapper();
             while (rs.next()) {
-                parts.add(new Part(
-                    rs.getInt("part_id"),
-                    rs.getString("name"),
-                    rs.getString("type"),
-                    rs.getString("compatible_make_model"),
-                    rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
-                    rs.getInt("quantity_in_stock"),
-                    rs.getInt("minimum_stock"),
-                    rs.getDate("entry_date"),
-                    rs.getDate("estimated_lifespan"),
-                    rs.getString("status"),
-                    rs.getString("batch_id"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                ));
+                parts.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting spare parts: " + e.getMessage());
@@ -119,10 +208,17 @@ public class PartDAO implements PartDAOInterface {
         return parts;
     }
 
+    /**
+     * Actualiza los datos del repuesto. quantity_in_stock no se escribe aquí:
+     * el valor del formulario puede estar desfasado frente a consumos hechos
+     * mientras se editaba, así que los cambios de cantidad van por
+     * {@link #updateStock(int, int)} como diferencia condicional. Los avisos
+     * se publican con la fila releída, que trae el stock real.
+     */
     @Override
     public void update(Part part) {
-        String sql = "UPDATE parts SET name = ?, type = ?, compatible_make_model = ?, supplier_id = ?, quantity_in_stock = ?, minimum_stock = ?, entry_date = ?, estimated_lifespan = ?, status = ?, batch_id = ?, last_update_date = ? WHERE part_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE.prepare(db)) {
             pstmt.setString(1, part.getName());
             pstmt.setString(2, part.getType());
             pstmt.setString(3, part.getCompatibleMakeModel());
@@ -131,27 +227,34 @@ public class PartDAO implements PartDAOInterface {
             } else {
                 pstmt.setNull(4, Types.INTEGER);
             }
-            pstmt.setInt(5, part.getQuantityInStock());
-            pstmt.setInt(6, part.getMinimumStock());
-            pstmt.setDate(7, part.getEntryDate() != null ? new java.sql.Date(part.getEntryDate().getTime()) : null);
-            pstmt.setDate(8, part.getEstimatedLifespan() != null ? new java.sql.Date(part.getEstimatedLifespan().getTime()) : null);
-            pstmt.setString(9, part.getStatus());
-            pstmt.setString(10, part.getBatchId());
-            pstmt.setTimestamp(11, part.getLastUpdateDate() != null ? new Timestamp(part.getLastUpdateDate().getTime()) : null);
-            pstmt.setInt(12, part.getPartId());
-            int rowsAffected = pstmt.executeUpdate();
-            if (rowsAffected == 0) {
+            pstmt.setInt(5, part.getMinimumStock());
+            pstmt.setDate(6, part.getEntryDate() != null ? new java.sql.Date(part.getEntryDate().getTime()) : null);
+            pstmt.setDate(7, part.getEstimatedLifespan() != null ? new java.sql.Date(part.getEstimatedLifespan().getTime()) : null);
+            pstmt.setString(8, part.getStatus());
+            pstmt.setString(9, part.getBatchId());
+            pstmt.setTimestamp(10, part.getLastUpdateDate() != null ? new Timestamp(part.getLastUpdateDate().getTime()) : null);
+            pstmt.setInt(11, part.getPartId());
+            if (pstmt.executeUpdate() == 0) {
                 throw new RuntimeException("Spare part not found for update.");
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error updating spare part: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(part.getPartId());
         }
+        Part stored = loadById(part.getPartId());
+        if (stored != null) {
+            part.setQuantityInStock(stored.getQuantityInStock());
+            StockWatcher.getInstance().changed(stored);
+            ExpirationScheduler.getInstance().changed(stored);
+        }
+        EntityChanges.updated(Part.class, part.getPartId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM parts WHERE part_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected == 0) {
@@ -159,63 +262,435 @@ public class PartDAO implements PartDAOInterface {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting spare part:" + e.getMessage());
+        } finally {
+            CACHE.invalidate(id);
         }
+        StockWatcher.getInstance().removed(id);
+        ExpirationScheduler.getInstance().removed(id);
+        EntityChanges.deleted(Part.class, id);
     }
 
+    /** Consume stock disponible y registra el uso en el servicio, en una sola transacción. */
     @Override
     public void recordPartUsage(int serviceId, int partId, int quantityUsed, double unitPrice) {
-        String sql = "INSERT INTO service_part_usage (service_id, part_id, quantity_used, unit_price) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
-            pstmt.setInt(1, serviceId);
-            pstmt.setInt(2, partId);
-            pstmt.setInt(3, quantityUsed);
-            pstmt.setDouble(4, unitPrice);
-            pstmt.executeUpdate();
-            updateStock(partId, -quantityUsed);
+        requirePositive(quantityUsed);
+        inStockTransaction(partId, "Error registering spare usage: ", db -> {
+            if (adjustStock(db, partId, -quantityUsed) == 0) {
+                throw notEnoughStock(partId, quantityUsed);
+            }
+            insertUsage(db, serviceId, partId, quantityUsed, unitPrice);
+            StockLedgerDAO.append(db, List.of(new StockMovement(partId, StockMovementType.Usage, -quantityUsed, serviceId)));
+            return null;
+        });
+        StockWatcher.getInstance().refresh(partId, this::loadById);
+        EntityChanges.updated(Part.class, partId);
+    }
+
+    /** Suma (o resta, si es negativo) al stock; no deja lo disponible por debajo de cero. */
+    @Override
+    public void updateStock(int partId, int quantity) {
+        inStockTransaction(partId, "Error adjusting stock: ", db -> {
+            if (adjustStock(db, partId, quantity) == 0) {
+                throw notEnoughStock(partId, -quantity);
+            }
+            if (quantity != 0) {
+                StockLedgerDAO.append(db, List.of(new StockMovement(partId, StockMovementType.Adjustment, quantity, null)));
+            }
+            return null;
+        });
+        StockWatcher.getInstance().refresh(partId, this::loadById);
+        EntityChanges.updated(Part.class, partId);
+    }
+
+    @Override
+    public StockReservation reserveStock(int partId, int serviceId, int quantity) {
+        requirePositive(quantity);
+        return inStockTransaction(partId, "Error reserving stock: ", db -> {
+            try (PreparedStatement pstmt = RESERVE_STOCK.prepare(db)) {
+                pstmt.setInt(1, quantity);
+                pstmt.setInt(2, partId);
+                pstmt.setInt(3, quantity);
+                if (pstmt.executeUpdate() == 0) {
+                    throw notEnoughStock(partId, quantity);
+                }
+            }
+            Date now = new Date();
+            try (PreparedStatement pstmt = INSERT_RESERVATION.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, partId);
+                pstmt.setInt(2, serviceId);
+                pstmt.setInt(3, quantity);
+                pstmt.setTimestamp(4, new Timestamp(now.getTime()));
+                pstmt.executeUpdate();
+                ResultSet rs = pstmt.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("No reservation id was generated");
+                }
+                return new StockReservation(rs.getInt(1), partId, serviceId, quantity, now);
+            }
+        });
+    }
+
+    /** Descuenta del stock las unidades reservadas y registra el uso en el servicio de la reserva. */
+    @Override
+    public void commitReservation(StockReservation reservation, double unitPrice) {
+        int partId = reservation.getPartId();
+        int quantity = reservation.getQuantity();
+        inStockTransaction(partId, "Error confirming stock reservation: ", db -> {
+            // Primero la fila de parts, en el mismo orden que reserveStock, para no cruzar bloqueos
+            try (PreparedStatement pstmt = CONSUME_RESERVED.prepare(db)) {
+                pstmt.setInt(1, quantity);
+                pstmt.setInt(2, quantity);
+                pstmt.setInt(3, partId);
+                pstmt.setInt(4, quantity);
+                if (pstmt.executeUpdate() == 0 || deleteReservation(db, reservation) == 0) {
+                    throw new IllegalStateException("The reservation " + reservation.getReservationId() + " is no longer open.");
+                }
+            }
+            insertUsage(db, reservation.getServiceId(), partId, quantity, unitPrice);
+            StockLedgerDAO.append(db, List.of(new StockMovement(partId, StockMovementType.Usage, -quantity, reservation.getServiceId())));
+            return null;
+        });
+        StockWatcher.getInstance().refresh(partId, this::loadById);
+        EntityChanges.updated(Part.class, partId);
+    }
+
+    /** Devuelve las unidades reservadas a lo disponible. Liberar una reserva ya cerrada no hace nada. */
+    @Override
+    public void releaseReservation(StockReservation reservation) {
+        int partId = reservation.getPartId();
+        inStockTransaction(partId, "Error releasing stock reservation: ", db -> {
+            try (PreparedStatement pstmt = RELEASE_RESERVED.prepare(db)) {
+                pstmt.setInt(1, reservation.getQuantity());
+                pstmt.setInt(2, partId);
+                pstmt.setInt(3, reservation.getQuantity());
+                pstmt.executeUpdate();
+            }
+            if (deleteReservation(db, reservation) == 0) {
+                // Ya confirmada o liberada: se deshace la resta anterior
+                db.rollback();
+            }
+            return null;
+        });
+    }
+
+    /** Libera las reservas abiertas desde antes de {@code cutoff}, p. ej. las de un equipo que se cerró sin confirmarlas. */
+    @Override
+    public int releaseReservationsOlderThan(Date cutoff) {
+        List<StockReservation> stale = new ArrayList<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_RESERVATIONS_BEFORE.prepare(db)) {
+            pstmt.setTimestamp(1, new Timestamp(cutoff.getTime()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stale.add(new StockReservation(rs.getInt("reservation_id"), rs.getInt("part_id"),
+                            rs.getInt("service_id"), rs.getInt("quantity"), rs.getTimestamp("created_at")));
+                }
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("Error registering spare usage: " + e.getMessage());
+            throw new RuntimeException("Error reading stock reservations: " + e.getMessage());
+        }
+        for (StockReservation reservation : stale) {
+            releaseReservation(reservation);
         }
+        return stale.size();
     }
 
+    /**
+     * Aplica varios movimientos en una transacción y los asienta en el libro
+     * en un solo lote. Si alguno dejaría sin stock disponible a su repuesto,
+     * no se aplica ninguno.
+     */
     @Override
-    public void updateStock(int partId, int quantity) {
-        String sql = "UPDATE parts SET quantity_in_stock = quantity_in_stock + ? WHERE part_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+    public void recordStockMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        Set<Integer> partIds = new LinkedHashSet<>();
+        for (StockMovement movement : movements) {
+            partIds.add(movement.getPartId());
+        }
+        inStockTransaction(partIds, "Error recording stock movements: ", db -> {
+            applyStockMovements(db, movements);
+            return null;
+        });
+        for (int partId : partIds) {
+            StockWatcher.getInstance().refresh(partId, this::loadById);
+            EntityChanges.updated(Part.class, partId);
+        }
+    }
+
+    /**
+     * Aplica los movimientos dentro de la transacción de otro DAO (los
+     * repuestos de un servicio, la recepción de una orden de compra) y los
+     * asienta en el libro. Lanza IllegalStateException si alguno dejaría sin
+     * stock disponible a su repuesto; el llamador debe deshacer la
+     * transacción y, tras confirmarla, avisar con {@link #stockChanged}.
+     */
+    public static void applyStockMovements(Connection db, List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        List<StockMovement> sorted = new ArrayList<>(movements);
+        // Mismo orden de filas en todas las transacciones, para no cruzar bloqueos entre lotes
+        sorted.sort(Comparator.comparingInt(StockMovement::getPartId));
+        for (StockMovement movement : sorted) {
+            if (!movement.getType().allows(movement.getQuantity())) {
+                throw new IllegalArgumentException("Invalid quantity " + movement.getQuantity() + " for a " + movement.getType() + " movement.");
+            }
+        }
+        for (StockMovement movement : sorted) {
+            if (adjustStock(db, movement.getPartId(), movement.getQuantity()) == 0) {
+                throw notEnoughStock(movement.getPartId(), -movement.getQuantity());
+            }
+        }
+        StockLedgerDAO.append(db, sorted);
+    }
+
+    /**
+     * Refresca cachés, instantánea, alertas de stock y vistas de los repuestos
+     * cuyo stock cambió en una transacción ya confirmada de otro DAO.
+     */
+    public static void stockChanged(Collection<Integer> partIds) {
+        for (int partId : partIds) {
+            CACHE.invalidate(partId);
+        }
+        CachedPartDAO.refreshStock(partIds);
+        PartDAO loader = new PartDAO();
+        for (int partId : partIds) {
+            StockWatcher.getInstance().refresh(partId, loader::loadById);
+            EntityChanges.updated(Part.class, partId);
+        }
+    }
+
+    private <T> T inStockTransaction(int partId, String error, StockWork<T> work) {
+        return inStockTransaction(List.of(partId), error, work);
+    }
+
+    /**
+     * Ejecuta una escritura de stock en una transacción, con los locks de los
+     * repuestos: las de un mismo repuesto se ordenan en este proceso y las de
+     * repuestos distintos no se esperan. Entre equipos protegen los UPDATE
+     * condicionados.
+     */
+    private <T> T inStockTransaction(Collection<Integer> partIds, String error, StockWork<T> work) {
+        List<ReentrantLock> locks = STOCK_LOCKS.getAll(partIds);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                T result = work.run(db);
+                db.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(error + e.getMessage());
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+            for (int partId : partIds) {
+                CACHE.invalidate(partId);
+            }
+        }
+    }
+
+    private static int adjustStock(Connection db, int partId, int quantity) throws SQLException {
+        try (PreparedStatement pstmt = ADJUST_STOCK.prepare(db)) {
             pstmt.setInt(1, quantity);
             pstmt.setInt(2, partId);
+            pstmt.setInt(3, quantity);
+            pstmt.setInt(4, quantity);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private int deleteReservation(Connection db, StockReservation reservation) throws SQLException {
+        try (PreparedStatement pstmt = DELETE_RESERVATION.prepare(db)) {
+            pstmt.setInt(1, reservation.getReservationId());
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private void insertUsage(Connection db, int serviceId, int partId, int quantity, double unitPrice) throws SQLException {
+        try (PreparedStatement pstmt = RECORD_PART_USAGE.prepare(db)) {
+            pstmt.setInt(1, serviceId);
+            pstmt.setInt(2, partId);
+            pstmt.setInt(3, quantity);
+            pstmt.setDouble(4, unitPrice);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException("Error adjusting stock: " + e.getMessage());
         }
     }
 
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be greater than zero.");
+        }
+    }
+
+    private static IllegalStateException notEnoughStock(int partId, int requested) {
+        return new IllegalStateException("Not enough available stock for spare part " + partId + " (requested " + requested + ").");
+    }
+
+    private interface StockWork<T> {
+        T run(Connection db) throws SQLException;
+    }
+
     @Override
     public List<Part> searchByName(String name) {
         List<Part> parts = new ArrayList<>();
-        String sql = "SELECT * FROM parts WHERE name LIKE ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SEARCH_BY_NAME.prepare(db)) {
             pstmt.setString(1, "%" + name + "%");
             ResultSet rs = pstmt.executeQuery();
+            PartRowMapper mapper = new PartRowMapper();
+            while (rs.next()) {
+                parts.add(mapper.mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error searching for spare parts: " + e.getMessage());
+        }
+        return parts;
+    }
+
+    /**
+     * Búsqueda sin índice: recorre la tabla con LIKE sobre los mismos campos que
+     * indexa CachedPartDAO. Se ordena por nombre en vez de por relevancia.
+     */
+    @Override
+    public List<Part> search(String query, int limit) {
+        List<Part> parts = new ArrayList<>();
+        String pattern = "%" + query.trim() + "%";
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SEARCH.prepare(db)) {
+            for (int i = 1; i <= 4; i++) {
+                pstmt.setString(i, pattern);
+            }
+            pstmt.setInt(5, limit);
+            ResultSet rs = pstmt.executeQuery();
+            PartRowMapper mapper = new PartRowMapper();
             while (rs.next()) {
-                parts.add(new Part(
-                    rs.getInt("part_id"),
-                    rs.getString("name"),
-                    rs.getString("type"),
-                    rs.getString("compatible_make_model"),
-                    rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
-                    rs.getInt("quantity_in_stock"),
-                    rs.getInt("minimum_stock"),
-                    rs.getDate("entry_date"),
-                    rs.getDate("estimated_lifespan"),
-                    rs.getString("status"),
-                    rs.getString("batch_id"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                ));
+                parts.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error searching for spare parts: " + e.getMessage());
         }
         return parts;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Page<Part> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new PartRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of spare parts: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of spare parts: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting spare parts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre todos los repuestos sin cargarlos en memoria. El Stream debe
+     * cerrarse (try-with-resources) para liberar la conexión.
+     */
+    @Override
+    public Stream<Part> streamAll() {
+        return StreamingQuery.stream("SELECT * FROM parts", new PartRowMapper());
+    }
+
+    /** part_id y last_update_date de todos los repuestos, para detectar cambios hechos desde otros equipos. */
+    @Override
+    public Map<Integer, Date> findLastUpdateDates() {
+        Map<Integer, Date> dates = new HashMap<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_LAST_UPDATE_DATES.prepare(db);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                dates.put(rs.getInt(1), rs.getTimestamp(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading spare part update dates: " + e.getMessage());
+        }
+        return dates;
+    }
+
+    /** Número de repuestos por estado, en el orden del ENUM (Available, Reserved, Out_of_service). */
+    @Override
+    public Map<String, Integer> countByStatus() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = COUNT_BY_STATUS.prepare(db);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting spare parts by status: " + e.getMessage());
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Part> findByStatus(String status) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_STATUS.prepare(db)) {
+            pstmt.setString(1, status);
+            return readParts(pstmt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting spare parts by status: " + e.getMessage());
+        }
+    }
+
+    /** Repuestos con quantity_in_stock <= minimum_stock. */
+    @Override
+    public List<Part> findCriticalStock() {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_CRITICAL_STOCK.prepare(db)) {
+            return readParts(pstmt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting spare parts with critical stock: " + e.getMessage());
+        }
+    }
+
+    /** Repuestos con vida útil estimada registrada, de la que termina antes a la que termina después. */
+    @Override
+    public List<Part> findWithLifespan() {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_WITH_LIFESPAN.prepare(db)) {
+            return readParts(pstmt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting spare parts by lifespan: " + e.getMessage());
+        }
+    }
+
+    private List<Part> readParts(PreparedStatement pstmt) throws SQLException {
+        List<Part> parts = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            PartRowMapper mapper = new PartRowMapper();
+            while (rs.next()) {
+                parts.add(mapper.mapRow(rs));
+            }
+        }
+        return parts;
+    }
+}
@@ -3,7 +3,12 @@
  * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
  */
 package com.carmotorsproject.parts.model;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 /**
  *
  * @author camper
@@ -11,9 +16,25 @@ import java.util.List;
  public interface PartDAOInterface {
       void save(Part part);
     Part findById(int id);
+    List<Part> findByIds(List<Integer> ids);
     List<Part> findAll();
     void update(Part part);
     void delete(int id);
     void recordPartUsage(int serviceId, int partId, int quantityUsed, double unitPrice);
     void updateStock(int partId, int quantity);
-    List<Part> searchByName(String name);}
+    StockReservation reserveStock(int partId, int serviceId, int quantity);
+    void commitReservation(StockReservation reservation, double unitPrice);
+    void releaseReservation(StockReservation reservation);
+    int releaseReservationsOlderThan(Date cutoff);
+    void recordStockMovements(List<StockMovement> movements);
+    List<Part> searchByName(String name);
+    List<Part> search(String query, int limit);
+    Page<Part> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
+    Stream<Part> streamAll();
+    Map<Integer, Date> findLastUpdateDates();
+    Map<String, Integer> countByStatus();
+    List<Part> findByStatus(String status);
+    List<Part> findCriticalStock();
+    List<Part> findWithLifespan();}
@@ -0,0 +1,53 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code parts} a {@link Part}.
+ *
+ * @author camper
+ */
+public class PartRowMapper extends IndexedRowMapper<Part> {
+    public PartRowMapper() {
+        super(
+            "part_id",
+            "name",
+            "type",
+            "compatible_make_model",
+            "supplier_id",
+            "quantity_in_stock",
+            "minimum_stock",
+            "entry_date",
+            "estimated_lifespan",
+            "status",
+            "batch_id",
+            "creation_date",
+            "last_update_date"
+        );
+    }
+
+    @Override
+    protected Part map(ResultSet rs, int[] col) throws SQLException {
+        return new Part(
+            rs.getInt(col[0]),
+            rs.getString(col[1]),
+            rs.getString(col[2]),
+            rs.getString(col[3]),
+            getNullableInt(rs, col[4]),
+            rs.getInt(col[5]),
+            rs.getInt(col[6]),
+            rs.getDate(col[7]),
+            rs.getDate(col[8]),
+            rs.getString(col[9]),
+            rs.getString(col[10]),
+            rs.getTimestamp(col[11]),
+            rs.getTimestamp(col[12])
+        );
+    }
+}
@@ -4,7 +4,12 @@
  */
 package com.carmotorsproject.parts.model;
 
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.IntObjectMap;
+import com.carmotorsproject.utils.QueryUtil;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,82 +17,139 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class PurchaseOrderDAO implements PurchaseOrderDAOInterface {
-    private Connection db;
+    public static final String STATUS_RECEIVED = "Received";
+
+    private static final NamedQuery INSERT_ORDER = QueryRegistry.register("PurchaseOrderDAO.insertOrder",
+            "INSERT INTO purchase_orders (order_date, status, supplier_id, total_amount, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery INSERT_DETAIL = QueryRegistry.register("PurchaseOrderDAO.insertDetail",
+            "INSERT INTO purchase_order_details (order_id, part_id, quantity, unit_price, subtotal) VALUES (?, ?, ?, ?, ?)");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("PurchaseOrderDAO.findById",
+            "SELECT * FROM purchase_orders WHERE order_id = ?");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("PurchaseOrderDAO.findAll",
+            "SELECT * FROM purchase_orders");
+    private static final String SELECT_DETAILS =
+            "SELECT detail_id, order_id, part_id, quantity, unit_price, subtotal FROM purchase_order_details";
+    private static final NamedQuery UPDATE = QueryRegistry.register("PurchaseOrderDAO.update",
+            "UPDATE purchase_orders SET order_date = ?, supplier_id = ?, total_amount = ?, last_update_date = ? WHERE order_id = ? AND status <> ?");
+    private static final NamedQuery MARK_RECEIVED = QueryRegistry.register("PurchaseOrderDAO.markReceived",
+            "UPDATE purchase_orders SET status = ?, last_update_date = ? WHERE order_id = ? AND status <> ?");
+    private static final NamedQuery FIND_DETAILS = QueryRegistry.register("PurchaseOrderDAO.findDetails",
+            SELECT_DETAILS + " WHERE order_id = ?");
+    private static final NamedQuery DELETE_DETAILS = QueryRegistry.register("PurchaseOrderDAO.deleteDetails",
+            "DELETE FROM purchase_order_details WHERE order_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("PurchaseOrderDAO.delete",
+            "DELETE FROM purchase_orders WHERE order_id = ? AND status <> ?");
 
     public PurchaseOrderDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(PurchaseOrder order) {
-        String sqlOrder = "INSERT INTO purchase_orders (order_date, status, supplier_id, total_amount, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlOrder, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            pstmt.setDate(1, new java.sql.Date(order.getOrderDate().getTime()));
-            pstmt.setString(2, order.getStatus());
-            if (order.getSupplierId() != null) {
-                pstmt.setInt(3, order.getSupplierId());
-            } else {
-                pstmt.setNull(3, Types.INTEGER);
-            }
-            pstmt.setDouble(4, order.getTotalAmount());
-            pstmt.setTimestamp(5, new Timestamp(order.getCreationDate().getTime()));
-            pstmt.setTimestamp(6, new Timestamp(order.getLastUpdateDate().getTime()));
-            int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Order saved, rows affected: " + rowsAffected); // Depuración
+        saveAll(Collections.singletonList(order));
+    }
 
-            ResultSet rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                order.setOrderId(rs.getInt(1));
-                System.out.println("Generated order ID: " + order.getOrderId()); // Depuración
+    /**
+     * Guarda varias órdenes con sus detalles en una sola transacción: un lote
+     * para las cabeceras y otro para todos los detalles.
+     */
+    @Override
+    public void saveAll(List<PurchaseOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            int detailCount;
+            try {
+                try (PreparedStatement pstmt = INSERT_ORDER.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                    for (PurchaseOrder order : orders) {
+                        pstmt.setDate(1, new java.sql.Date(order.getOrderDate().getTime()));
+                        pstmt.setString(2, order.getStatus());
+                        if (order.getSupplierId() != null) {
+                            pstmt.setInt(3, order.getSupplierId());
+                        } else {
+                            pstmt.setNull(3, Types.INTEGER);
+                        }
+                        pstmt.setDouble(4, order.getTotalAmount());
+                        pstmt.setTimestamp(5, new Timestamp(order.getCreationDate().getTime()));
+                        pstmt.setTimestamp(6, new Timestamp(order.getLastUpdateDate().getTime()));
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+
+                    ResultSet rs = pstmt.getGeneratedKeys();
+                    for (PurchaseOrder order : orders) {
+                        if (rs.next()) {
+                            order.setOrderId(rs.getInt(1));
+                        }
+                    }
+                }
+
+                // Guardar detalles
+                detailCount = insertDetails(db, orders);
+                db.commit();
+            } catch (SQLException e) {
+                db.rollback();
+                throw e;
             }
+            System.out.println("Purchase orders saved: " + orders.size() + ", details: " + detailCount); // Depuración
+        } catch (SQLException e) {
+            System.err.println("Error saving purchase order:" + e.getMessage());
+            throw new RuntimeException("Error saving purchase order: " + e.getMessage());
+        }
+        orders.forEach(order -> EntityChanges.inserted(PurchaseOrder.class, order.getOrderId()));
+    }
 
-            // Guardar detalles
-            String sqlDetail = "INSERT INTO purchase_order_details (order_id, part_id, quantity, unit_price, subtotal) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmtDetail = db.prepareStatement(sqlDetail, PreparedStatement.RETURN_GENERATED_KEYS)) {
+    private int insertDetails(Connection db, List<PurchaseOrder> orders) throws SQLException {
+        List<PurchaseOrderDetail> batched = new ArrayList<>();
+        try (PreparedStatement pstmtDetail = INSERT_DETAIL.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
+            for (PurchaseOrder order : orders) {
+                if (order.getDetails() == null) {
+                    continue;
+                }
                 for (PurchaseOrderDetail detail : order.getDetails()) {
+                    detail.setOrderId(order.getOrderId());
                     pstmtDetail.setInt(1, order.getOrderId());
                     pstmtDetail.setInt(2, detail.getPartId());
                     pstmtDetail.setInt(3, detail.getQuantity());
                     pstmtDetail.setDouble(4, detail.getUnitPrice());
                     pstmtDetail.setDouble(5, detail.getSubtotal());
-                    int detailRowsAffected = pstmtDetail.executeUpdate();
-                    System.out.println("Detail saved, rows affected: " + detailRowsAffected); // Depuración
+                    pstmtDetail.addBatch();
+                    batched.add(detail);
+                }
+            }
+            if (batched.isEmpty()) {
+                return 0;
+            }
+            pstmtDetail.executeBatch();
 
-                    ResultSet rsDetail = pstmtDetail.getGeneratedKeys();
-                    if (rsDetail.next()) {
-                        detail.setDetailId(rsDetail.getInt(1));
-                        System.out.println("Generated detail ID:" + detail.getDetailId()); // Depuración
-                    }
+            ResultSet rsDetail = pstmtDetail.getGeneratedKeys();
+            for (PurchaseOrderDetail detail : batched) {
+                if (rsDetail.next()) {
+                    detail.setDetailId(rsDetail.getInt(1));
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error saving purchase order:" + e.getMessage());
-            throw new RuntimeException("Error saving purchase order: " + e.getMessage());
         }
+        return batched.size();
     }
 
     @Override
     public PurchaseOrder findById(int id) {
-        String sqlOrder = "SELECT * FROM purchase_orders WHERE order_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlOrder)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                List<PurchaseOrderDetail> details = findDetailsByOrderId(id);
-                return new PurchaseOrder(
-                    rs.getInt("order_id"),
-                    rs.getDate("order_date"),
-                    rs.getString("status"),
-                    rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
-                    rs.getDouble("total_amount"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date"),
-                    details
-                );
+                PurchaseOrder order = new PurchaseOrderRowMapper().mapRow(rs);
+                loadDetails(db, Collections.singletonList(order), true);
+                return order;
             }
         } catch (SQLException e) {
             System.err.println("Error searching for purchase order: " + e.getMessage());
@@ -95,114 +157,192 @@ public class PurchaseOrderDAO implements PurchaseOrderDAOInterface {
         return null;
     }
 
-    private List<PurchaseOrderDetail> findDetailsByOrderId(int orderId) {
-        List<PurchaseOrderDetail> details = new ArrayList<>();
-        String sqlDetail = "SELECT * FROM purchase_order_details WHERE order_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlDetail)) {
-            pstmt.setInt(1, orderId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                details.add(new PurchaseOrderDetail(
-                    rs.getInt("detail_id"),
-                    rs.getInt("order_id"),
-                    rs.getInt("part_id"),
-                    rs.getInt("quantity"),
-                    rs.getDouble("unit_price"),
-                    rs.getDouble("subtotal")
-                ));
-            }
-        } catch (SQLException e) {
-            System.err.println("Error searching for order details:" + e.getMessage());
-        }
-        return details;
-    }
-
     @Override
     public List<PurchaseOrder> findAll() {
         List<PurchaseOrder> orders = new ArrayList<>();
-        String sql = "SELECT * FROM purchase_orders";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                int orderId = rs.getInt("order_id");
-                List<PurchaseOrderDetail> details = findDetailsByOrderId(orderId);
-                orders.add(new PurchaseOrder(
-                    orderId,
-                    rs.getDate("order_date"),
-                    rs.getString("status"),
-                    rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
-                    rs.getDouble("total_amount"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date"),
-                    details
-                ));
+        try (Connection db = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = FIND_ALL.prepare(db);
+                 ResultSet rs = pstmt.executeQuery()) {
+                PurchaseOrderRowMapper mapper = new PurchaseOrderRowMapper();
+                while (rs.next()) {
+                    orders.add(mapper.mapRow(rs));
+                }
             }
+            // Todas las órdenes están cargadas: los detalles se leen en una sola consulta
+            loadDetails(db, orders, false);
         } catch (SQLException e) {
             System.err.println("Error getting purchase orders: " + e.getMessage());
         }
         return orders;
     }
 
-    @Override
-    public void update(PurchaseOrder order) {
-        String sqlOrder = "UPDATE purchase_orders SET order_date = ?, status = ?, supplier_id = ?, total_amount = ?, last_update_date = ? WHERE order_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlOrder)) {
-            pstmt.setDate(1, new java.sql.Date(order.getOrderDate().getTime()));
-            pstmt.setString(2, order.getStatus());
-            if (order.getSupplierId() != null) {
-                pstmt.setInt(3, order.getSupplierId());
+    /**
+     * Carga los detalles de las órdenes dadas agrupándolos por order_id.
+     * Con {@code filterByIds} se consultan por lotes IN; sin él se lee la tabla
+     * completa. En ambos casos el número de consultas no depende del número de órdenes.
+     */
+    private void loadDetails(Connection db, List<PurchaseOrder> orders, boolean filterByIds) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        IntObjectMap<PurchaseOrder> byId = new IntObjectMap<>(orders.size());
+        List<Integer> ids = new ArrayList<>(orders.size());
+        for (PurchaseOrder order : orders) {
+            byId.put(order.getOrderId(), order);
+            ids.add(order.getOrderId());
+        }
+        try {
+            if (filterByIds) {
+                for (List<Integer> chunk : QueryUtil.chunk(ids)) {
+                    readDetails(db, SELECT_DETAILS + " WHERE order_id IN " + QueryUtil.inPlaceholders(chunk.size()), chunk, byId);
+                }
             } else {
-                pstmt.setNull(3, Types.INTEGER);
+                readDetails(db, SELECT_DETAILS, Collections.emptyList(), byId);
             }
-            pstmt.setDouble(4, order.getTotalAmount());
-            pstmt.setTimestamp(5, new Timestamp(order.getLastUpdateDate().getTime()));
-            pstmt.setInt(6, order.getOrderId());
-            pstmt.executeUpdate();
-
-            // Actualizar detalles
-            String sqlDeleteDetails = "DELETE FROM purchase_order_details WHERE order_id = ?";
-            try (PreparedStatement pstmtDelete = db.prepareStatement(sqlDeleteDetails)) {
-                pstmtDelete.setInt(1, order.getOrderId());
-                pstmtDelete.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error searching for order details:" + e.getMessage());
+        }
+    }
+
+    private void readDetails(Connection db, String sql, List<Integer> ids, IntObjectMap<PurchaseOrder> byId) throws SQLException {
+        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
             }
-            String sqlInsertDetail = "INSERT INTO purchase_order_details (order_id, part_id, quantity, unit_price, subtotal) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmtInsert = db.prepareStatement(sqlInsertDetail, PreparedStatement.RETURN_GENERATED_KEYS)) {
-                for (PurchaseOrderDetail detail : order.getDetails()) {
-                    pstmtInsert.setInt(1, order.getOrderId());
-                    pstmtInsert.setInt(2, detail.getPartId());
-                    pstmtInsert.setInt(3, detail.getQuantity());
-                    pstmtInsert.setDouble(4, detail.getUnitPrice());
-                    pstmtInsert.setDouble(5, detail.getSubtotal());
-                    pstmtInsert.executeUpdate();
-
-                    ResultSet rsDetail = pstmtInsert.getGeneratedKeys();
-                    if (rsDetail.next()) {
-                        detail.setDetailId(rsDetail.getInt(1));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                PurchaseOrderDetailRowMapper mapper = new PurchaseOrderDetailRowMapper();
+                while (rs.next()) {
+                    PurchaseOrderDetail detail = mapper.mapRow(rs);
+                    PurchaseOrder order = byId.get(detail.getOrderId());
+                    if (order != null) {
+                        order.getDetails().add(detail);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Cambia cabecera y detalles de una orden que aún no se recibió. El estado
+     * no se escribe aquí: una orden solo pasa a recibida con {@link #receive(int)},
+     * que es lo que suma su stock. Una orden ya recibida no se modifica, porque
+     * sus detalles ya están asentados en el libro.
+     */
+    @Override
+    public void update(PurchaseOrder order) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = UPDATE.prepare(db)) {
+                    pstmt.setDate(1, new java.sql.Date(order.getOrderDate().getTime()));
+                    if (order.getSupplierId() != null) {
+                        pstmt.setInt(2, order.getSupplierId());
+                    } else {
+                        pstmt.setNull(2, Types.INTEGER);
                     }
+                    pstmt.setDouble(3, order.getTotalAmount());
+                    pstmt.setTimestamp(4, new Timestamp(order.getLastUpdateDate().getTime()));
+                    pstmt.setInt(5, order.getOrderId());
+                    pstmt.setString(6, STATUS_RECEIVED);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw notPending(order.getOrderId());
+                    }
+                }
+
+                // Actualizar detalles
+                try (PreparedStatement pstmtDelete = DELETE_DETAILS.prepare(db)) {
+                    pstmtDelete.setInt(1, order.getOrderId());
+                    pstmtDelete.executeUpdate();
                 }
+                insertDetails(db, Collections.singletonList(order));
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error updating purchase order: " + e.getMessage());
         }
+        EntityChanges.updated(PurchaseOrder.class, order.getOrderId());
     }
 
+    /**
+     * Marca la orden como recibida y suma al stock lo pedido en sus detalles,
+     * con una entrada (Receipt) en el libro por detalle, en una sola
+     * transacción. El UPDATE condicionado impide recibir dos veces la misma
+     * orden, también desde otro equipo.
+     */
     @Override
-    public void delete(int id) {
-        String sqlDetail = "DELETE FROM purchase_order_details WHERE order_id = ?";
-        String sqlOrder = "DELETE FROM purchase_orders WHERE order_id = ?";
-        try {
-            // Eliminar detalles primero
-            try (PreparedStatement pstmtDetail = db.prepareStatement(sqlDetail)) {
-                pstmtDetail.setInt(1, id);
-                pstmtDetail.executeUpdate();
+    public void receive(int orderId) {
+        Set<Integer> partIds = new TreeSet<>();
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = MARK_RECEIVED.prepare(db)) {
+                    pstmt.setString(1, STATUS_RECEIVED);
+                    pstmt.setTimestamp(2, new Timestamp(new Date().getTime()));
+                    pstmt.setInt(3, orderId);
+                    pstmt.setString(4, STATUS_RECEIVED);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw notPending(orderId);
+                    }
+                }
+                List<StockMovement> movements = new ArrayList<>();
+                try (PreparedStatement pstmt = FIND_DETAILS.prepare(db)) {
+                    pstmt.setInt(1, orderId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        PurchaseOrderDetailRowMapper mapper = new PurchaseOrderDetailRowMapper();
+                        while (rs.next()) {
+                            PurchaseOrderDetail detail = mapper.mapRow(rs);
+                            movements.add(new StockMovement(detail.getPartId(), StockMovementType.Receipt, detail.getQuantity(), orderId));
+                            partIds.add(detail.getPartId());
+                        }
+                    }
+                }
+                PartDAO.applyStockMovements(db, movements);
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
-            // Eliminar orden
-            try (PreparedStatement pstmtOrder = db.prepareStatement(sqlOrder)) {
-                pstmtOrder.setInt(1, id);
-                pstmtOrder.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error receiving purchase order: " + e.getMessage());
+        }
+        PartDAO.stockChanged(partIds);
+        EntityChanges.updated(PurchaseOrder.class, orderId);
+    }
+
+    /** Elimina una orden que aún no se recibió, con sus detalles, en una sola transacción. */
+    @Override
+    public void delete(int id) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                // Eliminar detalles primero
+                try (PreparedStatement pstmtDetail = DELETE_DETAILS.prepare(db)) {
+                    pstmtDetail.setInt(1, id);
+                    pstmtDetail.executeUpdate();
+                }
+                // Eliminar orden; si ya se recibió, el rollback restaura sus detalles
+                try (PreparedStatement pstmtOrder = DELETE.prepare(db)) {
+                    pstmtOrder.setInt(1, id);
+                    pstmtOrder.setString(2, STATUS_RECEIVED);
+                    if (pstmtOrder.executeUpdate() == 0) {
+                        throw notPending(id);
+                    }
+                }
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting purchase order: " + e.getMessage());
         }
+        EntityChanges.deleted(PurchaseOrder.class, id);
+    }
+
+    private static IllegalStateException notPending(int orderId) {
+        return new IllegalStateException("The purchase order " + orderId + " does not exist or was already received.");
     }
 }
\ No newline at end of file
@@ -12,8 +12,10 @@ import java.util.List;
  */
 public interface  PurchaseOrderDAOInterface {
    void save(PurchaseOrder order);
+    void saveAll(List<PurchaseOrder> orders);
     PurchaseOrder findById(int id);
     List<PurchaseOrder> findAll();
     void update(PurchaseOrder order);
+    void receive(int orderId);
     void delete(int id);
 }
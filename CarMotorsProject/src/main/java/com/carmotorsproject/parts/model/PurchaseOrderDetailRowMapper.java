@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code purchase_order_details} a {@link PurchaseOrderDetail}.
+ *
+ * @author camper
+ */
+public class PurchaseOrderDetailRowMapper extends IndexedRowMapper<PurchaseOrderDetail> {
+    public PurchaseOrderDetailRowMapper() {
+        super(
+            "detail_id",
+            "order_id",
+            "part_id",
+            "quantity",
+            "unit_price",
+            "subtotal"
+        );
+    }
+
+    @Override
+    protected PurchaseOrderDetail map(ResultSet rs, int[] col) throws SQLException {
+        return new PurchaseOrderDetail(
+            rs.getInt(col[0]),
+            rs.getInt(col[1]),
+            rs.getInt(col[2]),
+            rs.getInt(col[3]),
+            rs.getDouble(col[4]),
+            rs.getDouble(col[5])
+        );
+    }
+}
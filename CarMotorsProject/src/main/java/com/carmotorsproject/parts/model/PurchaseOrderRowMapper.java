@@ -0,0 +1,43 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Mapea filas de {@code purchase_orders} a {@link PurchaseOrder}. Los hijos se cargan aparte, por lote.
+ *
+ * @author camper
+ */
+public class PurchaseOrderRowMapper extends IndexedRowMapper<PurchaseOrder> {
+    public PurchaseOrderRowMapper() {
+        super(
+            "order_id",
+            "order_date",
+            "status",
+            "supplier_id",
+            "total_amount",
+            "creation_date",
+            "last_update_date"
+        );
+    }
+
+    @Override
+    protected PurchaseOrder map(ResultSet rs, int[] col) throws SQLException {
+        return new PurchaseOrder(
+            rs.getInt(col[0]),
+            rs.getDate(col[1]),
+            rs.getString(col[2]),
+            getNullableInt(rs, col[3]),
+            rs.getDouble(col[4]),
+            rs.getTimestamp(col[5]),
+            rs.getTimestamp(col[6]),
+            new ArrayList<>()
+        );
+    }
+}
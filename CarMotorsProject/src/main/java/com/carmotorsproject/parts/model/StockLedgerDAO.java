@@ -0,0 +1,316 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Libro de movimientos de stock (stock_movements) y sus fotos de saldo
+ * (stock_snapshots).
+ *
+ * Los movimientos los escribe PartDAO con {@link #append(Connection, List)}
+ * dentro de la misma transacción que cambia parts.quantity_in_stock, así que
+ * el libro y el stock no se separan. Aquí solo se leen.
+ *
+ * El saldo de un repuesto es su última foto más la suma de los movimientos
+ * posteriores (la cola). {@link #takeSnapshots()} guarda una foto nueva de
+ * los repuestos que tuvieron movimientos, para que la cola se mantenga corta;
+ * {@link #startPeriodicSnapshots()} lo hace cada {@link #SNAPSHOT_PERIOD_MINUTES}
+ * minutos en segundo plano. El consumo de un período se lee por created_at y
+ * cuesta lo que haya en el período, no lo que haya en todo el historial.
+ *
+ * @author camper
+ */
+public class StockLedgerDAO implements StockLedgerDAOInterface {
+    private static final long SNAPSHOT_PERIOD_MINUTES = 60;
+
+    private static final NamedQuery INSERT_MOVEMENT = QueryRegistry.register("StockLedgerDAO.append",
+            "INSERT INTO stock_movements (part_id, movement_type, quantity, reference_id) VALUES (?, ?, ?, ?)");
+    private static final NamedQuery FIND_MOVEMENTS = QueryRegistry.register("StockLedgerDAO.findMovements",
+            "SELECT * FROM stock_movements WHERE part_id = ? AND created_at >= ? AND created_at < ? ORDER BY movement_id");
+    // Consumo neto: lo usado en servicios menos lo devuelto
+    private static final NamedQuery CONSUMPTION_BETWEEN = QueryRegistry.register("StockLedgerDAO.consumptionBetween",
+            "SELECT part_id, -SUM(quantity) AS consumed FROM stock_movements WHERE created_at >= ? AND created_at < ? AND movement_type IN ('Usage', 'Return') GROUP BY part_id HAVING consumed <> 0 ORDER BY consumed DESC, part_id");
+    private static final NamedQuery LATEST_SNAPSHOT = QueryRegistry.register("StockLedgerDAO.latestSnapshot",
+            "SELECT last_movement_id, balance FROM stock_snapshots WHERE part_id = ? ORDER BY last_movement_id DESC LIMIT 1");
+    private static final NamedQuery SNAPSHOT_AT = QueryRegistry.register("StockLedgerDAO.snapshotAt",
+            "SELECT last_movement_id, balance FROM stock_snapshots WHERE part_id = ? AND snapshot_at <= ? ORDER BY last_movement_id DESC LIMIT 1");
+    private static final NamedQuery SUM_TAIL = QueryRegistry.register("StockLedgerDAO.sumTail",
+            "SELECT COALESCE(SUM(quantity), 0), MAX(movement_id) FROM stock_movements WHERE part_id = ? AND movement_id > ?");
+    private static final NamedQuery SUM_TAIL_UNTIL = QueryRegistry.register("StockLedgerDAO.sumTailUntil",
+            "SELECT COALESCE(SUM(quantity), 0), MAX(movement_id) FROM stock_movements WHERE part_id = ? AND movement_id > ? AND created_at <= ?");
+    private static final NamedQuery SNAPSHOT_CURSOR = QueryRegistry.register("StockLedgerDAO.snapshotCursor",
+            "SELECT COALESCE(MAX(last_movement_id), 0) FROM stock_snapshots");
+    private static final NamedQuery PARTS_WITH_TAIL = QueryRegistry.register("StockLedgerDAO.partsWithTail",
+            "SELECT part_id FROM stock_movements WHERE movement_id > ? GROUP BY part_id");
+    // Espera a que terminen las escrituras de stock del repuesto y frena las nuevas mientras se toma la foto
+    private static final NamedQuery LOCK_PART_STOCK = QueryRegistry.register("StockLedgerDAO.lockPartStock",
+            "SELECT quantity_in_stock FROM parts WHERE part_id = ? FOR SHARE");
+    private static final NamedQuery INSERT_SNAPSHOT = QueryRegistry.register("StockLedgerDAO.insertSnapshot",
+            "INSERT IGNORE INTO stock_snapshots (part_id, last_movement_id, balance) VALUES (?, ?, ?)");
+
+    private static ScheduledExecutorService snapshotter;
+
+    public StockLedgerDAO() {
+    }
+
+    /** Escribe los movimientos en un solo lote, con la conexión (y la transacción) de quien llama. */
+    static void append(Connection db, List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = INSERT_MOVEMENT.prepare(db)) {
+            for (StockMovement movement : movements) {
+                pstmt.setInt(1, movement.getPartId());
+                pstmt.setString(2, movement.getType().name());
+                pstmt.setInt(3, movement.getQuantity());
+                if (movement.getReferenceId() != null) {
+                    pstmt.setInt(4, movement.getReferenceId());
+                } else {
+                    pstmt.setNull(4, Types.INTEGER);
+                }
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /** Movimientos del repuesto con created_at en [from, to). */
+    @Override
+    public List<StockMovement> findMovements(int partId, Date from, Date to) {
+        List<StockMovement> movements = new ArrayList<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_MOVEMENTS.prepare(db)) {
+            pstmt.setInt(1, partId);
+            pstmt.setTimestamp(2, new Timestamp(from.getTime()));
+            pstmt.setTimestamp(3, new Timestamp(to.getTime()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    movements.add(new StockMovement(
+                            rs.getLong("movement_id"),
+                            rs.getInt("part_id"),
+                            StockMovementType.valueOf(rs.getString("movement_type")),
+                            rs.getInt("quantity"),
+                            (Integer) rs.getObject("reference_id"),
+                            rs.getTimestamp("created_at")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading stock movements: " + e.getMessage());
+        }
+        return movements;
+    }
+
+    /** Unidades consumidas por repuesto en [from, to), de mayor a menor. */
+    @Override
+    public Map<Integer, Integer> consumptionBetween(Date from, Date to) {
+        Map<Integer, Integer> consumption = new LinkedHashMap<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = CONSUMPTION_BETWEEN.prepare(db)) {
+            pstmt.setTimestamp(1, new Timestamp(from.getTime()));
+            pstmt.setTimestamp(2, new Timestamp(to.getTime()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumption.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading stock consumption: " + e.getMessage());
+        }
+        return consumption;
+    }
+
+    @Override
+    public int balanceOf(int partId) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            long[] snapshot = latestSnapshot(db, partId);
+            return (int) (snapshot[1] + sumTail(db, partId, snapshot[0])[0]);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading stock balance: " + e.getMessage());
+        }
+    }
+
+    /** Saldo que tenía el repuesto en {@code at}; antes de existir el libro es 0. */
+    @Override
+    public int balanceAt(int partId, Date at) {
+        Timestamp until = new Timestamp(at.getTime());
+        try (Connection db = DatabaseConnection.getConnection()) {
+            long lastMovementId = 0;
+            long balance = 0;
+            try (PreparedStatement pstmt = SNAPSHOT_AT.prepare(db)) {
+                pstmt.setInt(1, partId);
+                pstmt.setTimestamp(2, until);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        lastMovementId = rs.getLong(1);
+                        balance = rs.getLong(2);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = SUM_TAIL_UNTIL.prepare(db)) {
+                pstmt.setInt(1, partId);
+                pstmt.setLong(2, lastMovementId);
+                pstmt.setTimestamp(3, until);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    return (int) (balance + rs.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading stock balance: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda una foto de saldo de cada repuesto con movimientos desde la
+     * última foto general. Un movimiento que se confirmó tarde, con un id
+     * menor, puede quedar fuera hasta el siguiente movimiento de su repuesto:
+     * solo alarga la cola, el saldo sigue siendo exacto.
+     *
+     * @return cuántas fotos se guardaron
+     */
+    @Override
+    public int takeSnapshots() {
+        List<Integer> partIds = new ArrayList<>();
+        try (Connection db = DatabaseConnection.getConnection()) {
+            long cursor;
+            try (PreparedStatement pstmt = SNAPSHOT_CURSOR.prepare(db);
+                 ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                cursor = rs.getLong(1);
+            }
+            try (PreparedStatement pstmt = PARTS_WITH_TAIL.prepare(db)) {
+                pstmt.setLong(1, cursor);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        partIds.add(rs.getInt(1));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading stock movements: " + e.getMessage());
+        }
+        int count = 0;
+        for (int partId : partIds) {
+            if (takeSnapshot(partId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Foto de un repuesto en su propia transacción. El bloqueo compartido de la
+     * fila de parts se toma antes de leer el libro, así la lectura ve todos los
+     * movimientos ya confirmados y ninguno a medias.
+     */
+    private boolean takeSnapshot(int partId) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                Integer stock = null;
+                try (PreparedStatement pstmt = LOCK_PART_STOCK.prepare(db)) {
+                    pstmt.setInt(1, partId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            stock = rs.getInt(1);
+                        }
+                    }
+                }
+                long[] snapshot = latestSnapshot(db, partId);
+                long[] tail = sumTail(db, partId, snapshot[0]);
+                if (tail[1] == 0) {
+                    db.commit();
+                    return false;
+                }
+                long balance = snapshot[1] + tail[0];
+                if (stock != null && stock != balance) {
+                    System.err.println("Advertencia: el stock del repuesto " + partId + " es " + stock
+                            + " pero el libro de movimientos suma " + balance);
+                }
+                try (PreparedStatement pstmt = INSERT_SNAPSHOT.prepare(db)) {
+                    pstmt.setInt(1, partId);
+                    pstmt.setLong(2, tail[1]);
+                    pstmt.setLong(3, balance);
+                    pstmt.executeUpdate();
+                }
+                db.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error taking stock snapshot: " + e.getMessage());
+        }
+    }
+
+    /** {last_movement_id, balance} de la última foto, o {0, 0} si no hay. */
+    private static long[] latestSnapshot(Connection db, int partId) throws SQLException {
+        try (PreparedStatement pstmt = LATEST_SNAPSHOT.prepare(db)) {
+            pstmt.setInt(1, partId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new long[]{rs.getLong(1), rs.getLong(2)};
+                }
+                return new long[]{0, 0};
+            }
+        }
+    }
+
+    /** {suma, último movement_id} de los movimientos posteriores a {@code afterMovementId}; el id es 0 si no hay. */
+    private static long[] sumTail(Connection db, int partId, long afterMovementId) throws SQLException {
+        try (PreparedStatement pstmt = SUM_TAIL.prepare(db)) {
+            pstmt.setInt(1, partId);
+            pstmt.setLong(2, afterMovementId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new long[]{rs.getLong(1), rs.getLong(2)};
+            }
+        }
+    }
+
+    public static synchronized void startPeriodicSnapshots() {
+        if (snapshotter != null) {
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-stock-snapshots");
+            t.setDaemon(true);
+            return t;
+        });
+        StockLedgerDAO dao = new StockLedgerDAO();
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                dao.takeSnapshots();
+            } catch (RuntimeException e) {
+                System.err.println("Error taking stock snapshots: " + e.getMessage());
+            }
+        }, SNAPSHOT_PERIOD_MINUTES, SNAPSHOT_PERIOD_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static synchronized void stopPeriodicSnapshots() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+    }
+}
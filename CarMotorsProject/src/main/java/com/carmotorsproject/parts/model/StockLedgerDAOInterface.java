@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+/**
+ *
+ * @author camper
+ */
+public interface StockLedgerDAOInterface {
+    List<StockMovement> findMovements(int partId, Date from, Date to);
+    Map<Integer, Integer> consumptionBetween(Date from, Date to);
+    int balanceOf(int partId);
+    int balanceAt(int partId, Date at);
+    int takeSnapshots();
+}
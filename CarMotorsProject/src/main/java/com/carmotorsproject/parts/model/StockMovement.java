@@ -0,0 +1,50 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import java.util.Date;
+
+/**
+ * Un asiento del libro de stock. La cantidad lleva signo: positiva si entra
+ * al almacén, negativa si sale. referenceId es el servicio o la orden de
+ * compra que lo originó, si lo hay.
+ *
+ * @author camper
+ */
+public class StockMovement {
+    private final long movementId;
+    private final int partId;
+    private final StockMovementType type;
+    private final int quantity;
+    private final Integer referenceId;
+    private final Date createdAt;
+
+    public StockMovement(long movementId, int partId, StockMovementType type, int quantity, Integer referenceId, Date createdAt) {
+        this.movementId = movementId;
+        this.partId = partId;
+        this.type = type;
+        this.quantity = quantity;
+        this.referenceId = referenceId;
+        this.createdAt = createdAt;
+    }
+
+    /** Movimiento nuevo; el id y la fecha los pone la base de datos. */
+    public StockMovement(int partId, StockMovementType type, int quantity, Integer referenceId) {
+        this(0, partId, type, quantity, referenceId, null);
+    }
+
+    public long getMovementId() { return movementId; }
+    public int getPartId() { return partId; }
+    public StockMovementType getType() { return type; }
+    public int getQuantity() { return quantity; }
+    public Integer getReferenceId() { return referenceId; }
+    public Date getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return "StockMovement#" + movementId + "[part=" + partId + ", " + type + " " + quantity
+                + (referenceId != null ? ", ref=" + referenceId : "") + "]";
+    }
+}
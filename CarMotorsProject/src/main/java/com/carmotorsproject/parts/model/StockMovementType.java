@@ -0,0 +1,33 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+/**
+ * Tipos de movimiento del libro de stock y el signo que admite cada uno.
+ *
+ * @author camper
+ */
+public enum StockMovementType {
+    /** Entrada de mercancía, p. ej. de una orden de compra. */
+    Receipt,
+    /** Consumo en un servicio. */
+    Usage,
+    /** Corrección manual o por inventario físico. */
+    Adjustment,
+    /** Devolución al almacén de unidades que se habían consumido. */
+    Return;
+
+    public boolean allows(int quantity) {
+        switch (this) {
+            case Receipt:
+            case Return:
+                return quantity > 0;
+            case Usage:
+                return quantity < 0;
+            default:
+                return quantity != 0;
+        }
+    }
+}
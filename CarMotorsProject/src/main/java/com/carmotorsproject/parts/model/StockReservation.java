@@ -0,0 +1,42 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import java.util.Date;
+
+/**
+ * Unidades de un repuesto apartadas para un servicio. Mientras existe, esas
+ * unidades siguen en quantity_in_stock pero no se pueden reservar ni
+ * consumir para otra cosa; al confirmarla se descuentan del stock y al
+ * liberarla vuelven a estar disponibles.
+ *
+ * @author camper
+ */
+public class StockReservation {
+    private final int reservationId;
+    private final int partId;
+    private final int serviceId;
+    private final int quantity;
+    private final Date createdAt;
+
+    public StockReservation(int reservationId, int partId, int serviceId, int quantity, Date createdAt) {
+        this.reservationId = reservationId;
+        this.partId = partId;
+        this.serviceId = serviceId;
+        this.quantity = quantity;
+        this.createdAt = createdAt;
+    }
+
+    public int getReservationId() { return reservationId; }
+    public int getPartId() { return partId; }
+    public int getServiceId() { return serviceId; }
+    public int getQuantity() { return quantity; }
+    public Date getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return "StockReservation#" + reservationId + "[part=" + partId + ", service=" + serviceId + ", quantity=" + quantity + "]";
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+/**
+ *
+ * @author camper
+ */
+@FunctionalInterface
+public interface StockThresholdListener {
+    /**
+     * Un repuesto entró en stock bajo ({@code low} true) o salió de él. Se
+     * llama siempre en el EDT.
+     */
+    void thresholdCrossed(Part part, boolean low);
+}
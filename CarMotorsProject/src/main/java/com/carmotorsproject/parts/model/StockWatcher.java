@@ -0,0 +1,166 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Conjunto vivo de repuestos en stock bajo (quantity_in_stock <= minimum_stock).
+ *
+ * Se carga una vez con la consulta de stock crítico y a partir de ahí PartDAO
+ * le pasa cada escritura que puede cambiar la cantidad o el mínimo: altas,
+ * modificaciones, ajustes de stock, consumos en servicios y bajas. Así las
+ * preguntas "¿está bajo?" y "¿cuáles están bajos?" no dependen del tamaño del
+ * catálogo, solo del número de repuestos bajos.
+ *
+ * Cuando un repuesto entra o sale del conjunto se avisa a los
+ * {@link StockThresholdListener} en el EDT. Igual que en EntityChanges, los
+ * listeners se guardan con referencias débiles: quien se suscribe debe
+ * guardar el listener en un campo. Una baja saca al repuesto del conjunto sin
+ * avisar, porque no es una reposición.
+ *
+ * @author camper
+ */
+public class StockWatcher {
+    private static StockWatcher instance;
+
+    private final Supplier<List<Part>> loader;
+    private final Map<Integer, Part> lowStock = new ConcurrentHashMap<>();
+    private final List<WeakReference<StockThresholdListener>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+
+    public StockWatcher(Supplier<List<Part>> loader) {
+        this.loader = loader;
+    }
+
+    public static synchronized StockWatcher getInstance() {
+        if (instance == null) {
+            PartDAO dao = new PartDAO();
+            instance = new StockWatcher(dao::findCriticalStock);
+        }
+        return instance;
+    }
+
+    public static boolean isLow(Part part) {
+        return part.getQuantityInStock() <= part.getMinimumStock();
+    }
+
+    public boolean isLowStock(int partId) {
+        load();
+        return lowStock.containsKey(partId);
+    }
+
+    public int lowStockCount() {
+        load();
+        return lowStock.size();
+    }
+
+    /** Copias de los repuestos en stock bajo, por id. */
+    public List<Part> getLowStock() {
+        load();
+        List<Part> parts = new ArrayList<>(lowStock.size());
+        for (Part part : lowStock.values()) {
+            parts.add(new Part(part));
+        }
+        parts.sort(Comparator.comparingInt(Part::getPartId));
+        return parts;
+    }
+
+    public void subscribe(StockThresholdListener listener) {
+        listeners.add(new WeakReference<>(listener));
+    }
+
+    public void unsubscribe(StockThresholdListener listener) {
+        listeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+    }
+
+    /** Carga el conjunto si aún no se ha hecho; antes de eso no se detectan cruces. */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                for (Part part : loader.get()) {
+                    lowStock.put(part.getPartId(), new Part(part));
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    /** Alta o modificación con la cantidad y el mínimo ya guardados. */
+    public synchronized void changed(Part part) {
+        if (!loaded) {
+            return;
+        }
+        boolean low = isLow(part);
+        boolean wasLow;
+        if (low) {
+            wasLow = lowStock.put(part.getPartId(), new Part(part)) != null;
+        } else {
+            wasLow = lowStock.remove(part.getPartId()) != null;
+        }
+        if (low != wasLow) {
+            fire(new Part(part), low);
+        }
+    }
+
+    /**
+     * Ajuste de stock del que solo se conoce el id: relee el repuesto con
+     * {@code reader}. La lectura se hace dentro del lock para que dos ajustes
+     * seguidos no se apliquen en desorden.
+     */
+    public synchronized void refresh(int partId, IntFunction<Part> reader) {
+        if (!loaded) {
+            return;
+        }
+        Part part = reader.apply(partId);
+        if (part != null) {
+            changed(part);
+        } else {
+            lowStock.remove(partId);
+        }
+    }
+
+    public synchronized void removed(int partId) {
+        lowStock.remove(partId);
+    }
+
+    /** Descarta el conjunto; el siguiente uso lo vuelve a cargar. */
+    public synchronized void invalidate() {
+        loaded = false;
+        lowStock.clear();
+    }
+
+    private void fire(Part part, boolean low) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            for (WeakReference<StockThresholdListener> ref : listeners) {
+                StockThresholdListener listener = ref.get();
+                if (listener == null) {
+                    listeners.remove(ref);
+                    continue;
+                }
+                try {
+                    listener.thresholdCrossed(part, low);
+                } catch (RuntimeException e) {
+                    System.err.println("Error notifying stock threshold for part " + part.getPartId() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -5,32 +5,56 @@
 package com.carmotorsproject.parts.model;
 
 import com.carmotorsproject.customers.model.Customer;
+import com.carmotorsproject.utils.EntityCache;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class SupplierDAO implements SupplierDAOInterface {
-    private Connection db;
+    private static final NamedQuery COUNT_BY_NAME = QueryRegistry.register("SupplierDAO.countByName",
+            "SELECT COUNT(*) FROM suppliers WHERE name = ?");
+    private static final NamedQuery SAVE = QueryRegistry.register("SupplierDAO.save",
+            "INSERT INTO suppliers (name, tax_id, contact) VALUES (?, ?, ?)");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("SupplierDAO.findAll",
+            "SELECT * FROM suppliers");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("SupplierDAO.findById",
+            "SELECT * FROM suppliers WHERE supplier_id = ?");
+    private static final NamedQuery UPDATE = QueryRegistry.register("SupplierDAO.update",
+            "UPDATE suppliers SET name = ?, tax_id = ?, contact = ? WHERE supplier_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("SupplierDAO.delete",
+            "DELETE FROM suppliers WHERE supplier_id = ?");
+    private static final NamedQuery SEARCH_BY_NAME = QueryRegistry.register("SupplierDAO.searchByName",
+            "SELECT * FROM suppliers WHERE name LIKE ?");
+
+    private static final EntityCache<Supplier> CACHE = new EntityCache<>("suppliers", 500);
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM suppliers", "supplier_id", null, "suppliers")
+            .sortable("name", "name");
 
     public SupplierDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(Supplier supplier) {
-        String checkSql = "SELECT COUNT(*) FROM suppliers WHERE name = ?";
-        try (PreparedStatement checkStmt = db.prepareStatement(checkSql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement checkStmt = COUNT_BY_NAME.prepare(db)) {
             checkStmt.setString(1, supplier.getName());
             ResultSet rs = checkStmt.executeQuery();
             if (rs.next() && rs.getInt(1) > 0) {
                 throw new IllegalArgumentException("A supplier with the name '" + supplier.getName() + "' already exists.");
             }
 
-            String sql = "INSERT INTO suppliers (name, tax_id, contact) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+            try (PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
                 pstmt.setString(1, supplier.getName());
                 pstmt.setString(2, supplier.getTaxId());
                 pstmt.setString(3, supplier.getContact());
@@ -47,21 +71,18 @@ public class SupplierDAO implements SupplierDAOInterface {
             System.err.println("Error saving supplier: " + e.getMessage());
             throw new RuntimeException("Error saving supplier: " + e.getMessage());
         }
+        EntityChanges.inserted(Supplier.class, supplier.getSupplierId());
     }
 
     @Override
     public List<Supplier> findAll() {
         List<Supplier> suppliers = new ArrayList<>();
-        String sql = "SELECT * FROM suppliers";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            SupplierRowMapper mapper = new SupplierRowMapper();
             while (rs.next()) {
-                suppliers.add(new Supplier(
-                    rs.getInt("supplier_id"),
-                    rs.getString("name"),
-                    rs.getString("tax_id"),
-                    rs.getString("contact")
-                ));
+                suppliers.add(mapper.mapRow(rs));
             }
         } catch (Exception e) {
             System.err.println("Error fetching suppliers: " + e.getMessage());
@@ -71,17 +92,16 @@ public class SupplierDAO implements SupplierDAOInterface {
 
     @Override
     public Supplier findById(int id) {
-        String sql = "SELECT * FROM suppliers WHERE supplier_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        return CACHE.get(id, this::loadById);
+    }
+
+    private Supplier loadById(int id) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Supplier(
-                    rs.getInt("supplier_id"),
-                    rs.getString("name"),
-                    rs.getString("tax_id"),
-                    rs.getString("contact")
-                );
+                return new SupplierRowMapper().mapRow(rs);
             }
         } catch (Exception e) {
             System.err.println("Error finding supplier: " + e.getMessage());
@@ -91,8 +111,8 @@ public class SupplierDAO implements SupplierDAOInterface {
 
     @Override
     public void update(Supplier supplier) {
-        String sql = "UPDATE suppliers SET name = ?, tax_id = ?, contact = ? WHERE supplier_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE.prepare(db)) {
             pstmt.setString(1, supplier.getName());
             pstmt.setString(2, supplier.getTaxId());
             pstmt.setString(3, supplier.getContact());
@@ -104,13 +124,16 @@ public class SupplierDAO implements SupplierDAOInterface {
         } catch (Exception e) {
             System.err.println("Error updating supplier: " + e.getMessage());
             throw new RuntimeException("Error updating supplier: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(supplier.getSupplierId());
         }
+        EntityChanges.updated(Supplier.class, supplier.getSupplierId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM suppliers WHERE supplier_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected == 0) {
@@ -118,27 +141,53 @@ public class SupplierDAO implements SupplierDAOInterface {
             }
         } catch (Exception e) {
             throw new RuntimeException("Error deleting supplier: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(id);
         }
+        EntityChanges.deleted(Supplier.class, id);
     }
 
     @Override
     public List<Supplier> searchByName(String name) {
         List<Supplier> suppliers = new ArrayList<>();
-        String sql = "SELECT * FROM suppliers WHERE name LIKE ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SEARCH_BY_NAME.prepare(db)) {
             pstmt.setString(1, "%" + name + "%");
             ResultSet rs = pstmt.executeQuery();
+            SupplierRowMapper mapper = new SupplierRowMapper();
             while (rs.next()) {
-                suppliers.add(new Supplier(
-                    rs.getInt("supplier_id"),
-                    rs.getString("name"),
-                    rs.getString("tax_id"),
-                    rs.getString("contact")
-                ));
+                suppliers.add(mapper.mapRow(rs));
             }
         } catch (Exception e) {
             System.err.println("Error searching suppliers: " + e.getMessage());
         }
         return suppliers;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Page<Supplier> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new SupplierRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of suppliers: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of suppliers: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting suppliers: " + e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,8 @@
 package com.carmotorsproject.parts.model;
 
 import com.carmotorsproject.customers.model.Customer;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
 
 /**
@@ -17,5 +19,8 @@ public interface SupplierDAOInterface {
     List<Supplier> findAll();
     void update(Supplier supplier);
     void delete(int id);
+    Page<Supplier> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
      List<Supplier> searchByName(String name);
 }
@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code suppliers} a {@link Supplier}.
+ *
+ * @author camper
+ */
+public class SupplierRowMapper extends IndexedRowMapper<Supplier> {
+    public SupplierRowMapper() {
+        super(
+            "supplier_id",
+            "name",
+            "tax_id",
+            "contact"
+        );
+    }
+
+    @Override
+    protected Supplier map(ResultSet rs, int[] col) throws SQLException {
+        return new Supplier(
+            rs.getInt(col[0]),
+            rs.getString(col[1]),
+            rs.getString(col[2]),
+            rs.getString(col[3])
+        );
+    }
+}
@@ -7,18 +7,27 @@ package com.carmotorsproject.parts.views;
 
 import com.carmotorsproject.parts.controller.InventoryReportController;
 import com.carmotorsproject.parts.controller.PartController;
+import com.carmotorsproject.parts.model.ExpirationListener;
+import com.carmotorsproject.parts.model.ExpirationScheduler;
 import com.carmotorsproject.parts.model.Part;
 import com.carmotorsproject.parts.model.PartDAO;
 import com.carmotorsproject.parts.model.PurchaseOrder;
 import com.carmotorsproject.parts.model.PurchaseOrderDetail;
+import com.carmotorsproject.parts.model.StockThresholdListener;
 import com.carmotorsproject.parts.model.Supplier;
 import com.carmotorsproject.parts.model.SupplierDAO;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import com.carmotorsproject.utils.PagedTableModel;
 import com.toedter.calendar.JDateChooser;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
@@ -35,7 +44,14 @@ import javax.swing.SpinnerNumberModel;
 import javax.swing.table.DefaultTableModel;
 
 public class PartView extends JFrame {
+    private static final String[] COLUMNS = {"ID", "Name", "Type", "Compatible Model", "Supplier", "Stock", "Minimum Stock", "Entry Date", "Estimated Life", "Status", "Batch ID", "Creation Date", "Last Update"};
     private PartController controller;
+    // Carga en curso; se cancela si llega otra antes de que termine
+    private CompletableFuture<?> pendingLoad;
+    private final PagedTableModel<Part> pagedModel;
+    // Referencia fuerte: StockWatcher solo guarda una débil
+    private final StockThresholdListener stockListener = this::stockThresholdCrossed;
+    private final ExpirationListener expirationListener = this::expirationStageReached;
     private InventoryReportController reportController;
     private SupplierDAO supplierDAO;
     private JTextField inputName;
@@ -50,12 +66,21 @@ public class PartView extends JFrame {
     private JTextField inputBatchId;
     private JTextField inputSearch;
     private JTable tableParts;
+    // Repuesto cargado en el formulario y el stock que se mostró, para enviar solo la diferencia
+    private int editingPartId;
+    private int editingQuantity;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
     public PartView() {
         this.controller = new PartController(this);
         this.reportController = new InventoryReportController();
         this.supplierDAO = new SupplierDAO();
+        this.pagedModel = new PagedTableModel<>(COLUMNS, this::fetchPartPage,
+                first -> controller.getPartPageBoundaries(first),
+                () -> controller.countParts(), this::columnValue);
+        pagedModel.trackChanges(Part.class, Part::getPartId, this::loadPart);
+        controller.watchStock(stockListener);
+        controller.watchExpirations(expirationListener);
         initComponents();
         populateSuppliers();
         refreshTable();
@@ -150,7 +175,7 @@ public class PartView extends JFrame {
 
         // Panel de búsqueda
         JPanel searchPanel = new JPanel();
-        JLabel lblSearch = new JLabel("Search by Name:");
+        JLabel lblSearch = new JLabel("Search:");
         inputSearch = new JTextField(20);
         JButton btnSearch = new JButton("Search");
         searchPanel.add(lblSearch);
@@ -166,6 +191,7 @@ public class PartView extends JFrame {
         JButton btnStatusReport = new JButton("Report by State");
         JButton btnStockReport = new JButton("Critical Stock Report");
         JButton btnExpirationReport = new JButton("Expiration Report");
+        JButton btnConsumptionReport = new JButton("Consumption Report");
         buttonPanel.add(btnAdd);
         buttonPanel.add(btnUpdate);
         buttonPanel.add(btnDelete);
@@ -173,6 +199,7 @@ public class PartView extends JFrame {
         buttonPanel.add(btnStatusReport);
         buttonPanel.add(btnStockReport);
         buttonPanel.add(btnExpirationReport);
+        buttonPanel.add(btnConsumptionReport);
 
         // Tabla de partes
         tableParts = new JTable();
@@ -202,6 +229,7 @@ public class PartView extends JFrame {
         btnStatusReport.addActionListener(e -> showStatusReport());
         btnStockReport.addActionListener(e -> showCriticalStockReport());
         btnExpirationReport.addActionListener(e -> showExpirationReport());
+        btnConsumptionReport.addActionListener(e -> showConsumptionReport());
     }
 
     private void populateSuppliers() {
@@ -232,8 +260,6 @@ public class PartView extends JFrame {
         Part part = new Part(0, name, type, compatibleMakeModel, supplierId, quantityInStock, minimumStock,
                 entryDate, estimatedLifespan, status, batchId, new Date(), new Date());
         controller.addPart(part);
-        checkStockAlert(part);
-        checkExpirationAlert(part);
         clearFields();
     }
 
@@ -261,10 +287,7 @@ public class PartView extends JFrame {
             return;
         }
 
-        Part part = controller.getAllParts().stream()
-                .filter(p -> p.getPartId() == partId)
-                .findFirst()
-                .orElse(null);
+        Part part = controller.getPartById(partId);
         if (part == null) {
             showAlert("Spare part not found.");
             return;
@@ -274,7 +297,6 @@ public class PartView extends JFrame {
         part.setType(type);
         part.setCompatibleMakeModel(compatibleMakeModel);
         part.setSupplierId(supplierId);
-        part.setQuantityInStock(quantityInStock);
         part.setMinimumStock(minimumStock);
         part.setEntryDate(entryDate);
         part.setEstimatedLifespan(estimatedLifespan);
@@ -282,9 +304,9 @@ public class PartView extends JFrame {
         part.setBatchId(batchId);
         part.setLastUpdateDate(new Date());
 
-        controller.updatePart(part);
-        checkStockAlert(part);
-        checkExpirationAlert(part);
+        // Sin carga previa de este repuesto se compara con el stock actual
+        int shownQuantity = editingPartId == partId ? editingQuantity : part.getQuantityInStock();
+        controller.updatePart(part, quantityInStock - shownQuantity);
         clearFields();
     }
 
@@ -305,21 +327,13 @@ public class PartView extends JFrame {
 
     private void searchPart() {
         String searchTerm = inputSearch.getText().trim();
-        List<Part> parts;
-        if (searchTerm.isEmpty()) {
-            parts = controller.getAllParts();
-        } else {
-            parts = controller.searchPart(searchTerm);
-        }
-        updateTable(parts);
+        load(searchTerm.isEmpty() ? controller.getAllPartsAsync() : controller.searchPartAsync(searchTerm),
+                this::updateTable);
     }
 
     private void loadPartForEdit(int row) {
         int partId = (int) tableParts.getValueAt(row, 0);
-        Part part = controller.getAllParts().stream()
-                .filter(p -> p.getPartId() == partId)
-                .findFirst()
-                .orElse(null);
+        Part part = controller.getPartById(partId);
         if (part == null) {
             showAlert("Spare part not found.");
             return;
@@ -330,6 +344,8 @@ public class PartView extends JFrame {
         inputCompatibleMakeModel.setText(part.getCompatibleMakeModel());
         setSupplierSelection(part.getSupplierId());
         inputQuantityInStock.setValue(part.getQuantityInStock());
+        editingPartId = partId;
+        editingQuantity = part.getQuantityInStock();
         inputMinimumStock.setValue(part.getMinimumStock());
         inputEntryDate.setDate(part.getEntryDate());
         inputEstimatedLifespan.setDate(part.getEstimatedLifespan());
@@ -366,40 +382,100 @@ public class PartView extends JFrame {
     }
 
     public void refreshTable() {
-        List<Part> parts = controller.getAllParts();
-        updateTable(parts);
-        if (parts.isEmpty()) {
-            showAlert("There are no spare parts listed in inventory. Add a spare part to get started.");
-        } else {
-            checkExpirationAlerts(parts);
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        tableParts.setModel(pagedModel);
+        pagedModel.refresh(count -> {
+            if (count == 0) {
+                showAlert("There are no spare parts listed in inventory. Add a spare part to get started.");
+            }
+        });
+        // Resumen de caducidad al abrir; los cambios posteriores llegan por expirationStageReached
+        AsyncDAO.onEdt(controller.getExpiringPartsAsync(), this::checkExpirationAlerts,
+                error -> showAlert("Error loading spare parts: " + AsyncDAO.describe(error)));
+    }
+
+    /** Vuelve a la tabla completa si se estaba mostrando una búsqueda; no recarga nada. */
+    public void showAllRows() {
+        if (tableParts.getModel() != pagedModel) {
+            tableParts.setModel(pagedModel);
+        }
+    }
+
+    /** Se ejecuta fuera del EDT: deja en caché los proveedores que va a pintar la página. */
+    private Page<Part> fetchPartPage(PageRequest request) {
+        Page<Part> page = controller.getPartPage(request);
+        for (Part part : page.getItems()) {
+            if (part.getSupplierId() != null) {
+                supplierDAO.findById(part.getSupplierId());
+            }
+        }
+        return page;
+    }
+
+    private void load(CompletableFuture<List<Part>> future, Consumer<List<Part>> onLoaded) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = AsyncDAO.onEdt(future, onLoaded,
+                error -> showAlert("Error loading spare parts: " + AsyncDAO.describe(error)));
+    }
+
+    private Part loadPart(int partId) {
+        Part part = controller.getPartById(partId);
+        if (part != null && part.getSupplierId() != null) {
+            supplierDAO.findById(part.getSupplierId());
         }
+        return part;
     }
 
     private void updateTable(List<Part> parts) {
-        String[] columns = {"ID", "Name", "Type", "Compatible Model", "Supplier", "Stock", "Minimum Stock", "Entry Date", "Estimated Life", "Status", "Batch ID", "Creation Date", "Last Update"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
         for (Part part : parts) {
-            Supplier supplier = part.getSupplierId() != null ? supplierDAO.findById(part.getSupplierId()) : null;
-            String supplierName = supplier != null ? supplier.getName() : "None";
-            model.addRow(new Object[]{
-                part.getPartId(),
-                part.getName(),
-                part.getType(),
-                part.getCompatibleMakeModel(),
-                supplierName,
-                part.getQuantityInStock(),
-                part.getMinimumStock(),
-                part.getEntryDate() != null ? dateFormat.format(part.getEntryDate()) : "",
-                part.getEstimatedLifespan() != null ? dateFormat.format(part.getEstimatedLifespan()) : "",
-                part.getStatus(),
-                part.getBatchId(),
-                part.getCreationDate() != null ? dateFormat.format(part.getCreationDate()) : "",
-                part.getLastUpdateDate() != null ? dateFormat.format(part.getLastUpdateDate()) : ""
-            });
+            Object[] row = new Object[COLUMNS.length];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = columnValue(part, column);
+            }
+            model.addRow(row);
         }
         tableParts.setModel(model);
     }
 
+    private Object columnValue(Part part, int column) {
+        switch (column) {
+            case 0:
+                return part.getPartId();
+            case 1:
+                return part.getName();
+            case 2:
+                return part.getType();
+            case 3:
+                return part.getCompatibleMakeModel();
+            case 4:
+                Supplier supplier = part.getSupplierId() != null ? supplierDAO.findById(part.getSupplierId()) : null;
+                return supplier != null ? supplier.getName() : "None";
+            case 5:
+                return part.getQuantityInStock();
+            case 6:
+                return part.getMinimumStock();
+            case 7:
+                return part.getEntryDate() != null ? dateFormat.format(part.getEntryDate()) : "";
+            case 8:
+                return part.getEstimatedLifespan() != null ? dateFormat.format(part.getEstimatedLifespan()) : "";
+            case 9:
+                return part.getStatus();
+            case 10:
+                return part.getBatchId();
+            case 11:
+                return part.getCreationDate() != null ? dateFormat.format(part.getCreationDate()) : "";
+            case 12:
+                return part.getLastUpdateDate() != null ? dateFormat.format(part.getLastUpdateDate()) : "";
+            default:
+                return null;
+        }
+    }
+
     private void clearFields() {
         inputName.setText("");
         inputType.setSelectedIndex(0);
@@ -413,24 +489,23 @@ public class PartView extends JFrame {
         inputBatchId.setText("");
         inputSearch.setText("");
         tableParts.clearSelection();
+        editingPartId = 0;
     }
 
-    private void checkStockAlert(Part part) {
-        if (part.getQuantityInStock() <= part.getMinimumStock()) {
+    private void stockThresholdCrossed(Part part, boolean low) {
+        if (low) {
             showAlert("¡Alerta! El stock de '" + part.getName() + "'is below the minimum level (" + part.getMinimumStock() + "). Consider replenishing.");
         }
     }
 
-    private void checkExpirationAlert(Part part) {
-        if (part.getEstimatedLifespan() == null) return;
-
+    private void expirationStageReached(Part part, ExpirationScheduler.Stage stage) {
         Date today = new Date();
         long diffInMillies = part.getEstimatedLifespan().getTime() - today.getTime();
         long daysUntilExpiration = TimeUnit.DAYS.convert(diffInMillies, TimeUnit.MILLISECONDS);
 
-        if (daysUntilExpiration < 0) {
+        if (stage == ExpirationScheduler.Stage.EXPIRED) {
             showAlert("Alert! The spare part'" + part.getName() + "' has expired" + dateFormat.format(part.getEstimatedLifespan()) + ".Please consider removing it from inventory.");
-        } else if (daysUntilExpiration <= 30) {
+        } else {
             showAlert("Alert! The spare part'" + part.getName() + "'is about to expire (" + daysUntilExpiration + "days remaining). Expiration date:" + dateFormat.format(part.getEstimatedLifespan()) + ".");
         }
     }
@@ -459,10 +534,7 @@ public class PartView extends JFrame {
     }
 
     private void generatePurchaseOrder() {
-        List<Part> parts = controller.getAllParts();
-        List<Part> lowStockParts = parts.stream()
-                .filter(part -> part.getQuantityInStock() <= part.getMinimumStock())
-                .toList();
+        List<Part> lowStockParts = controller.getLowStockParts();
 
         if (lowStockParts.isEmpty()) {
             showAlert("There are no low-stock spare parts that require a purchase order.");
@@ -489,39 +561,51 @@ public class PartView extends JFrame {
                 });
 
         PurchaseOrderView poView = new PurchaseOrderView();
-        for (PurchaseOrder order : orders) {
-            poView.addPurchaseOrder(order);
-        }
+        poView.addPurchaseOrders(orders);
         poView.setVisible(true);
-        poView.refreshTable();
         showAlert("Purchase orders generated and saved successfully. Review the Purchase Orders module.");
     }
 
     private void showStatusReport() {
-        String reportText = reportController.generateStatusReport();
-        JTextArea textArea = new JTextArea(reportText);
-        textArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
-        JOptionPane.showMessageDialog(this, scrollPane, "State Report", JOptionPane.INFORMATION_MESSAGE);
+        showReport(reportController.generateStatusReportAsync(), "State Report");
     }
 
     private void showCriticalStockReport() {
-        String reportText = reportController.generateCriticalStockReport();
-        JTextArea textArea = new JTextArea(reportText);
-        textArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
-        JOptionPane.showMessageDialog(this, scrollPane, "Critical Stock Report", JOptionPane.INFORMATION_MESSAGE);
+        showReport(reportController.generateCriticalStockReportAsync(), "Critical Stock Report");
     }
 
     private void showExpirationReport() {
-        String reportText = reportController.generateExpirationReport();
-        JTextArea textArea = new JTextArea(reportText);
-        textArea.setEditable(false);
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
-        JOptionPane.showMessageDialog(this, scrollPane, "Expiration Report", JOptionPane.INFORMATION_MESSAGE);
+        showReport(reportController.generateExpirationReportAsync(), "Expiration Report");
+    }
+
+    private void showConsumptionReport() {
+        String input = JOptionPane.showInputDialog(this, "Consumption of the last N days:", "30");
+        if (input == null) {
+            return;
+        }
+        int days;
+        try {
+            days = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            days = 0;
+        }
+        if (days <= 0) {
+            showAlert("Enter a whole number of days.");
+            return;
+        }
+        Date to = new Date();
+        Date from = new Date(to.getTime() - TimeUnit.DAYS.toMillis(days));
+        showReport(reportController.generateConsumptionReportAsync(from, to), "Consumption Report");
+    }
+
+    private void showReport(CompletableFuture<String> report, String title) {
+        AsyncDAO.onEdt(report, reportText -> {
+            JTextArea textArea = new JTextArea(reportText);
+            textArea.setEditable(false);
+            JScrollPane scrollPane = new JScrollPane(textArea);
+            scrollPane.setPreferredSize(new java.awt.Dimension(500, 300));
+            JOptionPane.showMessageDialog(this, scrollPane, title, JOptionPane.INFORMATION_MESSAGE);
+        }, error -> showAlert("Error generating report: " + AsyncDAO.describe(error)));
     }
 
     public void showAlert(String message) {
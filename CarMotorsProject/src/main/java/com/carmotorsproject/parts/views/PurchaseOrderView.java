@@ -9,9 +9,14 @@ import com.carmotorsproject.parts.controller.PurchaseOrderController;
 import com.carmotorsproject.parts.model.Part;
 import com.carmotorsproject.parts.model.PartDAO;
 import com.carmotorsproject.parts.model.PurchaseOrder;
+import com.carmotorsproject.parts.model.PurchaseOrderDAO;
 import com.carmotorsproject.parts.model.PurchaseOrderDetail;
 import com.carmotorsproject.parts.model.Supplier;
 import com.carmotorsproject.parts.model.SupplierDAO;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.EntityChange;
+import com.carmotorsproject.utils.EntityChangeListener;
+import com.carmotorsproject.utils.EntityChanges;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -27,16 +32,20 @@ import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
 
 public class PurchaseOrderView extends JFrame {
+    private static final String[] COLUMNS = {"ID", "Date", "Status", "Supplier", "Total"};
     private PurchaseOrderController controller;
     private SupplierDAO supplierDAO;
     private JTable tableOrders;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    // En un campo: EntityChanges solo guarda referencias débiles
+    private final EntityChangeListener orderListener = this::orderChanged;
 
     public PurchaseOrderView() {
         this.controller = new PurchaseOrderController(this);
         this.supplierDAO = new SupplierDAO();
         initComponents();
         refreshTable();
+        EntityChanges.subscribe(PurchaseOrder.class, orderListener);
     }
 
     private void initComponents() {
@@ -57,9 +66,11 @@ public class PurchaseOrderView extends JFrame {
         JPanel buttonPanel = new JPanel();
         JButton btnCreate = new JButton("Create New Order");
         JButton btnView = new JButton("See Details");
+        JButton btnReceive = new JButton("Receive Order");
         JButton btnDelete = new JButton("Delete Order");
         buttonPanel.add(btnCreate);
         buttonPanel.add(btnView);
+        buttonPanel.add(btnReceive);
         buttonPanel.add(btnDelete);
 
         mainPanel.add(scrollPane, java.awt.BorderLayout.CENTER);
@@ -69,6 +80,7 @@ public class PurchaseOrderView extends JFrame {
 
         btnCreate.addActionListener(e -> createNewOrder());
         btnView.addActionListener(e -> viewOrderDetails());
+        btnReceive.addActionListener(e -> receiveOrder());
         btnDelete.addActionListener(e -> deleteOrder());
     }
 
@@ -83,10 +95,7 @@ showAlert("Manual creation functionality under development. Use the inventory mo
             return;
         }
         int orderId = (int) tableOrders.getValueAt(selectedRow, 0);
-        PurchaseOrder order = controller.getAllPurchaseOrders().stream()
-                .filter(o -> o.getOrderId() == orderId)
-                .findFirst()
-                .orElse(null);
+        PurchaseOrder order = controller.getPurchaseOrderById(orderId);
         if (order == null) {
             showAlert("Order not found.");
             return;
@@ -108,6 +117,25 @@ showAlert("Manual creation functionality under development. Use the inventory mo
         showAlert(details.toString());
     }
 
+    private void receiveOrder() {
+        int selectedRow = tableOrders.getSelectedRow();
+        if (selectedRow < 0) {
+            showAlert("Please select an order to receive.");
+            return;
+        }
+        int orderId = (int) tableOrders.getValueAt(selectedRow, 0);
+        if (PurchaseOrderDAO.STATUS_RECEIVED.equals(tableOrders.getValueAt(selectedRow, 2))) {
+            showAlert("This order was already received.");
+            return;
+        }
+        int confirm = JOptionPane.showConfirmDialog(this, "Add the ordered quantities to the inventory?", "Confirm Receipt", JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) {
+            AsyncDAO.onEdt(controller.receivePurchaseOrderAsync(orderId),
+                    done -> showAlert("Purchase order received; stock updated."),
+                    error -> showAlert("Error receiving purchase order: " + AsyncDAO.describe(error)));
+        }
+    }
+
     private void deleteOrder() {
         int selectedRow = tableOrders.getSelectedRow();
         if (selectedRow < 0) {
@@ -122,18 +150,9 @@ showAlert("Manual creation functionality under development. Use the inventory mo
     }
 
     public void refreshTable() {
-        String[] columns = {"ID", "Date", "Status", "Supplier", "Total"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
         for (PurchaseOrder order : controller.getAllPurchaseOrders()) {
-            Supplier supplier = order.getSupplierId() != null ? supplierDAO.findById(order.getSupplierId()) : null;
-            String supplierName = supplier != null ? supplier.getName() : "None";
-            model.addRow(new Object[]{
-                order.getOrderId(),
-                dateFormat.format(order.getOrderDate()),
-                order.getStatus(),
-                supplierName,
-                String.format("%.2f", order.getTotalAmount())
-            });
+            model.addRow(rowValues(order));
         }
         tableOrders.setModel(model);
         if (model.getRowCount() == 0) {
@@ -141,6 +160,66 @@ showAlert("Manual creation functionality under development. Use the inventory mo
         }
     }
 
+    private Object[] rowValues(PurchaseOrder order) {
+        Supplier supplier = order.getSupplierId() != null ? supplierDAO.findById(order.getSupplierId()) : null;
+        String supplierName = supplier != null ? supplier.getName() : "None";
+        return new Object[]{
+            order.getOrderId(),
+            dateFormat.format(order.getOrderDate()),
+            order.getStatus(),
+            supplierName,
+            String.format("%.2f", order.getTotalAmount())
+        };
+    }
+
+    /** Aplica un alta, cambio o baja de orden sobre su fila sin recargar la tabla. */
+    private void orderChanged(EntityChange change) {
+        DefaultTableModel model = (DefaultTableModel) tableOrders.getModel();
+        int orderId = change.getId();
+        if (change.getOperation() == EntityChange.Operation.DELETED) {
+            int row = findRow(model, orderId);
+            if (row >= 0) {
+                model.removeRow(row);
+            }
+            return;
+        }
+        AsyncDAO.onEdt(AsyncDAO.supply(() -> loadOrder(orderId)), order -> {
+            int row = findRow(model, orderId);
+            if (order == null) {
+                if (row >= 0) {
+                    model.removeRow(row);
+                }
+                return;
+            }
+            Object[] values = rowValues(order);
+            if (row < 0) {
+                model.addRow(values);
+                return;
+            }
+            for (int column = 0; column < values.length; column++) {
+                model.setValueAt(values[column], row, column);
+            }
+        }, error -> showAlert("Error loading purchase order: " + AsyncDAO.describe(error)));
+    }
+
+    /** Se ejecuta fuera del EDT: deja el proveedor en caché para pintar la fila. */
+    private PurchaseOrder loadOrder(int orderId) {
+        PurchaseOrder order = controller.getPurchaseOrderById(orderId);
+        if (order != null && order.getSupplierId() != null) {
+            supplierDAO.findById(order.getSupplierId());
+        }
+        return order;
+    }
+
+    private static int findRow(DefaultTableModel model, int orderId) {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (((Integer) model.getValueAt(row, 0)) == orderId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
     public void showAlert(String message) {
         JOptionPane.showMessageDialog(this, message);
     }
@@ -148,4 +227,8 @@ showAlert("Manual creation functionality under development. Use the inventory mo
     public void addPurchaseOrder(PurchaseOrder order) {
         controller.addPurchaseOrder(order);
     }
+
+    public void addPurchaseOrders(List<PurchaseOrder> orders) {
+        controller.addPurchaseOrders(orders);
+    }
 }
\ No newline at end of file
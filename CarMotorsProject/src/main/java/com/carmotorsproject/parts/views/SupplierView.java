@@ -7,12 +7,19 @@ package com.carmotorsproject.parts.views;
 
 import com.carmotorsproject.parts.controller.SupplierController;
 import com.carmotorsproject.parts.model.Supplier;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.PagedTableModel;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class SupplierView extends JFrame {
+    private static final String[] COLUMNS = {"ID", "Name", "Tax ID", "Contact"};
     private SupplierController controller;
+    // Carga en curso; se cancela si llega otra antes de que termine
+    private CompletableFuture<?> pendingLoad;
+    private final PagedTableModel<Supplier> pagedModel;
     private JTextField inputName;
     private JTextField inputTaxId;
     private JTextField inputContact;
@@ -21,6 +28,10 @@ public class SupplierView extends JFrame {
 
     public SupplierView() {
         this.controller = new SupplierController(this);
+        this.pagedModel = new PagedTableModel<>(COLUMNS, request -> controller.getSupplierPage(request),
+                first -> controller.getSupplierPageBoundaries(first),
+                () -> controller.countSuppliers(), SupplierView::columnValue);
+        pagedModel.trackChanges(Supplier.class, Supplier::getSupplierId, id -> controller.getSupplierById(id));
         initComponents();
         refreshTable();
     }
@@ -163,33 +174,59 @@ public class SupplierView extends JFrame {
 
     private void searchSupplier() {
         String searchTerm = inputSearch.getText().trim();
-        List<Supplier> suppliers;
-        if (searchTerm.isEmpty()) {
-            suppliers = controller.getAllSupplier();
-        } else {
-            suppliers = controller.searchSupplier(searchTerm);
-        }
-        updateTable(suppliers);
+        load(searchTerm.isEmpty() ? controller.getAllSupplierAsync() : controller.searchSupplierAsync(searchTerm));
     }
 
     public void refreshTable() {
-        updateTable(controller.getAllSupplier());
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        tableSuppliers.setModel(pagedModel);
+        pagedModel.refresh();
+    }
+
+    /** Vuelve a la tabla completa si se estaba mostrando una búsqueda; no recarga nada. */
+    public void showAllRows() {
+        if (tableSuppliers.getModel() != pagedModel) {
+            tableSuppliers.setModel(pagedModel);
+        }
+    }
+
+    private void load(CompletableFuture<List<Supplier>> future) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = AsyncDAO.onEdt(future, this::updateTable,
+                error -> showAlert("Error loading suppliers: " + AsyncDAO.describe(error)));
     }
 
     private void updateTable(List<Supplier> suppliers) {
-        String[] columns = {"ID", "Name", "Tax ID", "Contact"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
         for (Supplier supplier : suppliers) {
-            model.addRow(new Object[]{
-                supplier.getSupplierId(),
-                supplier.getName(),
-                supplier.getTaxId(),
-                supplier.getContact()
-            });
+            Object[] row = new Object[COLUMNS.length];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = columnValue(supplier, column);
+            }
+            model.addRow(row);
         }
         tableSuppliers.setModel(model);
     }
 
+    private static Object columnValue(Supplier supplier, int column) {
+        switch (column) {
+            case 0:
+                return supplier.getSupplierId();
+            case 1:
+                return supplier.getName();
+            case 2:
+                return supplier.getTaxId();
+            case 3:
+                return supplier.getContact();
+            default:
+                return null;
+        }
+    }
+
     private void clearFields() {
         inputName.setText("");
         inputTaxId.setText("");
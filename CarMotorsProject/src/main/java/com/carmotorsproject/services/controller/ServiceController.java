@@ -6,7 +6,8 @@
 package com.carmotorsproject.services.controller;
 
 import com.carmotorsproject.parts.model.Part;
-import com.carmotorsproject.parts.model.PartDAO;
+import com.carmotorsproject.parts.model.CachedPartDAO;
+import com.carmotorsproject.parts.model.PartDAOInterface;
 import com.carmotorsproject.services.model.PartsInService;
 import com.carmotorsproject.services.model.Service;
 import com.carmotorsproject.services.model.ServiceDAO;
@@ -14,22 +15,28 @@ import com.carmotorsproject.services.model.Technician;
 import com.carmotorsproject.services.model.TechnicianDAO;
 import com.carmotorsproject.services.model.Vehicle;
 import com.carmotorsproject.services.model.VehicleDAO;
+import com.carmotorsproject.services.model.VehicleLookup;
 import com.carmotorsproject.services.views.ServiceView;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ServiceController {
     private ServiceDAO serviceDAO;
     private TechnicianDAO technicianDAO;
     private VehicleDAO vehicleDAO;
-    private PartDAO partDAO;
+    private PartDAOInterface partDAO;
     private ServiceView view;
 
     public ServiceController(ServiceView view) {
         this.serviceDAO = new ServiceDAO();
         this.technicianDAO = new TechnicianDAO();
         this.vehicleDAO = new VehicleDAO();
-        this.partDAO = new PartDAO();
+        this.partDAO = CachedPartDAO.getInstance();
         this.view = view;
     }
 
@@ -40,8 +47,14 @@ public class ServiceController {
         Service service = new Service(0, maintenanceType, vehicleId, mileage, description, 
                 initialDiagnosis, null, estimatedTime, laborCost, status, startDate, endDate, 
                 warrantyUntil, technicianIds, partsInService);
-        serviceDAO.save(service);
-        view.refreshTable();
+        try {
+            // Descuenta del stock los repuestos usados; sin stock suficiente no se guarda nada
+            serviceDAO.save(service);
+        } catch (RuntimeException e) {
+            view.showAlert("Error al registrar el servicio: " + e.getMessage());
+            return;
+        }
+        view.showAllRows();
         view.showAlert("Servicio registrado exitosamente.");
     }
 
@@ -65,8 +78,13 @@ public class ServiceController {
             service.setWarrantyUntil(warrantyUntil);
             service.setTechnicianIds(technicianIds);
             service.setPartsInService(partsInService);
-            serviceDAO.update(service);
-            view.refreshTable();
+            try {
+                serviceDAO.update(service);
+            } catch (RuntimeException e) {
+                view.showAlert("Error al actualizar el servicio: " + e.getMessage());
+                return;
+            }
+            view.showAllRows();
             view.showAlert("Servicio actualizado exitosamente.");
         } else {
             view.showAlert("Servicio no encontrado.");
@@ -76,8 +94,13 @@ public class ServiceController {
     public void deleteService(int serviceId) {
         Service service = serviceDAO.findById(serviceId);
         if (service != null) {
-            serviceDAO.delete(serviceId);
-            view.refreshTable();
+            try {
+                serviceDAO.delete(serviceId);
+            } catch (RuntimeException e) {
+                view.showAlert("Error al eliminar el servicio: " + e.getMessage());
+                return;
+            }
+            view.showAllRows();
             view.showAlert("Servicio eliminado exitosamente.");
         } else {
             view.showAlert("Servicio no encontrado.");
@@ -88,6 +111,20 @@ public class ServiceController {
         return serviceDAO.findAll();
     }
 
+    public Page<Service> getServicePage(PageRequest request) {
+        Page<Service> page = serviceDAO.findPage(request);
+        withVehicles(page.getItems());
+        return page;
+    }
+
+    public List<PageRequest> getServicePageBoundaries(PageRequest first) {
+        return serviceDAO.findPageBoundaries(first);
+    }
+
+    public int countServices() {
+        return serviceDAO.count();
+    }
+
     public List<Technician> getAllTechnicians() {
         return technicianDAO.findAll();
     }
@@ -96,6 +133,18 @@ public class ServiceController {
         return vehicleDAO.findAll();
     }
 
+    public Vehicle getVehicleById(int vehicleId) {
+        return vehicleDAO.findById(vehicleId);
+    }
+
+    public Vehicle findVehicleByPlate(String plate) {
+        return VehicleLookup.getInstance().findByPlate(plate);
+    }
+
+    public CompletableFuture<List<Vehicle>> searchVehiclesByPlateAsync(String prefix, int limit) {
+        return AsyncDAO.supply(() -> VehicleLookup.getInstance().findByPlatePrefix(prefix, limit));
+    }
+
     public List<Part> getAllParts() {
         return partDAO.findAll();
     }
@@ -103,4 +152,26 @@ public class ServiceController {
     public Service getServiceById(int serviceId) {
         return serviceDAO.findById(serviceId);
     }
+
+    /**
+     * Carga los servicios en segundo plano y deja en caché los vehículos que
+     * la tabla va a mostrar, para que pintarla no consulte la base en el EDT.
+     */
+    public CompletableFuture<List<Service>> getAllServicesAsync() {
+        return AsyncDAO.supply(() -> withVehicles(serviceDAO.findAll()));
+    }
+
+    public CompletableFuture<List<Service>> getServiceByIdAsync(int serviceId) {
+        return AsyncDAO.supply(() -> {
+            Service service = serviceDAO.findById(serviceId);
+            return withVehicles(service != null ? List.of(service) : new ArrayList<>());
+        });
+    }
+
+    private List<Service> withVehicles(List<Service> services) {
+        for (Service service : services) {
+            vehicleDAO.findById(service.getVehicleId());
+        }
+        return services;
+    }
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ package com.carmotorsproject.services.controller;
 
 import com.carmotorsproject.services.model.Technician;
 import com.carmotorsproject.services.model.TechnicianDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
 
 public class TechnicianController {
@@ -35,4 +37,16 @@ public class TechnicianController {
     public List<Technician> getAllTechnicians() {
         return technicianDAO.findAll();
     }
+
+    public Page<Technician> getTechnicianPage(PageRequest request) {
+        return technicianDAO.findPage(request);
+    }
+
+    public List<PageRequest> getTechnicianPageBoundaries(PageRequest first) {
+        return technicianDAO.findPageBoundaries(first);
+    }
+
+    public int countTechnicians() {
+        return technicianDAO.count();
+    }
 }
\ No newline at end of file
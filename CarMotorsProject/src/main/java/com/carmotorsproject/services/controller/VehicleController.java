@@ -7,13 +7,20 @@ package com.carmotorsproject.services.controller;
 
 import com.carmotorsproject.services.model.Vehicle;
 import com.carmotorsproject.services.model.VehicleDAO;
+import com.carmotorsproject.services.model.VehicleLookup;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class VehicleController {
     private VehicleDAO vehicleDAO;
+    private VehicleLookup lookup;
 
     public VehicleController() {
         this.vehicleDAO = new VehicleDAO();
+        this.lookup = VehicleLookup.getInstance();
     }
 
     public void addVehicle(Vehicle vehicle) {
@@ -35,4 +42,31 @@ public class VehicleController {
     public List<Vehicle> getAllVehicles() {
         return vehicleDAO.findAll();
     }
+
+    public Page<Vehicle> getVehiclePage(PageRequest request) {
+        return vehicleDAO.findPage(request);
+    }
+
+    public List<PageRequest> getVehiclePageBoundaries(PageRequest first) {
+        return vehicleDAO.findPageBoundaries(first);
+    }
+
+    public int countVehicles() {
+        return vehicleDAO.count();
+    }
+
+    /** Placa completa, sin importar mayúsculas, espacios ni guiones. */
+    public Vehicle findByPlate(String plate) {
+        return lookup.findByPlate(plate);
+    }
+
+    /** Placas que empiezan por lo escrito, para autocompletar. */
+    public List<Vehicle> searchByPlatePrefix(String prefix, int limit) {
+        return lookup.findByPlatePrefix(prefix, limit);
+    }
+
+    // La primera consulta carga todos los vehículos: nunca en el EDT
+    public CompletableFuture<List<Vehicle>> searchByPlatePrefixAsync(String prefix, int limit) {
+        return AsyncDAO.supply(() -> lookup.findByPlatePrefix(prefix, limit));
+    }
 }
\ No newline at end of file
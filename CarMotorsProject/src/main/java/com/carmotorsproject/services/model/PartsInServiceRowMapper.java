@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code parts_in_service} a {@link PartsInService}.
+ *
+ * @author camper
+ */
+public class PartsInServiceRowMapper extends IndexedRowMapper<PartsInService> {
+    public PartsInServiceRowMapper() {
+        super(
+            "parts_in_service_id",
+            "service_id",
+            "part_id",
+            "quantity_used",
+            "unit_price"
+        );
+    }
+
+    @Override
+    protected PartsInService map(ResultSet rs, int[] col) throws SQLException {
+        return new PartsInService(
+            rs.getInt(col[0]),
+            rs.getInt(col[1]),
+            rs.getInt(col[2]),
+            rs.getInt(col[3]),
+            getNullableDouble(rs, col[4])
+        );
+    }
+}
@@ -4,79 +4,148 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.parts.model.PartDAO;
+import com.carmotorsproject.parts.model.StockMovement;
+import com.carmotorsproject.parts.model.StockMovementType;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import com.carmotorsproject.utils.QueryUtil;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ServiceDAO implements ServiceDAOInterface {
-    private Connection db;
+    private static final NamedQuery INSERT_SERVICE = QueryRegistry.register("ServiceDAO.insertService",
+            "INSERT INTO services (maintenance_type, vehicle_id, mileage, description, initial_diagnosis, final_observations, estimated_time, labor_cost, status, start_date, end_date, warranty_until) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery INSERT_TECHNICIAN = QueryRegistry.register("ServiceDAO.insertTechnician",
+            "INSERT INTO technicians_service (service_id, technician_id, assignment_date) VALUES (?, ?, ?)");
+    private static final NamedQuery INSERT_PART_IN_SERVICE = QueryRegistry.register("ServiceDAO.insertPartInService",
+            "INSERT INTO parts_in_service (service_id, part_id, quantity_used, unit_price) VALUES (?, ?, ?, ?)");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("ServiceDAO.findAll",
+            "SELECT * FROM services");
+    private static final String SELECT_TECHNICIANS =
+            "SELECT service_id, technician_id FROM technicians_service";
+    private static final String SELECT_PARTS_IN_SERVICE =
+            "SELECT parts_in_service_id, service_id, part_id, quantity_used, unit_price FROM parts_in_service";
+    private static final NamedQuery UPDATE = QueryRegistry.register("ServiceDAO.update",
+            "UPDATE services SET maintenance_type = ?, vehicle_id = ?, mileage = ?, description = ?, initial_diagnosis = ?, final_observations = ?, estimated_time = ?, labor_cost = ?, status = ?, start_date = ?, end_date = ?, warranty_until = ? WHERE service_id = ?");
+    private static final NamedQuery DELETE_TECHNICIANS = QueryRegistry.register("ServiceDAO.deleteTechnicians",
+            "DELETE FROM technicians_service WHERE service_id = ?");
+    private static final NamedQuery LOCK_STATUS = QueryRegistry.register("ServiceDAO.lockStatus",
+            "SELECT status FROM services WHERE service_id = ? FOR UPDATE");
+    private static final NamedQuery LOCK_PARTS_IN_SERVICE = QueryRegistry.register("ServiceDAO.lockPartsInService",
+            "SELECT part_id, quantity_used FROM parts_in_service WHERE service_id = ? FOR UPDATE");
+    private static final NamedQuery DELETE_PARTS = QueryRegistry.register("ServiceDAO.deletePartsInService",
+            "DELETE FROM parts_in_service WHERE service_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("ServiceDAO.delete",
+            "DELETE FROM services WHERE service_id = ?");
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM services", "service_id", null, "services")
+            .sortable("vehicle_id", "vehicle_id");
 
     public ServiceDAO() {
-        this.db = DatabaseConnection.getConnection();
-        if (this.db == null) {
-            throw new RuntimeException("The connection to the database could not be established.");
-        }
     }
 
+    /** Alta del servicio; los repuestos usados se descuentan del stock y se asientan en el libro. */
     @Override
     public void save(Service service) {
-        String sqlService = "INSERT INTO services (maintenance_type, vehicle_id, mileage, description, initial_diagnosis, final_observations, estimated_time, labor_cost, status, start_date, end_date, warranty_until) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlService, PreparedStatement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, service.getMaintenanceType());
-            pstmt.setInt(2, service.getVehicleId());
-            pstmt.setObject(3, service.getMileage());
-            pstmt.setString(4, service.getDescription());
-            pstmt.setString(5, service.getInitialDiagnosis());
-            pstmt.setString(6, service.getFinalObservations());
-            pstmt.setObject(7, service.getEstimatedTime());
-            pstmt.setObject(8, service.getLaborCost());
-            pstmt.setString(9, service.getStatus());
-            pstmt.setTimestamp(10, service.getStartDate() != null ? new Timestamp(service.getStartDate().getTime()) : null);
-            pstmt.setTimestamp(11, service.getEndDate() != null ? new Timestamp(service.getEndDate().getTime()) : null);
-            pstmt.setDate(12, service.getWarrantyUntil() != null ? new java.sql.Date(service.getWarrantyUntil().getTime()) : null);
-            pstmt.executeUpdate();
+        List<StockMovement> movements;
+        try (Connection db = DatabaseConnection.getConnection()) {
+            // Servicio, técnicos, repuestos y stock se guardan en una sola transacción
+            db.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = INSERT_SERVICE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
+                    bindService(pstmt, service);
+                    pstmt.executeUpdate();
 
-            ResultSet rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                service.setServiceId(rs.getInt(1));
-            }
+                    ResultSet rs = pstmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        service.setServiceId(rs.getInt(1));
+                    }
+                }
 
-            saveTechnicians(service);
-            savePartsInService(service);
+                // Primero las filas de parts, como en PartDAO.recordPartUsage: la FK de
+                // parts_in_service las bloquea en modo compartido y pedir después el lock
+                // exclusivo del UPDATE cruza bloqueos entre dos servicios con un repuesto común
+                movements = stockMovements(service.getServiceId(), Collections.emptyMap(), quantitiesByPart(service));
+                PartDAO.applyStockMovements(db, movements);
+                saveTechnicians(db, service);
+                savePartsInService(db, service);
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Error saving service:" + e.getMessage());
         }
+        PartDAO.stockChanged(partIds(movements));
+        EntityChanges.inserted(Service.class, service.getServiceId());
     }
 
-    private void saveTechnicians(Service service) throws SQLException {
-        String sql = "INSERT INTO technicians_service (service_id, technician_id, assignment_date) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+    private void bindService(PreparedStatement pstmt, Service service) throws SQLException {
+        pstmt.setString(1, service.getMaintenanceType());
+        pstmt.setInt(2, service.getVehicleId());
+        pstmt.setObject(3, service.getMileage());
+        pstmt.setString(4, service.getDescription());
+        pstmt.setString(5, service.getInitialDiagnosis());
+        pstmt.setString(6, service.getFinalObservations());
+        pstmt.setObject(7, service.getEstimatedTime());
+        pstmt.setObject(8, service.getLaborCost());
+        pstmt.setString(9, service.getStatus());
+        pstmt.setTimestamp(10, service.getStartDate() != null ? new Timestamp(service.getStartDate().getTime()) : null);
+        pstmt.setTimestamp(11, service.getEndDate() != null ? new Timestamp(service.getEndDate().getTime()) : null);
+        pstmt.setDate(12, service.getWarrantyUntil() != null ? new java.sql.Date(service.getWarrantyUntil().getTime()) : null);
+    }
+
+    private void saveTechnicians(Connection db, Service service) throws SQLException {
+        if (service.getTechnicianIds() == null || service.getTechnicianIds().isEmpty()) {
+            return;
+        }
+        Timestamp assignmentDate = new Timestamp(new Date().getTime());
+        try (PreparedStatement pstmt = INSERT_TECHNICIAN.prepare(db)) {
             for (Integer technicianId : service.getTechnicianIds()) {
                 pstmt.setInt(1, service.getServiceId());
                 pstmt.setInt(2, technicianId);
-                pstmt.setTimestamp(3, new Timestamp(new Date().getTime()));
-                pstmt.executeUpdate();
+                pstmt.setTimestamp(3, assignmentDate);
+                pstmt.addBatch();
             }
+            pstmt.executeBatch();
         }
     }
 
-    private void savePartsInService(Service service) throws SQLException {
-        String sql = "INSERT INTO parts_in_service (service_id, part_id, quantity_used, unit_price) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+    private void savePartsInService(Connection db, Service service) throws SQLException {
+        if (service.getPartsInService() == null || service.getPartsInService().isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = INSERT_PART_IN_SERVICE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
             for (PartsInService usage : service.getPartsInService()) {
                 pstmt.setInt(1, service.getServiceId());
                 pstmt.setInt(2, usage.getPartId());
                 pstmt.setInt(3, usage.getQuantityUsed());
                 pstmt.setObject(4, usage.getUnitPrice());
-                pstmt.executeUpdate();
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
 
-                ResultSet rs = pstmt.getGeneratedKeys();
+            // Las claves generadas llegan en el mismo orden en que se agregaron al lote
+            ResultSet rs = pstmt.getGeneratedKeys();
+            for (PartsInService usage : service.getPartsInService()) {
+                usage.setServiceId(service.getServiceId());
                 if (rs.next()) {
                     usage.setPartsInServiceId(rs.getInt(1));
                 }
@@ -84,168 +153,310 @@ public class ServiceDAO implements ServiceDAOInterface {
         }
     }
 
-    @Override
-    public Service findById(int id) {
-        String sqlService = "SELECT * FROM services WHERE service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlService)) {
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                List<Integer> technicianIds = findTechnicianIdsByServiceId(id);
-                List<PartsInService> partsInService = findPartsInServiceByServiceId(id);
-                return new Service(
-                    rs.getInt("service_id"),
-                    rs.getString("maintenance_type"),
-                    rs.getInt("vehicle_id"),
-                    rs.getObject("mileage") != null ? rs.getInt("mileage") : null,
-                    rs.getString("description"),
-                    rs.getString("initial_diagnosis"),
-                    rs.getString("final_observations"),
-                    rs.getObject("estimated_time") != null ? rs.getDouble("estimated_time") : null,
-                    rs.getObject("labor_cost") != null ? rs.getDouble("labor_cost") : null,
-                    rs.getString("status"),
-                    rs.getTimestamp("start_date"),
-                    rs.getTimestamp("end_date"),
-                    rs.getDate("warranty_until"),
-                    technicianIds,
-                    partsInService
-                );
+    /**
+     * Repuestos ya registrados en el servicio, por repuesto. Bloquea sus filas
+     * para que otra edición del mismo servicio no calcule la diferencia de
+     * stock sobre las mismas líneas.
+     */
+    private Map<Integer, Integer> lockPartsInService(Connection db, int serviceId) throws SQLException {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        try (PreparedStatement pstmt = LOCK_PARTS_IN_SERVICE.prepare(db)) {
+            pstmt.setInt(1, serviceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    quantities.merge(rs.getInt("part_id"), rs.getInt("quantity_used"), Integer::sum);
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("Error searching for service:" + e.getMessage());
         }
-        return null;
+        return quantities;
     }
 
-    private List<Integer> findTechnicianIdsByServiceId(int serviceId) {
-        List<Integer> technicianIds = new ArrayList<>();
-        String sql = "SELECT technician_id FROM technicians_service WHERE service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+    private String lockStatus(Connection db, int serviceId) throws SQLException {
+        try (PreparedStatement pstmt = LOCK_STATUS.prepare(db)) {
             pstmt.setInt(1, serviceId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                technicianIds.add(rs.getInt("technician_id"));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("status") : null;
             }
-        } catch (SQLException e) {
-            System.err.println("Error searching for service technicians: " + e.getMessage());
         }
-        return technicianIds;
     }
 
-    private List<PartsInService> findPartsInServiceByServiceId(int serviceId) {
-        List<PartsInService> partsInService = new ArrayList<>();
-        String sql = "SELECT * FROM parts_in_service WHERE service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
-            pstmt.setInt(1, serviceId);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                partsInService.add(new PartsInService(
-                    rs.getInt("parts_in_service_id"),
-                    rs.getInt("service_id"),
-                    rs.getInt("part_id"),
-                    rs.getInt("quantity_used"),
-                    rs.getObject("unit_price") != null ? rs.getDouble("unit_price") : null
-                ));
+    private static boolean isFinished(String status) {
+        return ServiceStatus.Completed.name().equals(status) || ServiceStatus.Delivered.name().equals(status);
+    }
+
+    private static Map<Integer, Integer> quantitiesByPart(Service service) {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        if (service.getPartsInService() != null) {
+            for (PartsInService usage : service.getPartsInService()) {
+                quantities.merge(usage.getPartId(), usage.getQuantityUsed(), Integer::sum);
             }
-        } catch (SQLException e) {
-            System.err.println("Error searching for spare parts usage:" + e.getMessage());
         }
-        return partsInService;
+        return quantities;
+    }
+
+    /**
+     * Movimientos de stock que llevan los repuestos del servicio de
+     * {@code before} a {@code after}: consumo (Usage) de lo que se agrega y
+     * devolución (Return) de lo que se quita.
+     */
+    private static List<StockMovement> stockMovements(int serviceId, Map<Integer, Integer> before, Map<Integer, Integer> after) {
+        Map<Integer, Integer> deltas = new TreeMap<>(after);
+        before.forEach((partId, quantity) -> deltas.merge(partId, -quantity, Integer::sum));
+        List<StockMovement> movements = new ArrayList<>();
+        deltas.forEach((partId, delta) -> {
+            if (delta > 0) {
+                movements.add(new StockMovement(partId, StockMovementType.Usage, -delta, serviceId));
+            } else if (delta < 0) {
+                movements.add(new StockMovement(partId, StockMovementType.Return, -delta, serviceId));
+            }
+        });
+        return movements;
+    }
+
+    private static List<Integer> partIds(List<StockMovement> movements) {
+        List<Integer> partIds = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            partIds.add(movement.getPartId());
+        }
+        return partIds;
     }
 
     @Override
-    public List<Service> findAll() {
+    public Service findById(int id) {
+        List<Service> services = findByIds(Collections.singletonList(id));
+        return services.isEmpty() ? null : services.get(0);
+    }
+
+    /**
+     * Carga varios servicios con sus técnicos y repuestos usando un número fijo
+     * de consultas por lote de ids (servicios, técnicos y repuestos), en lugar
+     * de dos consultas adicionales por cada servicio.
+     */
+    @Override
+    public List<Service> findByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return findByIds(db, ids);
+        } catch (SQLException e) {
+            System.err.println("Error searching for service:" + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    List<Service> findByIds(Connection db, List<Integer> ids) throws SQLException {
         List<Service> services = new ArrayList<>();
-        String sql = "SELECT * FROM services";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                int serviceId = rs.getInt("service_id");
-                List<Integer> technicianIds = findTechnicianIdsByServiceId(serviceId);
-                List<PartsInService> partsInService = findPartsInServiceByServiceId(serviceId);
-                services.add(new Service(
-                    serviceId,
-                    rs.getString("maintenance_type"),
-                    rs.getInt("vehicle_id"),
-                    rs.getObject("mileage") != null ? rs.getInt("mileage") : null,
-                    rs.getString("description"),
-                    rs.getString("initial_diagnosis"),
-                    rs.getString("final_observations"),
-                    rs.getObject("estimated_time") != null ? rs.getDouble("estimated_time") : null,
-                    rs.getObject("labor_cost") != null ? rs.getDouble("labor_cost") : null,
-                    rs.getString("status"),
-                    rs.getTimestamp("start_date"),
-                    rs.getTimestamp("end_date"),
-                    rs.getDate("warranty_until"),
-                    technicianIds,
-                    partsInService
-                ));
+        for (List<Integer> chunk : QueryUtil.chunk(ids)) {
+            String sql = "SELECT * FROM services WHERE service_id IN " + QueryUtil.inPlaceholders(chunk.size());
+            try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+                bindIds(pstmt, chunk);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ServiceRowMapper mapper = new ServiceRowMapper();
+                    while (rs.next()) {
+                        services.add(mapper.mapRow(rs));
+                    }
+                }
             }
+        }
+        loadChildren(db, services, true);
+        return services;
+    }
+
+    @Override
+    public List<Service> findAll() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            List<Service> services = findAll(db);
             System.out.println("Number of services recovered: " + services.size());
+            return services;
         } catch (SQLException e) {
             System.err.println("Error getting services:" + e.getMessage());
             throw new RuntimeException("Error getting services: " + e.getMessage());
         }
+    }
+
+    List<Service> findAll(Connection db) throws SQLException {
+        List<Service> services = new ArrayList<>();
+        try (PreparedStatement pstmt = FIND_ALL.prepare(db);
+             ResultSet rs = pstmt.executeQuery()) {
+            ServiceRowMapper mapper = new ServiceRowMapper();
+            while (rs.next()) {
+                services.add(mapper.mapRow(rs));
+            }
+        }
+        // Se cargan todos los servicios, así que las tablas hijas se leen completas
+        loadChildren(db, services, false);
         return services;
     }
 
     @Override
-    public void update(Service service) {
-        String sqlService = "UPDATE services SET maintenance_type = ?, vehicle_id = ?, mileage = ?, description = ?, initial_diagnosis = ?, final_observations = ?, estimated_time = ?, labor_cost = ?, status = ?, start_date = ?, end_date = ?, warranty_until = ? WHERE service_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sqlService)) {
-            pstmt.setString(1, service.getMaintenanceType());
-            pstmt.setInt(2, service.getVehicleId());
-            pstmt.setObject(3, service.getMileage());
-            pstmt.setString(4, service.getDescription());
-            pstmt.setString(5, service.getInitialDiagnosis());
-            pstmt.setString(6, service.getFinalObservations());
-            pstmt.setObject(7, service.getEstimatedTime());
-            pstmt.setObject(8, service.getLaborCost());
-            pstmt.setString(9, service.getStatus());
-            pstmt.setTimestamp(10, service.getStartDate() != null ? new Timestamp(service.getStartDate().getTime()) : null);
-            pstmt.setTimestamp(11, service.getEndDate() != null ? new Timestamp(service.getEndDate().getTime()) : null);
-            pstmt.setDate(12, service.getWarrantyUntil() != null ? new java.sql.Date(service.getWarrantyUntil().getTime()) : null);
-            pstmt.setInt(13, service.getServiceId());
-            pstmt.executeUpdate();
-
-            String sqlDeleteTechnicians = "DELETE FROM technicians_service WHERE service_id = ?";
-            try (PreparedStatement pstmtDelete = db.prepareStatement(sqlDeleteTechnicians)) {
-                pstmtDelete.setInt(1, service.getServiceId());
-                pstmtDelete.executeUpdate();
+    public Page<Service> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            Page<Service> page = PAGE_QUERY.fetch(db, request, new ServiceRowMapper());
+            loadChildren(db, page.getItems(), true);
+            return page;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of services: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of services: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting services: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Completa técnicos y repuestos de los servicios dados. Con {@code filterByIds}
+     * las tablas hijas se filtran por lotes de service_id; sin él se leen completas.
+     */
+    private void loadChildren(Connection db, List<Service> services, boolean filterByIds) throws SQLException {
+        if (services.isEmpty()) {
+            return;
+        }
+        Map<Integer, Service> byId = new HashMap<>(services.size() * 2);
+        for (Service service : services) {
+            byId.put(service.getServiceId(), service);
+        }
+
+        if (!filterByIds) {
+            loadTechnicians(db, SELECT_TECHNICIANS, Collections.emptyList(), byId);
+            loadPartsInService(db, SELECT_PARTS_IN_SERVICE, Collections.emptyList(), byId);
+            return;
+        }
+        for (List<Integer> chunk : QueryUtil.chunk(new ArrayList<>(byId.keySet()))) {
+            String in = " WHERE service_id IN " + QueryUtil.inPlaceholders(chunk.size());
+            loadTechnicians(db, SELECT_TECHNICIANS + in, chunk, byId);
+            loadPartsInService(db, SELECT_PARTS_IN_SERVICE + in, chunk, byId);
+        }
+    }
+
+    private void loadTechnicians(Connection db, String sql, List<Integer> ids, Map<Integer, Service> byId) throws SQLException {
+        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+            bindIds(pstmt, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int serviceIdCol = rs.findColumn("service_id");
+                int technicianIdCol = rs.findColumn("technician_id");
+                while (rs.next()) {
+                    Service service = byId.get(rs.getInt(serviceIdCol));
+                    if (service != null) {
+                        service.getTechnicianIds().add(rs.getInt(technicianIdCol));
+                    }
+                }
             }
-            saveTechnicians(service);
+        }
+    }
 
-            String sqlDeleteParts = "DELETE FROM parts_in_service WHERE service_id = ?";
-            try (PreparedStatement pstmtDelete = db.prepareStatement(sqlDeleteParts)) {
-                pstmtDelete.setInt(1, service.getServiceId());
-                pstmtDelete.executeUpdate();
+    private void loadPartsInService(Connection db, String sql, List<Integer> ids, Map<Integer, Service> byId) throws SQLException {
+        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+            bindIds(pstmt, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                PartsInServiceRowMapper mapper = new PartsInServiceRowMapper();
+                while (rs.next()) {
+                    PartsInService part = mapper.mapRow(rs);
+                    Service service = byId.get(part.getServiceId());
+                    if (service != null) {
+                        service.getPartsInService().add(part);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void bindIds(PreparedStatement pstmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(i + 1, ids.get(i));
+        }
+    }
+
+    @Override
+    public void update(Service service) {
+        List<StockMovement> movements;
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                Map<Integer, Integer> before = lockPartsInService(db, service.getServiceId());
+                // Solo la diferencia con las líneas anteriores mueve stock, y antes de
+                // insertar las nuevas líneas (ver save)
+                movements = stockMovements(service.getServiceId(), before, quantitiesByPart(service));
+                PartDAO.applyStockMovements(db, movements);
+                try (PreparedStatement pstmt = UPDATE.prepare(db)) {
+                    bindService(pstmt, service);
+                    pstmt.setInt(13, service.getServiceId());
+                    pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmtDelete = DELETE_TECHNICIANS.prepare(db)) {
+                    pstmtDelete.setInt(1, service.getServiceId());
+                    pstmtDelete.executeUpdate();
+                }
+                try (PreparedStatement pstmtDelete = DELETE_PARTS.prepare(db)) {
+                    pstmtDelete.setInt(1, service.getServiceId());
+                    pstmtDelete.executeUpdate();
+                }
+                saveTechnicians(db, service);
+                savePartsInService(db, service);
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
-            savePartsInService(service);
         } catch (SQLException e) {
             throw new RuntimeException("Error updating service: " + e.getMessage());
         }
+        PartDAO.stockChanged(partIds(movements));
+        EntityChanges.updated(Service.class, service.getServiceId());
     }
 
+    /**
+     * Baja del servicio. Si no estaba completado ni entregado, los repuestos
+     * que tenía vuelven al stock; si lo estaba, ya están montados en el
+     * vehículo y el stock no cambia.
+     */
     @Override
     public void delete(int id) {
-        String sqlDeleteParts = "DELETE FROM parts_in_service WHERE service_id = ?";
-        String sqlDeleteTechnicians = "DELETE FROM technicians_service WHERE service_id = ?";
-        String sqlDeleteService = "DELETE FROM services WHERE service_id = ?";
-        try {
-            try (PreparedStatement pstmtParts = db.prepareStatement(sqlDeleteParts)) {
-                pstmtParts.setInt(1, id);
-                pstmtParts.executeUpdate();
-            }
-            try (PreparedStatement pstmtTechnicians = db.prepareStatement(sqlDeleteTechnicians)) {
-                pstmtTechnicians.setInt(1, id);
-                pstmtTechnicians.executeUpdate();
-            }
-            try (PreparedStatement pstmtService = db.prepareStatement(sqlDeleteService)) {
-                pstmtService.setInt(1, id);
-                pstmtService.executeUpdate();
+        List<StockMovement> movements;
+        try (Connection db = DatabaseConnection.getConnection()) {
+            db.setAutoCommit(false);
+            try {
+                String status = lockStatus(db, id);
+                Map<Integer, Integer> fitted = lockPartsInService(db, id);
+                movements = isFinished(status)
+                        ? Collections.emptyList()
+                        : stockMovements(id, fitted, Collections.emptyMap());
+                PartDAO.applyStockMovements(db, movements);
+                try (PreparedStatement pstmtParts = DELETE_PARTS.prepare(db)) {
+                    pstmtParts.setInt(1, id);
+                    pstmtParts.executeUpdate();
+                }
+                try (PreparedStatement pstmtTechnicians = DELETE_TECHNICIANS.prepare(db)) {
+                    pstmtTechnicians.setInt(1, id);
+                    pstmtTechnicians.executeUpdate();
+                }
+                try (PreparedStatement pstmtService = DELETE.prepare(db)) {
+                    pstmtService.setInt(1, id);
+                    pstmtService.executeUpdate();
+                }
+                db.commit();
+            } catch (SQLException | RuntimeException e) {
+                db.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting service:" + e.getMessage());
         }
+        PartDAO.stockChanged(partIds(movements));
+        EntityChanges.deleted(Service.class, id);
     }
 }
\ No newline at end of file
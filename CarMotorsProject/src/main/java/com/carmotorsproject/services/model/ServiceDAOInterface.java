@@ -4,6 +4,8 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
 
 /**
@@ -13,7 +15,11 @@ import java.util.List;
 public interface ServiceDAOInterface {
    void save(Service service);
     Service findById(int id);
+    List<Service> findByIds(List<Integer> ids);
     List<Service> findAll();
     void update(Service service);
     void delete(int id);
+    Page<Service> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
 }
@@ -0,0 +1,56 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Mapea filas de {@code services} a {@link Service}. Los hijos se cargan aparte, por lote.
+ *
+ * @author camper
+ */
+public class ServiceRowMapper extends IndexedRowMapper<Service> {
+    public ServiceRowMapper() {
+        super(
+            "service_id",
+            "maintenance_type",
+            "vehicle_id",
+            "mileage",
+            "description",
+            "initial_diagnosis",
+            "final_observations",
+            "estimated_time",
+            "labor_cost",
+            "status",
+            "start_date",
+            "end_date",
+            "warranty_until"
+        );
+    }
+
+    @Override
+    protected Service map(ResultSet rs, int[] col) throws SQLException {
+        return new Service(
+            rs.getInt(col[0]),
+            rs.getString(col[1]),
+            rs.getInt(col[2]),
+            getNullableInt(rs, col[3]),
+            rs.getString(col[4]),
+            rs.getString(col[5]),
+            rs.getString(col[6]),
+            getNullableDouble(rs, col[7]),
+            getNullableDouble(rs, col[8]),
+            rs.getString(col[9]),
+            rs.getTimestamp(col[10]),
+            rs.getTimestamp(col[11]),
+            rs.getDate(col[12]),
+            new ArrayList<>(),
+            new ArrayList<>()
+        );
+    }
+}
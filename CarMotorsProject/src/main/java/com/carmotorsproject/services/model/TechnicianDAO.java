@@ -4,7 +4,14 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.utils.EntityCache;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -14,16 +21,29 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TechnicianDAO implements TechnicianDAOInterface {
-    private Connection db;
+    private static final NamedQuery SAVE = QueryRegistry.register("TechnicianDAO.save",
+            "INSERT INTO technicians (name, specialty, status, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?)");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("TechnicianDAO.findById",
+            "SELECT * FROM technicians WHERE technician_id = ?");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("TechnicianDAO.findAll",
+            "SELECT * FROM technicians");
+    private static final NamedQuery UPDATE = QueryRegistry.register("TechnicianDAO.update",
+            "UPDATE technicians SET name = ?, specialty = ?, status = ?, last_update_date = ? WHERE technician_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("TechnicianDAO.delete",
+            "DELETE FROM technicians WHERE technician_id = ?");
+
+    private static final EntityCache<Technician> CACHE = new EntityCache<>("technicians", 500);
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM technicians", "technician_id", null, "technicians")
+            .sortable("name", "name");
 
     public TechnicianDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(Technician technician) {
-        String sql = "INSERT INTO technicians (name, specialty, status, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, technician.getName());
             pstmt.setString(2, technician.getSpecialty());
             pstmt.setString(3, technician.getStatus());
@@ -38,23 +58,21 @@ public class TechnicianDAO implements TechnicianDAOInterface {
         } catch (SQLException e) {
             throw new RuntimeException("Error saving technical:" + e.getMessage());
         }
+        EntityChanges.inserted(Technician.class, technician.getTechnicianId());
     }
 
     @Override
     public Technician findById(int id) {
-        String sql = "SELECT * FROM technicians WHERE technician_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        return CACHE.get(id, this::loadById);
+    }
+
+    private Technician loadById(int id) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Technician(
-                    rs.getInt("technician_id"),
-                    rs.getString("name"),
-                    rs.getString("specialty"),
-                    rs.getString("status"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                );
+                return new TechnicianRowMapper().mapRow(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error al buscar técnico: " + e.getMessage());
@@ -65,18 +83,12 @@ public class TechnicianDAO implements TechnicianDAOInterface {
     @Override
     public List<Technician> findAll() {
         List<Technician> technicians = new ArrayList<>();
-        String sql = "SELECT * FROM technicians";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            TechnicianRowMapper mapper = new TechnicianRowMapper();
             while (rs.next()) {
-                technicians.add(new Technician(
-                    rs.getInt("technician_id"),
-                    rs.getString("name"),
-                    rs.getString("specialty"),
-                    rs.getString("status"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                ));
+                technicians.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting technicians:" + e.getMessage());
@@ -86,8 +98,8 @@ public class TechnicianDAO implements TechnicianDAOInterface {
 
     @Override
     public void update(Technician technician) {
-        String sql = "UPDATE technicians SET name = ?, specialty = ?, status = ?, last_update_date = ? WHERE technician_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE.prepare(db)) {
             pstmt.setString(1, technician.getName());
             pstmt.setString(2, technician.getSpecialty());
             pstmt.setString(3, technician.getStatus());
@@ -96,17 +108,50 @@ public class TechnicianDAO implements TechnicianDAOInterface {
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error updating technician:" + e.getMessage());
+        } finally {
+            CACHE.invalidate(technician.getTechnicianId());
         }
+        EntityChanges.updated(Technician.class, technician.getTechnicianId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM technicians WHERE technician_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting technician:" + e.getMessage());
+        } finally {
+            CACHE.invalidate(id);
+        }
+        EntityChanges.deleted(Technician.class, id);
+    }
+
+    @Override
+    public Page<Technician> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new TechnicianRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of technicians: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of technicians: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting technicians: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
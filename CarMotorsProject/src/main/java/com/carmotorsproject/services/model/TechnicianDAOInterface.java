@@ -4,6 +4,8 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
 import java.util.List;
 
 /**
@@ -16,4 +18,7 @@ public interface TechnicianDAOInterface {
     List<Technician> findAll();
     void update(Technician technician);
     void delete(int id);
+    Page<Technician> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
 }
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code technicians} a {@link Technician}.
+ *
+ * @author camper
+ */
+public class TechnicianRowMapper extends IndexedRowMapper<Technician> {
+    public TechnicianRowMapper() {
+        super(
+            "technician_id",
+            "name",
+            "specialty",
+            "status",
+            "creation_date",
+            "last_update_date"
+        );
+    }
+
+    @Override
+    protected Technician map(ResultSet rs, int[] col) throws SQLException {
+        return new Technician(
+            rs.getInt(col[0]),
+            rs.getString(col[1]),
+            rs.getString(col[2]),
+            rs.getString(col[3]),
+            rs.getTimestamp(col[4]),
+            rs.getTimestamp(col[5])
+        );
+    }
+}
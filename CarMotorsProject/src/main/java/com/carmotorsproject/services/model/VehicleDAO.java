@@ -4,26 +4,53 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.utils.EntityCache;
+import com.carmotorsproject.utils.EntityChanges;
+import com.carmotorsproject.utils.KeysetQuery;
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import com.carmotorsproject.utils.QueryUtil;
 import config.DatabaseConnection;
+import config.NamedQuery;
+import config.QueryRegistry;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class VehicleDAO implements VehicleDAOInterface {
-    private Connection db;
+    private static final NamedQuery SAVE = QueryRegistry.register("VehicleDAO.save",
+            "INSERT INTO vehicles (customer_id, license_plate, make, model, year, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?)");
+    private static final NamedQuery FIND_BY_ID = QueryRegistry.register("VehicleDAO.findById",
+            "SELECT * FROM vehicles WHERE vehicle_id = ?");
+    private static final NamedQuery FIND_ALL = QueryRegistry.register("VehicleDAO.findAll",
+            "SELECT * FROM vehicles");
+    private static final NamedQuery UPDATE = QueryRegistry.register("VehicleDAO.update",
+            "UPDATE vehicles SET customer_id = ?, license_plate = ?, make = ?, model = ?, year = ?, last_update_date = ? WHERE vehicle_id = ?");
+    private static final NamedQuery DELETE = QueryRegistry.register("VehicleDAO.delete",
+            "DELETE FROM vehicles WHERE vehicle_id = ?");
+    private static final NamedQuery FIND_LAST_UPDATE_DATES = QueryRegistry.register("VehicleDAO.findLastUpdateDates",
+            "SELECT vehicle_id, last_update_date FROM vehicles");
+
+    private static final EntityCache<Vehicle> CACHE = new EntityCache<>("vehicles", 2000);
+
+    private static final KeysetQuery PAGE_QUERY = new KeysetQuery("SELECT * FROM vehicles", "vehicle_id", null, "vehicles")
+            .sortable("license_plate", "license_plate")
+            .sortable("customer_id", "customer_id");
 
     public VehicleDAO() {
-        this.db = DatabaseConnection.getConnection();
     }
 
     @Override
     public void save(Vehicle vehicle) {
-        String sql = "INSERT INTO vehicles (customer_id, license_plate, make, model, year, creation_date, last_update_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = db.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = SAVE.prepare(db, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setInt(1, vehicle.getCustomerId());
             pstmt.setString(2, vehicle.getLicensePlate());
             pstmt.setString(3, vehicle.getMake());
@@ -40,25 +67,22 @@ public class VehicleDAO implements VehicleDAOInterface {
         } catch (SQLException e) {
             throw new RuntimeException("Error saving vehicle:" + e.getMessage());
         }
+        VehicleLookup.getInstance().indexed(vehicle);
+        EntityChanges.inserted(Vehicle.class, vehicle.getVehicleId());
     }
 
     @Override
     public Vehicle findById(int id) {
-        String sql = "SELECT * FROM vehicles WHERE vehicle_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        return CACHE.get(id, this::loadById);
+    }
+
+    private Vehicle loadById(int id) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_BY_ID.prepare(db)) {
             pstmt.setInt(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Vehicle(
-                    rs.getInt("vehicle_id"),
-                    rs.getInt("customer_id"),
-                    rs.getString("license_plate"),
-                    rs.getString("make"),
-                    rs.getString("model"),
-                    rs.getInt("year"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                );
+                return new VehicleRowMapper().mapRow(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error al buscar vehículo: " + e.getMessage());
@@ -69,20 +93,12 @@ public class VehicleDAO implements VehicleDAOInterface {
     @Override
     public List<Vehicle> findAll() {
         List<Vehicle> vehicles = new ArrayList<>();
-        String sql = "SELECT * FROM vehicles";
-        try (PreparedStatement pstmt = db.prepareStatement(sql);
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_ALL.prepare(db);
              ResultSet rs = pstmt.executeQuery()) {
+            VehicleRowMapper mapper = new VehicleRowMapper();
             while (rs.next()) {
-                vehicles.add(new Vehicle(
-                    rs.getInt("vehicle_id"),
-                    rs.getInt("customer_id"),
-                    rs.getString("license_plate"),
-                    rs.getString("make"),
-                    rs.getString("model"),
-                    rs.getInt("year"),
-                    rs.getTimestamp("creation_date"),
-                    rs.getTimestamp("last_update_date")
-                ));
+                vehicles.add(mapper.mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting vehicles:" + e.getMessage());
@@ -90,10 +106,53 @@ public class VehicleDAO implements VehicleDAOInterface {
         return vehicles;
     }
 
+    @Override
+    public List<Vehicle> findByIds(List<Integer> ids) {
+        List<Vehicle> vehicles = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return vehicles;
+        }
+        try (Connection db = DatabaseConnection.getConnection()) {
+            for (List<Integer> chunk : QueryUtil.chunk(ids)) {
+                String sql = "SELECT * FROM vehicles WHERE vehicle_id IN " + QueryUtil.inPlaceholders(chunk.size());
+                try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        VehicleRowMapper mapper = new VehicleRowMapper();
+                        while (rs.next()) {
+                            vehicles.add(mapper.mapRow(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching for vehicles: " + e.getMessage());
+        }
+        return vehicles;
+    }
+
+    /** vehicle_id y last_update_date de todos los vehículos, para detectar cambios hechos desde otros equipos. */
+    @Override
+    public Map<Integer, Date> findLastUpdateDates() {
+        Map<Integer, Date> dates = new HashMap<>();
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = FIND_LAST_UPDATE_DATES.prepare(db);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                dates.put(rs.getInt(1), rs.getTimestamp(2));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading vehicle update dates: " + e.getMessage());
+        }
+        return dates;
+    }
+
     @Override
     public void update(Vehicle vehicle) {
-        String sql = "UPDATE vehicles SET customer_id = ?, license_plate = ?, make = ?, model = ?, year = ?, last_update_date = ? WHERE vehicle_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = UPDATE.prepare(db)) {
             pstmt.setInt(1, vehicle.getCustomerId());
             pstmt.setString(2, vehicle.getLicensePlate());
             pstmt.setString(3, vehicle.getMake());
@@ -104,17 +163,52 @@ public class VehicleDAO implements VehicleDAOInterface {
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error updating vehicle: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(vehicle.getVehicleId());
         }
+        VehicleLookup.getInstance().indexed(vehicle);
+        EntityChanges.updated(Vehicle.class, vehicle.getVehicleId());
     }
 
     @Override
     public void delete(int id) {
-        String sql = "DELETE FROM vehicles WHERE vehicle_id = ?";
-        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = DELETE.prepare(db)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting vehicle: " + e.getMessage());
+        } finally {
+            CACHE.invalidate(id);
+        }
+        VehicleLookup.getInstance().removed(id);
+        EntityChanges.deleted(Vehicle.class, id);
+    }
+
+    @Override
+    public Page<Vehicle> findPage(PageRequest request) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.fetch(db, request, new VehicleRowMapper());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page of vehicles: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PageRequest> findPageBoundaries(PageRequest first) {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.boundaries(db, first);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting page boundaries of vehicles: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int count() {
+        try (Connection db = DatabaseConnection.getConnection()) {
+            return PAGE_QUERY.count(db);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting vehicles: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,11 @@
  */
 package com.carmotorsproject.services.model;
 
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -16,4 +20,9 @@ public interface VehicleDAOInterface {
     List<Vehicle> findAll();
     void update(Vehicle vehicle);
     void delete(int id);
+    Page<Vehicle> findPage(PageRequest request);
+    List<PageRequest> findPageBoundaries(PageRequest first);
+    int count();
+    List<Vehicle> findByIds(List<Integer> ids);
+    Map<Integer, Date> findLastUpdateDates();
 }
@@ -0,0 +1,387 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda de vehículos por placa en memoria.
+ *
+ * Las placas se comparan por su clave normalizada: solo letras y dígitos, en
+ * mayúsculas, de modo que "abc-123", "ABC 123" y "ABC123" son la misma. Un
+ * mapa hash resuelve la placa completa y un trie de las claves da las placas
+ * que empiezan por lo que se lleva escrito, en orden alfabético.
+ *
+ * Se carga completo la primera vez que se usa; después VehicleDAO avisa de
+ * cada alta, modificación o baja con {@link #indexed(Vehicle)} y
+ * {@link #removed(int)}.
+ *
+ * Lo que se cambia desde otros equipos se recoge comparando los
+ * last_update_date de la tabla con los cargados, como en CachedPartDAO: cada
+ * {@link #CHECK_PERIOD_SECONDS} segundos y, además, cuando una búsqueda no
+ * encuentra nada y la última verificación tiene más de
+ * {@link #MISS_CHECK_MILLIS} ms, para que un vehículo recién registrado en
+ * recepción se pueda elegir sin esperar al siguiente ciclo.
+ *
+ * @author camper
+ */
+public class VehicleLookup {
+    private static final int[] NO_IDS = new int[0];
+    private static final long CHECK_PERIOD_SECONDS = 30;
+    private static final long MISS_CHECK_MILLIS = 2000;
+    private static VehicleLookup instance;
+
+    private final Supplier<List<Vehicle>> loader;
+    // Nulo cuando los vehículos no vienen de la base de datos
+    private final VehicleDAOInterface dao;
+    private final Map<Integer, Vehicle> vehicles = new HashMap<>();
+    // Clave de placa -> vehículos con esa placa (normalmente uno)
+    private final Map<String, int[]> byPlate = new HashMap<>();
+    private final Node root = new Node();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+    private volatile long lastCheck;
+    private ScheduledExecutorService checker;
+
+    /** Índice sobre una lista fija de vehículos, sin verificación contra la tabla. */
+    public VehicleLookup(Supplier<List<Vehicle>> loader) {
+        this.loader = loader;
+        this.dao = null;
+    }
+
+    public VehicleLookup(VehicleDAOInterface dao) {
+        this.loader = dao::findAll;
+        this.dao = dao;
+    }
+
+    public static synchronized VehicleLookup getInstance() {
+        if (instance == null) {
+            instance = new VehicleLookup(new VehicleDAO());
+        }
+        return instance;
+    }
+
+    /** "abc-123" -> "ABC123". Devuelve "" si no queda ningún carácter válido. */
+    public static String normalize(String plate) {
+        if (plate == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(plate.length());
+        for (int i = 0; i < plate.length(); i++) {
+            char c = Character.toUpperCase(plate.charAt(i));
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Vehículo con exactamente esa placa, o null. Con placas repetidas devuelve el de menor id. */
+    public Vehicle findByPlate(String plate) {
+        ensureLoaded();
+        String key = normalize(plate);
+        Vehicle vehicle = lookupPlate(key);
+        if (vehicle == null && !key.isEmpty() && recheckAfterMiss()) {
+            vehicle = lookupPlate(key);
+        }
+        return vehicle;
+    }
+
+    private Vehicle lookupPlate(String key) {
+        lock.readLock().lock();
+        try {
+            int[] ids = byPlate.get(key);
+            return ids != null ? copy(vehicles.get(ids[0])) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Hasta {@code limit} vehículos cuya placa empieza por {@code prefix}, por orden de placa. */
+    public List<Vehicle> findByPlatePrefix(String prefix, int limit) {
+        ensureLoaded();
+        String key = normalize(prefix);
+        List<Vehicle> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        collectPrefix(key, result, limit);
+        if (result.isEmpty() && recheckAfterMiss()) {
+            collectPrefix(key, result, limit);
+        }
+        return result;
+    }
+
+    private void collectPrefix(String key, List<Vehicle> result, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node != null) {
+                collect(node, result, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Alta o modificación hecha por VehicleDAO. No hace nada si aún no se ha cargado. */
+    public void indexed(Vehicle vehicle) {
+        // Dentro del lock: si se está cargando, espera y se aplica encima
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                put(copy(vehicle));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removed(int vehicleId) {
+        lock.writeLock().lock();
+        try {
+            Vehicle previous = loaded ? vehicles.remove(vehicleId) : null;
+            if (previous != null) {
+                unlink(normalize(previous.getLicensePlate()), vehicleId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compara lo cargado con la tabla y recarga lo que cambió fuera de esta
+     * aplicación. Devuelve el número de vehículos recargados o quitados.
+     */
+    public int checkConsistency() {
+        if (!loaded || dao == null) {
+            return 0;
+        }
+        lock.writeLock().lock();
+        try {
+            lastCheck = System.currentTimeMillis();
+            Map<Integer, Date> dates = dao.findLastUpdateDates();
+            List<Integer> stale = new ArrayList<>();
+            dates.forEach((id, lastUpdate) -> {
+                Vehicle loadedVehicle = vehicles.get(id);
+                if (loadedVehicle == null
+                        || !Objects.equals(millis(loadedVehicle.getLastUpdateDate()), millis(lastUpdate))) {
+                    stale.add(id);
+                }
+            });
+            int removed = 0;
+            for (Integer id : new ArrayList<>(vehicles.keySet())) {
+                if (!dates.containsKey(id)) {
+                    Vehicle previous = vehicles.remove(id);
+                    unlink(normalize(previous.getLicensePlate()), id);
+                    removed++;
+                }
+            }
+            for (Vehicle vehicle : dao.findByIds(stale)) {
+                put(copy(vehicle));
+            }
+            return stale.size() + removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Verifica tras una búsqueda sin resultados, como mucho una vez cada {@link #MISS_CHECK_MILLIS} ms. */
+    private boolean recheckAfterMiss() {
+        if (dao == null || System.currentTimeMillis() - lastCheck < MISS_CHECK_MILLIS) {
+            return false;
+        }
+        try {
+            return checkConsistency() > 0;
+        } catch (RuntimeException e) {
+            System.err.println("Error checking vehicle lookup: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Descarta todo; el siguiente uso vuelve a cargar los vehículos. */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            vehicles.clear();
+            byPlate.clear();
+            root.children = null;
+            root.size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (Vehicle vehicle : loader.get()) {
+                    put(copy(vehicle));
+                }
+                loaded = true;
+                if (dao != null) {
+                    startChecker();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void startChecker() {
+        if (checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-vehicles-consistency");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(() -> {
+            try {
+                checkConsistency();
+            } catch (RuntimeException e) {
+                System.err.println("Error checking vehicle lookup: " + e.getMessage());
+            }
+        }, CHECK_PERIOD_SECONDS, CHECK_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static Long millis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private void put(Vehicle vehicle) {
+        Vehicle previous = vehicles.put(vehicle.getVehicleId(), vehicle);
+        if (previous != null) {
+            unlink(normalize(previous.getLicensePlate()), previous.getVehicleId());
+        }
+        String key = normalize(vehicle.getLicensePlate());
+        if (key.isEmpty()) {
+            return;
+        }
+        int[] ids = byPlate.getOrDefault(key, NO_IDS);
+        int[] updated = Arrays.copyOf(ids, ids.length + 1);
+        updated[ids.length] = vehicle.getVehicleId();
+        Arrays.sort(updated);
+        byPlate.put(key, updated);
+        if (ids.length == 0) {
+            Node node = root;
+            node.size++;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+                node.size++;
+            }
+            node.plate = key;
+        }
+    }
+
+    private void unlink(String key, int vehicleId) {
+        int[] ids = byPlate.get(key);
+        if (ids == null) {
+            return;
+        }
+        int[] remaining = Arrays.stream(ids).filter(id -> id != vehicleId).toArray();
+        if (remaining.length > 0) {
+            byPlate.put(key, remaining);
+            return;
+        }
+        byPlate.remove(key);
+        // Baja la cuenta del camino y poda las ramas que quedan vacías
+        Node node = root;
+        node.size--;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (--child.size == 0) {
+                node.children[index(key.charAt(i))] = null;
+                return;
+            }
+            node = child;
+        }
+        node.plate = null;
+    }
+
+    private void collect(Node node, List<Vehicle> result, int limit) {
+        if (node.plate != null) {
+            for (int id : byPlate.get(node.plate)) {
+                if (result.size() == limit) {
+                    return;
+                }
+                result.add(copy(vehicles.get(id)));
+            }
+        }
+        if (node.children == null) {
+            return;
+        }
+        for (Node child : node.children) {
+            if (result.size() == limit) {
+                return;
+            }
+            if (child != null) {
+                collect(child, result, limit);
+            }
+        }
+    }
+
+    /** 0-9 -> 0..9, A-Z -> 10..35: recorrer los hijos en orden da orden alfabético. */
+    private static int index(char c) {
+        return c <= '9' ? c - '0' : c - 'A' + 10;
+    }
+
+    private static Vehicle copy(Vehicle vehicle) {
+        return new Vehicle(
+            vehicle.getVehicleId(),
+            vehicle.getCustomerId(),
+            vehicle.getLicensePlate(),
+            vehicle.getMake(),
+            vehicle.getModel(),
+            vehicle.getYear(),
+            vehicle.getCreationDate(),
+            vehicle.getLastUpdateDate()
+        );
+    }
+
+    private static final class Node {
+        private Node[] children;
+        // Placas distintas en este subárbol, para podar al borrar
+        private int size;
+        // Clave completa si alguna placa termina aquí
+        private String plate;
+
+        Node child(char c) {
+            return children != null ? children[index(c)] : null;
+        }
+
+        Node childOrCreate(char c) {
+            if (children == null) {
+                children = new Node[36];
+            }
+            Node child = children[index(c)];
+            if (child == null) {
+                child = new Node();
+                children[index(c)] = child;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.IndexedRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de {@code vehicles} a {@link Vehicle}.
+ *
+ * @author camper
+ */
+public class VehicleRowMapper extends IndexedRowMapper<Vehicle> {
+    public VehicleRowMapper() {
+        super(
+            "vehicle_id",
+            "customer_id",
+            "license_plate",
+            "make",
+            "model",
+            "year",
+            "creation_date",
+            "last_update_date"
+        );
+    }
+
+    @Override
+    protected Vehicle map(ResultSet rs, int[] col) throws SQLException {
+        return new Vehicle(
+            rs.getInt(col[0]),
+            rs.getInt(col[1]),
+            rs.getString(col[2]),
+            rs.getString(col[3]),
+            rs.getString(col[4]),
+            rs.getInt(col[5]),
+            rs.getTimestamp(col[6]),
+            rs.getTimestamp(col[7])
+        );
+    }
+}
@@ -11,17 +11,30 @@ import com.carmotorsproject.services.model.PartsInService;
 import com.carmotorsproject.services.model.Service;
 import com.carmotorsproject.services.model.Technician;
 import com.carmotorsproject.services.model.Vehicle;
+import com.carmotorsproject.utils.AsyncDAO;
+import com.carmotorsproject.utils.PagedTableModel;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import com.toedter.calendar.JDateChooser;
 
 public class ServiceView extends JFrame {
+    private static final String[] COLUMNS = {"ID", "Type", "Vehicle", "Mileage", "Status", "Start Date", "End Date"};
+    private static final String NO_VEHICLE = "Select a vehicle";
+    private static final int VEHICLE_SUGGESTIONS = 15;
     private ServiceController controller;
+    // Carga en curso; se cancela si llega otra antes de que termine
+    private CompletableFuture<?> pendingLoad;
+    private CompletableFuture<?> pendingVehicles;
+    private final PagedTableModel<Service> pagedModel;
     private JComboBox<String> inputMaintenanceType;
     private JComboBox<String> inputVehicle;
     private JTextField inputMileage;
@@ -42,6 +55,10 @@ public class ServiceView extends JFrame {
 
     public ServiceView() {
         this.controller = new ServiceController(this);
+        this.pagedModel = new PagedTableModel<>(COLUMNS, request -> controller.getServicePage(request),
+                first -> controller.getServicePageBoundaries(first),
+                () -> controller.countServices(), this::columnValue);
+        pagedModel.trackChanges(Service.class, Service::getServiceId, this::loadService);
         initComponents();
         populateCombos();
         refreshTable();
@@ -109,9 +126,23 @@ public class ServiceView extends JFrame {
         gbc.gridx = 0; gbc.gridy = 1;
         serviceTab.add(new JLabel("Vehicle:"), gbc);
         gbc.gridx = 1;
+        // Se escribe la placa y se sugieren las que empiezan igual
         inputVehicle = new JComboBox<>();
+        inputVehicle.setEditable(true);
+        inputVehicle.setToolTipText("Type the license plate");
         inputVehicle.setMinimumSize(new Dimension(300, 25));
         inputVehicle.setPreferredSize(new Dimension(400, 25));
+        JTextField vehicleEditor = (JTextField) inputVehicle.getEditor().getEditorComponent();
+        vehicleEditor.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.isActionKey() || e.getKeyCode() == KeyEvent.VK_ENTER
+                        || e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    return;
+                }
+                suggestVehicles(vehicleEditor.getText());
+            }
+        });
         serviceTab.add(inputVehicle, gbc);
 
         gbc.gridx = 0; gbc.gridy = 2;
@@ -246,13 +277,9 @@ public class ServiceView extends JFrame {
     }
 
     private void populateCombos() {
+        // Los vehículos no se cargan aquí: se buscan por placa al escribir
         inputVehicle.removeAllItems();
-        inputVehicle.addItem("Select a vehicle");
-        List<Vehicle> vehicles = controller.getAllVehicles();
-        System.out.println("Number of vehicles recovered: " + vehicles.size());
-        for (Vehicle vehicle : vehicles) {
-            inputVehicle.addItem(vehicle.getVehicleId() + " - " + vehicle.getLicensePlate());
-        }
+        inputVehicle.addItem(NO_VEHICLE);
 
         DefaultListModel<Integer> technicianModel = new DefaultListModel<>();
         List<Technician> technicians = controller.getAllTechnicians();
@@ -344,19 +371,15 @@ public class ServiceView extends JFrame {
 
     private void searchService() {
         String searchTerm = inputSearch.getText().trim();
-        List<Service> services;
         if (searchTerm.isEmpty()) {
-            services = controller.getAllServices();
-        } else {
-            try {
-                int id = Integer.parseInt(searchTerm);
-                Service service = controller.getServiceById(id);
-                services = service != null ? List.of(service) : new ArrayList<>();
-            } catch (NumberFormatException e) {
-                services = new ArrayList<>();
-            }
+            load(controller.getAllServicesAsync(), this::updateTable);
+            return;
+        }
+        try {
+            load(controller.getServiceByIdAsync(Integer.parseInt(searchTerm)), this::updateTable);
+        } catch (NumberFormatException e) {
+            updateTable(new ArrayList<>());
         }
-        updateTable(services);
     }
 
     private void loadServiceForEdit(int row) {
@@ -386,62 +409,139 @@ public class ServiceView extends JFrame {
         }
     }
 
+    /** Id del vehículo elegido en la lista o, si se escribió una placa completa, el de esa placa. */
     private int getSelectedVehicleId() {
-        String selected = (String) inputVehicle.getSelectedItem();
-        if (selected == null || selected.equals("Select a vehicle")) return 0;
-        try {
-            return Integer.parseInt(selected.split(" - ")[0]);
-        } catch (NumberFormatException e) {
-            showAlert("Error parsing vehicle ID: " + e.getMessage());
+        Object item = inputVehicle.getEditor().getItem();
+        String selected = item != null ? item.toString().trim() : "";
+        if (selected.isEmpty() || selected.equals(NO_VEHICLE)) return 0;
+        int separator = selected.indexOf(" - ");
+        if (separator > 0) {
+            try {
+                return Integer.parseInt(selected.substring(0, separator));
+            } catch (NumberFormatException e) {
+                // No es una sugerencia de la lista: se trata como placa
+            }
+        }
+        Vehicle vehicle = controller.findVehicleByPlate(selected);
+        if (vehicle == null) {
+            showAlert("No vehicle found with license plate " + selected);
             return 0;
         }
+        return vehicle.getVehicleId();
     }
 
     private void setVehicleSelection(int vehicleId) {
-        for (int i = 0; i < inputVehicle.getItemCount(); i++) {
-            String item = inputVehicle.getItemAt(i);
-            if (item.startsWith(vehicleId + " - ")) {
-                inputVehicle.setSelectedItem(item);
+        Vehicle vehicle = controller.getVehicleById(vehicleId);
+        inputVehicle.setSelectedItem(vehicle != null ? vehicleLabel(vehicle) : NO_VEHICLE);
+    }
+
+    private void suggestVehicles(String text) {
+        if (pendingVehicles != null) {
+            pendingVehicles.cancel(true);
+        }
+        if (text.trim().isEmpty()) {
+            inputVehicle.hidePopup();
+            return;
+        }
+        pendingVehicles = AsyncDAO.onEdt(controller.searchVehiclesByPlateAsync(text, VEHICLE_SUGGESTIONS), vehicles -> {
+            JTextField editor = (JTextField) inputVehicle.getEditor().getEditorComponent();
+            if (!text.equals(editor.getText())) {
                 return;
             }
-        }
-        inputVehicle.setSelectedItem("Select a vehicle");
+            DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+            for (Vehicle vehicle : vehicles) {
+                model.addElement(vehicleLabel(vehicle));
+            }
+            // Cambiar el modelo no debe pisar lo que se está escribiendo
+            model.setSelectedItem(text);
+            inputVehicle.setModel(model);
+            if (vehicles.isEmpty()) {
+                inputVehicle.hidePopup();
+            } else {
+                inputVehicle.showPopup();
+            }
+        }, error -> showAlert("Error searching vehicles: " + AsyncDAO.describe(error)));
+    }
+
+    private static String vehicleLabel(Vehicle vehicle) {
+        return vehicle.getVehicleId() + " - " + vehicle.getLicensePlate();
     }
 
     public void refreshTable() {
-        List<Service> services = controller.getAllServices();
-        System.out.println("Refreshing table with" + services.size() + " services.");
-        updateTable(services);
-        if (services.isEmpty()) {
-            showAlert("No services were found in the database.");
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        tableServices.setModel(pagedModel);
+        pagedModel.refresh(count -> {
+            System.out.println("Refreshing table with" + count + " services.");
+            if (count == 0) {
+                showAlert("No services were found in the database.");
+            }
+        });
+    }
+
+    /** Vuelve a la tabla completa si se estaba mostrando una búsqueda; no recarga nada. */
+    public void showAllRows() {
+        if (tableServices.getModel() != pagedModel) {
+            tableServices.setModel(pagedModel);
+        }
+    }
+
+    /** Se ejecuta fuera del EDT al releer una fila modificada. */
+    private Service loadService(int serviceId) {
+        Service service = controller.getServiceById(serviceId);
+        if (service != null) {
+            controller.getVehicleById(service.getVehicleId());
         }
+        return service;
+    }
+
+    private void load(CompletableFuture<List<Service>> future, Consumer<List<Service>> onLoaded) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        pendingLoad = AsyncDAO.onEdt(future, onLoaded,
+                error -> showAlert("Error loading services: " + AsyncDAO.describe(error)));
     }
 
     private void updateTable(List<Service> services) {
-        String[] columns = {"ID", "Type", "Vehicle", "Mileage", "Status", "Start Date", "End Date"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
+        DefaultTableModel model = new DefaultTableModel(COLUMNS, 0);
         for (Service service : services) {
-            Vehicle vehicle = controller.getAllVehicles().stream()
-                    .filter(v -> v.getVehicleId() == service.getVehicleId())
-                    .findFirst().orElse(null);
-            String vehicleInfo = vehicle != null ? vehicle.getLicensePlate() : "unknown";
-            model.addRow(new Object[]{
-                service.getServiceId(),
-                service.getMaintenanceType(),
-                vehicleInfo,
-                service.getMileage() != null ? service.getMileage() : "",
-                service.getStatus(),
-                service.getStartDate() != null ? dateFormat.format(service.getStartDate()) : "",
-                service.getEndDate() != null ? dateFormat.format(service.getEndDate()) : ""
-            });
+            Object[] row = new Object[COLUMNS.length];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = columnValue(service, column);
+            }
+            model.addRow(row);
         }
         tableServices.setModel(model);
         System.out.println("Table updated with " + model.getRowCount() + " rows.");
     }
 
+    private Object columnValue(Service service, int column) {
+        switch (column) {
+            case 0:
+                return service.getServiceId();
+            case 1:
+                return service.getMaintenanceType();
+            case 2:
+                Vehicle vehicle = controller.getVehicleById(service.getVehicleId());
+                return vehicle != null ? vehicle.getLicensePlate() : "unknown";
+            case 3:
+                return service.getMileage() != null ? service.getMileage() : "";
+            case 4:
+                return service.getStatus();
+            case 5:
+                return service.getStartDate() != null ? dateFormat.format(service.getStartDate()) : "";
+            case 6:
+                return service.getEndDate() != null ? dateFormat.format(service.getEndDate()) : "";
+            default:
+                return null;
+        }
+    }
+
     private void clearFields() {
         inputMaintenanceType.setSelectedIndex(0);
-        inputVehicle.setSelectedIndex(0);
+        inputVehicle.setSelectedItem(NO_VEHICLE);
         inputMileage.setText("");
         inputDescription.setText("");
         inputInitialDiagnosis.setText("");
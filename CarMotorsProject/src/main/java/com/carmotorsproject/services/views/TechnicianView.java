@@ -7,11 +7,11 @@ package com.carmotorsproject.services.views;
 
 import com.carmotorsproject.services.controller.TechnicianController;
 import com.carmotorsproject.services.model.Technician;
+import com.carmotorsproject.utils.PagedTableModel;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.util.Date;
-import java.util.List;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
@@ -22,14 +22,13 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
-import javax.swing.table.DefaultTableModel;
 
 public class TechnicianView extends JFrame {
     private TechnicianController controller;
     private JTextField txtTechnicianId, txtName, txtSpecialty;
     private JComboBox<String> cbStatus;
     private JTable technicianTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Technician> tableModel;
 
     public TechnicianView(TechnicianController controller) {
         this.controller = controller;
@@ -84,7 +83,10 @@ public class TechnicianView extends JFrame {
 
         // Tabla
         String[] columnNames ={"ID", "Name", "Specialty", "State"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new PagedTableModel<>(columnNames, request -> controller.getTechnicianPage(request),
+                first -> controller.getTechnicianPageBoundaries(first),
+                () -> controller.countTechnicians(), TechnicianView::columnValue);
+        tableModel.trackChanges(Technician.class, Technician::getTechnicianId, id -> controller.findById(id));
         technicianTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(technicianTable);
 
@@ -101,6 +103,9 @@ public class TechnicianView extends JFrame {
         technicianTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && technicianTable.getSelectedRow() != -1) {
                 int row = technicianTable.getSelectedRow();
+                if (tableModel.getRow(row) == null) {
+                    return;
+                }
                 txtTechnicianId.setText(tableModel.getValueAt(row, 0).toString());
                 txtName.setText(tableModel.getValueAt(row, 1).toString());
                 txtSpecialty.setText(tableModel.getValueAt(row, 2).toString());
@@ -121,7 +126,6 @@ public class TechnicianView extends JFrame {
                     new Date()
                 );
                 controller.addTechnician(technician);
-                loadTechnicians();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Technician added successfully");
             }
@@ -142,7 +146,6 @@ public class TechnicianView extends JFrame {
                     new Date()
                 );
                 controller.updateTechnician(technician);
-                loadTechnicians();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Technician successfully updated");
             }
@@ -160,7 +163,6 @@ public class TechnicianView extends JFrame {
                 int confirm = JOptionPane.showConfirmDialog(this, "¿Are you sure to remove this technician?", "Confirm", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     controller.deleteTechnician(technicianId);
-                    loadTechnicians();
                     clearFields();
                     JOptionPane.showMessageDialog(this, "Technician successfully eliminated");
                 }
@@ -188,15 +190,21 @@ public class TechnicianView extends JFrame {
     }
 
     private void loadTechnicians() {
-        tableModel.setRowCount(0);
-        List<Technician> technicians = controller.getAllTechnicians();
-        for (Technician technician : technicians) {
-            tableModel.addRow(new Object[]{
-                technician.getTechnicianId(),
-                technician.getName(),
-                technician.getSpecialty(),
-                technician.getStatus()
-            });
+        tableModel.refresh();
+    }
+
+    private static Object columnValue(Technician row, int column) {
+        switch (column) {
+            case 0:
+                return row.getTechnicianId();
+            case 1:
+                return row.getName();
+            case 2:
+                return row.getSpecialty();
+            case 3:
+                return row.getStatus();
+            default:
+                return null;
         }
     }
-}
\ No newline at end of file
+}
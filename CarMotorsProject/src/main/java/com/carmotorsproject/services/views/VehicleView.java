@@ -7,10 +7,10 @@ package com.carmotorsproject.services.views;
 
 import com.carmotorsproject.services.controller.VehicleController;
 import com.carmotorsproject.services.model.Vehicle;
+import com.carmotorsproject.utils.PagedTableModel;
 import javax.swing.JFrame;
 import java.awt.*;
 import java.util.Date;
-import java.util.List;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -19,12 +19,11 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
-import javax.swing.table.DefaultTableModel;
 public class VehicleView extends JFrame {
     private VehicleController controller;
     private JTextField txtVehicleId, txtCustomerId, txtLicensePlate, txtMake, txtModel, txtYear;
     private JTable vehicleTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel<Vehicle> tableModel;
 
     public VehicleView(VehicleController controller) {
         this.controller = controller;
@@ -87,7 +86,10 @@ public class VehicleView extends JFrame {
 
         // Tabla
         String[] columnNames = {"ID", "Customer ID", "Plate", "Make", "Model", "Year"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new PagedTableModel<>(columnNames, request -> controller.getVehiclePage(request),
+                first -> controller.getVehiclePageBoundaries(first),
+                () -> controller.countVehicles(), VehicleView::columnValue);
+        tableModel.trackChanges(Vehicle.class, Vehicle::getVehicleId, id -> controller.findById(id));
         vehicleTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(vehicleTable);
 
@@ -104,6 +106,9 @@ public class VehicleView extends JFrame {
         vehicleTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && vehicleTable.getSelectedRow() != -1) {
                 int row = vehicleTable.getSelectedRow();
+                if (tableModel.getRow(row) == null) {
+                    return;
+                }
                 txtVehicleId.setText(tableModel.getValueAt(row, 0).toString());
                 txtCustomerId.setText(tableModel.getValueAt(row, 1).toString());
                 txtLicensePlate.setText(tableModel.getValueAt(row, 2).toString());
@@ -128,7 +133,6 @@ public class VehicleView extends JFrame {
                     new Date()
                 );
                 controller.addVehicle(vehicle);
-                loadVehicles();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Vehicle added successfully");
             }
@@ -153,7 +157,6 @@ public class VehicleView extends JFrame {
                     new Date()
                 );
                 controller.updateVehicle(vehicle);
-                loadVehicles();
                 clearFields();
                 JOptionPane.showMessageDialog(this, "Vehicle successfully updated");
             }
@@ -171,7 +174,6 @@ public class VehicleView extends JFrame {
                 int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete this vehicle?", "Confirmar", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     controller.deleteVehicle(vehicleId);
-                    loadVehicles();
                     clearFields();
                     JOptionPane.showMessageDialog(this, "Vehicle successfully removed");
                 }
@@ -202,17 +204,25 @@ public class VehicleView extends JFrame {
     }
 
     private void loadVehicles() {
-        tableModel.setRowCount(0);
-        List<Vehicle> vehicles = controller.getAllVehicles();
-        for (Vehicle vehicle : vehicles) {
-            tableModel.addRow(new Object[]{
-                vehicle.getVehicleId(),
-                vehicle.getCustomerId(),
-                vehicle.getLicensePlate(),
-                vehicle.getMake(),
-                vehicle.getModel(),
-                vehicle.getYear()
-            });
+        tableModel.refresh();
+    }
+
+    private static Object columnValue(Vehicle row, int column) {
+        switch (column) {
+            case 0:
+                return row.getVehicleId();
+            case 1:
+                return row.getCustomerId();
+            case 2:
+                return row.getLicensePlate();
+            case 3:
+                return row.getMake();
+            case 4:
+                return row.getModel();
+            case 5:
+                return row.getYear();
+            default:
+                return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import config.DatabaseConnection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Ejecuta operaciones de DAO fuera del Event Dispatch Thread.
+ *
+ * Cualquier llamada a un DAO se puede convertir en un CompletableFuture con
+ * {@link #supply(Supplier)}. Las tareas corren en un executor acotado, con
+ * menos hilos que conexiones tiene el pool, para que la interfaz nunca se
+ * quede sin conexión para una operación síncrona. Cancelar el future o
+ * superar el timeout interrumpe la tarea si todavía está corriendo.
+ *
+ * Con {@link VirtualThreads#isEnabled()} cada tarea corre en su propio hilo
+ * virtual. Un semáforo con tantos permisos como el executor normal tiene hilos
+ * (y no más que hilos portadores, ver {@link #databasePermits()}) limita
+ * cuántas usan la base a la vez; el resto espera aparcado sin ocupar un hilo
+ * del sistema ni agotar el timeout de espera del pool.
+ *
+ * Con {@link #onEdt} el resultado vuelve al EDT, donde ya se puede tocar Swing.
+ *
+ * @author camper
+ */
+public final class AsyncDAO {
+    public static final long DEFAULT_TIMEOUT_SECONDS = 30;
+
+    // Conexiones que se dejan libres para las llamadas síncronas de la interfaz
+    private static final int RESERVED_CONNECTIONS = 2;
+    private static final int QUEUE_CAPACITY = 200;
+
+    private static final int DATABASE_PERMITS = databasePermits();
+    private static final Semaphore DATABASE_SLOTS = new Semaphore(DATABASE_PERMITS, true);
+
+    private static final ExecutorService DATABASE = createExecutor("carmotors-dao-", DATABASE_PERMITS);
+
+    private AsyncDAO() {
+    }
+
+    /**
+     * Conexiones que pueden usar las tareas a la vez. Con hilos virtuales
+     * tampoco más que hilos portadores: Connector/J 8.0 hace la E/S del socket
+     * dentro de bloques synchronized, así que cada tarea que espera a MySQL
+     * fija su portador y con más permisos que portadores no quedaría ninguno
+     * libre para el resto de hilos virtuales.
+     */
+    private static int databasePermits() {
+        int permits = Math.max(1, DatabaseConnection.getMaxPoolSize() - RESERVED_CONNECTIONS);
+        if (VirtualThreads.isEnabled()) {
+            permits = Math.min(permits, VirtualThreads.carrierParallelism());
+        }
+        return permits;
+    }
+
+    private static ExecutorService createExecutor(String prefix, int threads) {
+        if (VirtualThreads.isEnabled()) {
+            return VirtualThreads.newExecutor(prefix);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, prefix + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return supply(task, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ejecuta la tarea en segundo plano. Si la cola está llena el future
+     * termina con RejectedExecutionException en lugar de bloquear al llamador.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task, long timeout, TimeUnit unit) {
+        return submit(DATABASE, gated(task)).orTimeout(timeout, unit);
+    }
+
+    public static CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Entrega el resultado en el EDT. Las cancelaciones se ignoran: quien
+     * cancela ya no espera el resultado.
+     */
+    public static <T> CompletableFuture<T> onEdt(CompletableFuture<T> future, Consumer<T> onSuccess,
+                                                 Consumer<Throwable> onError) {
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onSuccess.accept(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (!(cause instanceof CancellationException)) {
+                onError.accept(cause);
+            }
+        }));
+        return future;
+    }
+
+    /** Mensaje legible para mostrar al usuario cuando una tarea falla. */
+    public static String describe(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            return "The database did not respond in time.";
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return "Too many pending database operations, try again.";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    private static <T> CompletableFuture<T> submit(ExecutorService executor, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running;
+        try {
+            running = executor.submit(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /** Con hilos virtuales la tarea espera un permiso antes de pedir conexión. */
+    private static <T> Supplier<T> gated(Supplier<T> task) {
+        if (!VirtualThreads.isEnabled()) {
+            return task;
+        }
+        return () -> {
+            try {
+                DATABASE_SLOTS.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for a database connection");
+            }
+            try {
+                return task.get();
+            } finally {
+                DATABASE_SLOTS.release();
+            }
+        };
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    public static void shutdown() {
+        DATABASE.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+/**
+ * Métricas de una caché de entidades en un instante dado.
+ *
+ * @author camper
+ */
+public class CacheStats {
+    private final String name;
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+
+    public CacheStats(String name, int size, int maxSize, long hits, long misses, long evictions, long invalidations) {
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public String getName() { return name; }
+    public int getSize() { return size; }
+    public int getMaxSize() { return maxSize; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getInvalidations() { return invalidations; }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : hits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats[%s: size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d]",
+                name, size, maxSize, hits, misses, getHitRate() * 100, evictions, invalidations);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+
+/**
+ * Mapa de identidad acotado (LRU) de entidades por id.
+ *
+ * Los DAO consultan la caché en findById y la invalidan en cada escritura. Una
+ * carga que se cruza con una invalidación no se guarda, para no volver a
+ * meter en la caché un valor ya obsoleto. Las entidades devueltas son
+ * compartidas: quien las modifique debe persistirlas con el DAO, que invalida
+ * la entrada.
+ *
+ * @author camper
+ */
+public class EntityCache<T> {
+    private static final List<EntityCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final int maxSize;
+    private final Map<Integer, T> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public EntityCache(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        caches.add(this);
+    }
+
+    /** Devuelve la entidad en caché o la carga con {@code loader}; los null no se guardan. */
+    public T get(int id, IntFunction<T> loader) {
+        long startGeneration;
+        synchronized (this) {
+            T cached = entries.get(id);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            startGeneration = generation;
+        }
+        T loaded = loader.apply(id);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == startGeneration) {
+                    entries.put(id, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(int id, T value) {
+        generation++;
+        entries.put(id, value);
+    }
+
+    public synchronized void invalidate(int id) {
+        generation++;
+        invalidations++;
+        entries.remove(id);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(name, entries.size(), maxSize, hits, misses, evictions, invalidations);
+    }
+
+    /** Métricas de todas las cachés de entidades creadas. */
+    public static List<CacheStats> allStats() {
+        List<CacheStats> stats = new ArrayList<>(caches.size());
+        for (EntityCache<?> cache : caches) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+}
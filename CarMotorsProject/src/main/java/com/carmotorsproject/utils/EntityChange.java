@@ -0,0 +1,34 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+/**
+ * Escritura confirmada sobre una entidad: qué tipo, qué id y qué operación.
+ * No lleva la entidad; quien la necesite la vuelve a leer por id.
+ *
+ * @author camper
+ */
+public class EntityChange {
+    public enum Operation { INSERTED, UPDATED, DELETED }
+
+    private final Class<?> type;
+    private final int id;
+    private final Operation operation;
+
+    public EntityChange(Class<?> type, int id, Operation operation) {
+        this.type = type;
+        this.id = id;
+        this.operation = operation;
+    }
+
+    public Class<?> getType() { return type; }
+    public int getId() { return id; }
+    public Operation getOperation() { return operation; }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "#" + id + " " + operation;
+    }
+}
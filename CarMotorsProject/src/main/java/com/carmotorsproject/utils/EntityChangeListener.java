@@ -0,0 +1,15 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+/**
+ *
+ * @author camper
+ */
+@FunctionalInterface
+public interface EntityChangeListener {
+    /** Se llama siempre en el EDT. */
+    void entityChanged(EntityChange change);
+}
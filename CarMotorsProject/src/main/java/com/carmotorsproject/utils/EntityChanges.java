@@ -0,0 +1,76 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.SwingUtilities;
+
+/**
+ * Avisos de escrituras de los DAOs para que las tablas actualicen solo la
+ * fila afectada en lugar de recargarlo todo.
+ *
+ * Los DAOs publican después de que la escritura se confirmó. Los avisos se
+ * entregan en el EDT, en el orden en que se publicaron.
+ *
+ * Los listeners se guardan con referencias débiles para que una ventana
+ * cerrada no quede retenida por la suscripción: quien se suscribe debe
+ * guardar el listener en un campo (no basta con pasar una lambda).
+ *
+ * @author camper
+ */
+public final class EntityChanges {
+    private static final Map<Class<?>, List<WeakReference<EntityChangeListener>>> LISTENERS = new ConcurrentHashMap<>();
+
+    private EntityChanges() {
+    }
+
+    public static void subscribe(Class<?> type, EntityChangeListener listener) {
+        LISTENERS.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(new WeakReference<>(listener));
+    }
+
+    public static void unsubscribe(Class<?> type, EntityChangeListener listener) {
+        List<WeakReference<EntityChangeListener>> listeners = LISTENERS.get(type);
+        if (listeners != null) {
+            listeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+        }
+    }
+
+    public static void inserted(Class<?> type, int id) {
+        publish(new EntityChange(type, id, EntityChange.Operation.INSERTED));
+    }
+
+    public static void updated(Class<?> type, int id) {
+        publish(new EntityChange(type, id, EntityChange.Operation.UPDATED));
+    }
+
+    public static void deleted(Class<?> type, int id) {
+        publish(new EntityChange(type, id, EntityChange.Operation.DELETED));
+    }
+
+    public static void publish(EntityChange change) {
+        List<WeakReference<EntityChangeListener>> listeners = LISTENERS.get(change.getType());
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            for (WeakReference<EntityChangeListener> ref : listeners) {
+                EntityChangeListener listener = ref.get();
+                if (listener == null) {
+                    listeners.remove(ref);
+                    continue;
+                }
+                try {
+                    listener.entityChanged(change);
+                } catch (RuntimeException e) {
+                    System.err.println("Error applying change " + change + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+}
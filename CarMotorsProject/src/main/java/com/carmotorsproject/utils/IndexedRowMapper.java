@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * RowMapper que resuelve los índices de sus columnas una sola vez por
+ * ResultSet y después lee cada fila por posición, en lugar de buscar cada
+ * columna por nombre en cada fila.
+ *
+ * Guarda el estado del último ResultSet visto, así que no es thread-safe:
+ * se crea una instancia por consulta.
+ *
+ * @author camper
+ */
+public abstract class IndexedRowMapper<T> implements RowMapper<T> {
+    private final String[] columns;
+    private ResultSet resolvedFor;
+    private int[] indexes;
+
+    protected IndexedRowMapper(String... columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public final T mapRow(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            int[] resolved = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                resolved[i] = rs.findColumn(columns[i]);
+            }
+            indexes = resolved;
+            resolvedFor = rs;
+        }
+        return map(rs, indexes);
+    }
+
+    /**
+     * Construye la entidad de la fila actual. {@code col[i]} es el índice en el
+     * ResultSet de la i-ésima columna pasada al constructor.
+     */
+    protected abstract T map(ResultSet rs, int[] col) throws SQLException;
+
+    /** Entero que puede ser NULL en la base de datos (0 es un valor válido). */
+    protected static Integer getNullableInt(ResultSet rs, int index) throws SQLException {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    protected static Double getNullableDouble(ResultSet rs, int index) throws SQLException {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? null : value;
+    }
+}
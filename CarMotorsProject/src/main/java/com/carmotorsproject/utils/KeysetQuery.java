@@ -0,0 +1,177 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arma y ejecuta consultas paginadas por keyset para una tabla.
+ *
+ * Ordenando por id genera {@code WHERE id > ? ORDER BY id LIMIT ?}; ordenando
+ * por otra columna usa el par (columna, id) como cursor. Solo se aceptan las
+ * columnas de orden registradas, que deben ser NOT NULL para que el cursor sea
+ * exacto. Se pide una fila de más para saber si existe página siguiente.
+ *
+ * @author camper
+ */
+public class KeysetQuery {
+    private final String select;
+    private final String idColumn;
+    private final String idLabel;
+    private final String groupBy;
+    private final String table;
+    private final String countSql;
+    private final Map<String, String> sortColumns = new LinkedHashMap<>();
+
+    /**
+     * @param select   SELECT ... FROM ... sin WHERE
+     * @param idColumn columna de id (puede ir calificada, p. ej. "i.invoice_id")
+     * @param groupBy  cláusula GROUP BY opcional (sin la palabra clave), o null
+     * @param table    tabla sobre la que se cuentan filas
+     */
+    public KeysetQuery(String select, String idColumn, String groupBy, String table) {
+        this.select = select;
+        this.idColumn = idColumn;
+        this.idLabel = unqualified(idColumn);
+        this.groupBy = groupBy;
+        this.table = table;
+        this.countSql = "SELECT COUNT(*) FROM " + table;
+    }
+
+    /** Registra una columna por la que se permite ordenar. La clave es la etiqueta en el ResultSet. */
+    public KeysetQuery sortable(String key, String column) {
+        sortColumns.put(key, column);
+        return this;
+    }
+
+    public <T> Page<T> fetch(Connection db, PageRequest request, RowMapper<T> mapper) throws SQLException {
+        String sortColumn = sortColumn(request);
+
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> params = new ArrayList<>();
+        if (!request.isFirstPage()) {
+            if (sortColumn == null) {
+                sql.append(" WHERE ").append(idColumn).append(" > ?");
+                params.add(request.getAfterId());
+            } else {
+                sql.append(" WHERE (").append(sortColumn).append(" > ? OR (")
+                   .append(sortColumn).append(" = ? AND ").append(idColumn).append(" > ?))");
+                params.add(request.getAfterSortValue());
+                params.add(request.getAfterSortValue());
+                params.add(request.getAfterId());
+            }
+        }
+        if (groupBy != null) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+        sql.append(" ORDER BY ");
+        if (sortColumn != null) {
+            sql.append(sortColumn).append(", ");
+        }
+        sql.append(idColumn).append(" LIMIT ?");
+        params.add(request.getLimit() + 1);
+
+        List<T> items = new ArrayList<>(request.getLimit());
+        Object lastSortValue = null;
+        int lastId = 0;
+        boolean hasMore = false;
+        try (PreparedStatement pstmt = db.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int idIndex = rs.findColumn(idLabel);
+                int sortIndex = sortColumn != null ? rs.findColumn(request.getSortKey()) : 0;
+                while (rs.next()) {
+                    if (items.size() == request.getLimit()) {
+                        hasMore = true;
+                        break;
+                    }
+                    items.add(mapper.mapRow(rs));
+                    lastId = rs.getInt(idIndex);
+                    if (sortIndex > 0) {
+                        lastSortValue = rs.getObject(sortIndex);
+                    }
+                }
+            }
+        }
+
+        PageRequest next = null;
+        if (hasMore) {
+            next = sortColumn == null
+                    ? PageRequest.after(lastId, request.getLimit())
+                    : PageRequest.after(request.getSortKey(), lastSortValue, lastId, request.getLimit());
+        }
+        return new Page<>(items, next);
+    }
+
+    /**
+     * Cursores con los que empieza cada página de {@code first.getLimit()}
+     * filas a partir de la segunda: el elemento i abre la página i + 1.
+     *
+     * Numera las filas con ROW_NUMBER() leyendo solo la columna de orden y el
+     * id, de modo que MySQL recorre el índice una vez en lugar de hacer un
+     * OFFSET por cada salto. Cuenta las filas de la tabla, igual que
+     * {@link #count(Connection)}.
+     */
+    public List<PageRequest> boundaries(Connection db, PageRequest first) throws SQLException {
+        String sortColumn = sortColumn(first);
+        String order = sortColumn != null ? sortColumn + ", " + idColumn : idColumn;
+        String sql = "SELECT b.sort_value, b.row_id FROM (SELECT "
+                + (sortColumn != null ? sortColumn : idColumn) + " AS sort_value, "
+                + idColumn + " AS row_id, ROW_NUMBER() OVER (ORDER BY " + order + ") AS row_num FROM "
+                + table + tableAlias() + ") b WHERE MOD(b.row_num, ?) = 0 ORDER BY b.row_num";
+
+        List<PageRequest> starts = new ArrayList<>();
+        try (PreparedStatement pstmt = db.prepareStatement(sql)) {
+            pstmt.setInt(1, first.getLimit());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int lastId = rs.getInt(2);
+                    starts.add(sortColumn == null
+                            ? PageRequest.after(lastId, first.getLimit())
+                            : PageRequest.after(first.getSortKey(), rs.getObject(1), lastId, first.getLimit()));
+                }
+            }
+        }
+        return starts;
+    }
+
+    public int count(Connection db) throws SQLException {
+        try (PreparedStatement pstmt = db.prepareStatement(countSql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private String sortColumn(PageRequest request) {
+        if (!request.isSorted()) {
+            return null;
+        }
+        String sortColumn = sortColumns.get(request.getSortKey());
+        if (sortColumn == null) {
+            throw new IllegalArgumentException("Unsupported sort key: " + request.getSortKey());
+        }
+        return sortColumn;
+    }
+
+    /** Alias de la tabla cuando las columnas van calificadas (p. ej. "i" en "i.invoice_id"). */
+    private String tableAlias() {
+        int dot = idColumn.lastIndexOf('.');
+        return dot >= 0 ? " " + idColumn.substring(0, dot) : "";
+    }
+
+    private static String unqualified(String column) {
+        int dot = column.lastIndexOf('.');
+        return dot >= 0 ? column.substring(dot + 1) : column;
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para búsquedas por subcadena y por prefijo
+ * sobre varios campos de texto de una entidad identificada por un int.
+ *
+ * Cada palabra se indexa por sus trigramas y por sus prefijos de una y dos
+ * letras. Un término de búsqueda de tres o más letras se resuelve cruzando
+ * las listas de sus trigramas; uno más corto, como prefijo de palabra. Los
+ * candidatos se verifican contra el texto guardado para descartar falsos
+ * positivos. Con varios términos deben aparecer todos (AND).
+ *
+ * Orden del resultado: palabra exacta (3) sobre prefijo de palabra (2) sobre
+ * subcadena (1), multiplicado por el peso del campo y sumado por término.
+ * Los empates se ordenan por id.
+ *
+ * El texto se normaliza a minúsculas ASCII sin tildes, así que cada clave
+ * cabe en un int (6 bits por carácter) y no hace falta crear un String por
+ * trigrama. Thread-safe: las búsquedas comparten un read lock y las
+ * escrituras toman el write lock.
+ *
+ * @author camper
+ */
+public class NGramIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+    private static final int TERM_LISTS = 2;
+    // Bit que distingue las claves de prefijo de las de trigrama
+    private static final int PREFIX = 1 << 18;
+    private static final int WORD_BUCKETS = 1 << 18;
+    private static final long[] NO_KEYS = new long[0];
+
+    private final double[] fieldWeights;
+    private final IntObjectMap<Postings> postings = new IntObjectMap<>();
+    // Campos normalizados de cada entidad, para verificar y puntuar
+    private final IntObjectMap<String[]> documents = new IntObjectMap<>();
+    // Palabras completas y prefijos de 3+ letras por campo, contados por hash.
+    // Una colisión solo afloja la cota de search(), nunca la hace incorrecta.
+    private final int[][] wordCounts;
+    private final int[][] prefixCounts;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** @param fieldWeights peso de cada campo, en el orden en que se pasan a {@link #put} */
+    public NGramIndex(double... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+        this.wordCounts = new int[fieldWeights.length][WORD_BUCKETS];
+        this.prefixCounts = new int[fieldWeights.length][WORD_BUCKETS];
+    }
+
+    /** Indexa (o reindexa) una entidad. Los campos null se tratan como vacíos. */
+    public void put(int id, String... fields) {
+        String[] normalized = new String[fieldWeights.length];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = i < fields.length ? normalize(fields[i]) : "";
+        }
+        long[] keys = keysOf(normalized);
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.put(id, normalized);
+            if (previous != null && Arrays.equals(previous, normalized)) {
+                return;
+            }
+            long[] previousKeys = NO_KEYS;
+            if (previous != null) {
+                countWords(previous, -1);
+                previousKeys = keysOf(previous);
+            }
+            countWords(normalized, 1);
+            reindex(id, previousKeys, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.remove(id);
+            if (previous != null) {
+                countWords(previous, -1);
+                reindex(id, keysOf(previous), NO_KEYS);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            for (int f = 0; f < fieldWeights.length; f++) {
+                Arrays.fill(wordCounts[f], 0);
+                Arrays.fill(prefixCounts[f], 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids que contienen todos los términos de la consulta, de más a menos
+     * relevante. Una consulta vacía no devuelve nada.
+     */
+    public int[] search(String query, int limit) {
+        String[] terms = words(normalize(query));
+        if (terms.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            long bound = 0;
+            for (String term : terms) {
+                int fields = -1;
+                List<Postings> termLists = new ArrayList<>();
+                for (int key : termKeys(term)) {
+                    Postings list = postings.get(key);
+                    if (list == null) {
+                        return new int[0];
+                    }
+                    termLists.add(list);
+                    fields &= list.fields;
+                }
+                // Con las dos listas más cortas de cada término ya quedan pocos
+                // candidatos, y match() descarta los que no contienen el término
+                termLists.sort((a, b) -> Integer.compare(a.size, b.size));
+                lists.addAll(termLists.subList(0, Math.min(TERM_LISTS, termLists.size())));
+                long best = bestPossible(term, fields);
+                if (best == 0) {
+                    return new int[0];
+                }
+                bound += best;
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            return top(lists, terms, bound, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre la intersección de las listas en orden de id (leapfrog con
+     * búsqueda galopante) guardando los {@code limit} mejores. Como los
+     * empates los gana el id menor, se para en cuanto los guardados alcanzan
+     * la puntuación máxima posible.
+     */
+    private int[] top(List<Postings> lists, String[] terms, long bound, int limit) {
+        // La cabeza de la cola es el peor de los guardados
+        PriorityQueue<long[]> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, (a, b) -> a[0] != b[0]
+                ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+        int n = lists.size();
+        int[] positions = new int[n];
+        int candidate = lists.get(0).size > 0 ? lists.get(0).ids[0] : 0;
+        int agreeing = 0;
+        for (int i = 0; ; i = (i + 1) % n) {
+            Postings list = lists.get(i);
+            positions[i] = list.seek(positions[i], candidate);
+            if (positions[i] == list.size) {
+                break;
+            }
+            int id = list.ids[positions[i]];
+            if (id != candidate) {
+                candidate = id;
+                agreeing = 1;
+                if (n > 1) {
+                    continue;
+                }
+            } else if (++agreeing < n) {
+                continue;
+            }
+            long score = score(documents.get(candidate), terms);
+            // Con la cola llena, un empate con el peor guardado pierde por id
+            if (score > 0 && (best.size() < limit || score > best.peek()[0])) {
+                best.add(new long[]{score, candidate});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+                if (best.size() == limit && best.peek()[0] >= bound) {
+                    break;
+                }
+            }
+            if (candidate == Integer.MAX_VALUE) {
+                break;
+            }
+            candidate++;
+            agreeing = 0;
+        }
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = (int) best.poll()[1];
+        }
+        return result;
+    }
+
+    /**
+     * Cota superior de lo que puede puntuar un término: en cada campo de
+     * {@code fields}, 3 si alguna palabra es igual, 2 si alguna empieza por
+     * él y 1 si solo puede aparecer dentro de una palabra.
+     */
+    private long bestPossible(String term, int fields) {
+        int bucket = bucket(term.hashCode());
+        long best = 0;
+        for (int f = 0; f < fieldWeights.length; f++) {
+            if ((fields & (1 << f)) == 0) {
+                continue;
+            }
+            int match;
+            if (wordCounts[f][bucket] > 0) {
+                match = 3;
+            } else if (term.length() < GRAM || prefixCounts[f][bucket] > 0) {
+                // Las claves de un término corto ya son prefijos de palabra
+                match = 2;
+            } else {
+                match = 1;
+            }
+            best = Math.max(best, scaled(match * fieldWeights[f]));
+        }
+        return best;
+    }
+
+    /** Puntuación escalada a entero para ordenar; 0 si algún término no aparece. */
+    private long score(String[] fields, String[] terms) {
+        long total = 0;
+        for (String term : terms) {
+            long best = 0;
+            for (int f = 0; f < fields.length; f++) {
+                int match = match(fields[f], term);
+                if (match > 0) {
+                    best = Math.max(best, scaled(match * fieldWeights[f]));
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static long scaled(double score) {
+        return Math.round(score * 1000);
+    }
+
+    /** 3 si es una palabra del campo, 2 si empieza una palabra, 1 si está dentro de una. */
+    private static int match(String field, String term) {
+        int best = 0;
+        int from = 0;
+        int pos;
+        while ((pos = field.indexOf(term, from)) >= 0) {
+            boolean starts = pos == 0 || field.charAt(pos - 1) == ' ';
+            int end = pos + term.length();
+            if (starts && (end == field.length() || field.charAt(end) == ' ')) {
+                return 3;
+            }
+            if (starts) {
+                best = 2;
+            } else if (best == 0 && term.length() >= GRAM) {
+                best = 1;
+            }
+            from = pos + 1;
+        }
+        return best;
+    }
+
+    /**
+     * Aplica a las listas la diferencia entre las claves anteriores y las
+     * nuevas. Las que no cambian no se tocan: quitar y volver a poner un id
+     * en una lista de un millón de entradas son dos copias completas.
+     */
+    private void reindex(int id, long[] previousKeys, long[] keys) {
+        int i = 0;
+        int j = 0;
+        while (i < previousKeys.length || j < keys.length) {
+            int previous = i < previousKeys.length ? keyOf(previousKeys[i]) : Integer.MAX_VALUE;
+            int current = j < keys.length ? keyOf(keys[j]) : Integer.MAX_VALUE;
+            if (previous < current) {
+                Postings list = postings.get(previous);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(previous);
+                }
+                i++;
+            } else {
+                Postings list = postings.computeIfAbsent(current, k -> new Postings());
+                if (previous == current) {
+                    list.fields |= fieldsOf(keys[j]);
+                    i++;
+                } else {
+                    list.add(id, fieldsOf(keys[j]));
+                }
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Claves de la entidad, ordenadas y sin repetir. Cada long lleva la clave
+     * en la mitad alta y la máscara de campos donde aparece en la baja.
+     */
+    private static long[] keysOf(String[] fields) {
+        long[] keys = new long[32];
+        int count = 0;
+        for (int f = 0; f < fields.length; f++) {
+            long field = 1L << f;
+            for (String word : words(fields[f])) {
+                int needed = count + 2 + Math.max(0, word.length() - GRAM + 1);
+                if (needed > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(needed, keys.length * 2));
+                }
+                keys[count++] = (long) prefix(word, 1) << 32 | field;
+                if (word.length() >= 2) {
+                    keys[count++] = (long) prefix(word, 2) << 32 | field;
+                }
+                for (int i = 0; i + GRAM <= word.length(); i++) {
+                    keys[count++] = (long) trigram(word, i) << 32 | field;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique > 0 && keyOf(keys[unique - 1]) == keyOf(keys[i])) {
+                keys[unique - 1] |= fieldsOf(keys[i]);
+            } else {
+                keys[unique++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    private static int keyOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int fieldsOf(long entry) {
+        return (int) entry;
+    }
+
+    private void countWords(String[] fields, int delta) {
+        for (int f = 0; f < fields.length; f++) {
+            for (String word : words(fields[f])) {
+                // Mismo hash que String.hashCode() de cada prefijo
+                int hash = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    hash = 31 * hash + word.charAt(i);
+                    if (i + 1 >= GRAM && i + 1 < word.length()) {
+                        prefixCounts[f][bucket(hash)] += delta;
+                    }
+                }
+                wordCounts[f][bucket(hash)] += delta;
+            }
+        }
+    }
+
+    private static int bucket(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (WORD_BUCKETS - 1);
+    }
+
+    /** Un término corto se busca como prefijo; uno largo, por sus trigramas. */
+    private static int[] termKeys(String term) {
+        if (term.length() < GRAM) {
+            return new int[]{prefix(term, term.length())};
+        }
+        int[] keys = new int[term.length() - GRAM + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = trigram(term, i);
+        }
+        return keys;
+    }
+
+    private static int prefix(String word, int length) {
+        return length == 1 ? PREFIX | code(word.charAt(0)) : PREFIX | code(word.charAt(0)) << 6 | code(word.charAt(1));
+    }
+
+    private static int trigram(String word, int i) {
+        return code(word.charAt(i)) << 12 | code(word.charAt(i + 1)) << 6 | code(word.charAt(i + 2));
+    }
+
+    /** a-z → 1..26, 0-9 → 27..36. El texto ya viene normalizado. */
+    private static int code(char c) {
+        return c <= '9' ? c - '0' + 27 : c - 'a' + 1;
+    }
+
+    private static String[] words(String text) {
+        return text.isEmpty() ? new String[0] : text.split(" ");
+    }
+
+    /** Minúsculas ASCII, sin tildes y con un solo espacio entre palabras. */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                // Solo el texto con tildes u otros caracteres no ASCII paga la descomposición
+                return collapse(MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll(""));
+            }
+        }
+        return collapse(text);
+    }
+
+    /** Deja letras y dígitos en minúscula; cualquier otra cosa separa palabras. */
+    private static String collapse(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean separator = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (separator && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                separator = false;
+                sb.append(c);
+            } else {
+                separator = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Lista de ids ordenada, sin boxing. */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+        // Campos en los que ha aparecido la clave; no se limpia al borrar, así
+        // que es una cota superior para la puntuación
+        private int fields;
+
+        void add(int id, int fieldMask) {
+            fields |= fieldMask;
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        private void insertAt(int pos, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        /** Primera posición desde {@code from} con un id mayor o igual que {@code target}. */
+        int seek(int from, int target) {
+            if (from >= size || ids[from] >= target) {
+                return from;
+            }
+            int step = 1;
+            while (from + step < size && ids[from + step] < target) {
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(ids, from + (step >> 1) + 1, Math.min(from + step + 1, size), target);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+}
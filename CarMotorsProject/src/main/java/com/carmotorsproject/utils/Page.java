@@ -0,0 +1,31 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.util.List;
+
+/**
+ * Resultado de una consulta paginada por keyset.
+ *
+ * @author camper
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final PageRequest next;
+
+    public Page(List<T> items, PageRequest next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() { return items; }
+
+    /** Petición de la página siguiente, o null si esta es la última. */
+    public PageRequest getNext() { return next; }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
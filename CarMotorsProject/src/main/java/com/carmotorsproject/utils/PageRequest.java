@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+/**
+ * Petición de una página por keyset (seek): en lugar de un OFFSET se indica la
+ * última fila vista (su id y, si se ordena por otra columna, su valor), de modo
+ * que las páginas profundas cuestan lo mismo que la primera.
+ *
+ * @author camper
+ */
+public class PageRequest {
+    private final String sortKey;
+    private final Object afterSortValue;
+    private final int afterId;
+    private final int limit;
+
+    private PageRequest(String sortKey, Object afterSortValue, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The page limit must be greater than zero.");
+        }
+        this.sortKey = sortKey;
+        this.afterSortValue = afterSortValue;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    /** Primera página ordenada por id. */
+    public static PageRequest first(int limit) {
+        return new PageRequest(null, null, 0, limit);
+    }
+
+    /** Primera página ordenada por la columna indicada (y por id para desempatar). */
+    public static PageRequest first(String sortKey, int limit) {
+        return new PageRequest(sortKey, null, 0, limit);
+    }
+
+    /** Página siguiente a la fila con id {@code afterId}, ordenando por id. */
+    public static PageRequest after(int afterId, int limit) {
+        return new PageRequest(null, null, afterId, limit);
+    }
+
+    /** Página siguiente a la fila ({@code afterSortValue}, {@code afterId}). */
+    public static PageRequest after(String sortKey, Object afterSortValue, int afterId, int limit) {
+        return new PageRequest(sortKey, afterSortValue, afterId, limit);
+    }
+
+    public String getSortKey() { return sortKey; }
+    public Object getAfterSortValue() { return afterSortValue; }
+    public int getAfterId() { return afterId; }
+    public int getLimit() { return limit; }
+
+    public boolean isSorted() {
+        return sortKey != null;
+    }
+
+    public boolean isFirstPage() {
+        return isSorted() ? afterSortValue == null : afterId <= 0;
+    }
+}
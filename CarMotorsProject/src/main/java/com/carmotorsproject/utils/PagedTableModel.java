@@ -0,0 +1,355 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de JTable que carga las filas por páginas a medida que se pintan.
+ *
+ * Al abrir solo se cuenta la tabla; cada página se pide a la base en segundo
+ * plano con {@link AsyncDAO} la primera vez que el JTable pregunta por una de
+ * sus filas, y mientras tanto las celdas se muestran vacías. Se guardan como
+ * mucho {@code maxPages} páginas (LRU) y al leer una página se adelanta la
+ * carga de la siguiente.
+ *
+ * Las páginas se piden por keyset con el cursor que dejó la anterior. Si el
+ * usuario salta con la barra de desplazamiento a una zona sin cursor se piden
+ * una vez los cursores de inicio de todas las páginas ({@code boundaries}, un
+ * recorrido del índice) y a partir de ahí cualquier salto es un seek; nunca se
+ * usa OFFSET. Si aun así falta el cursor (filas añadidas después de
+ * muestrear) se avanza por keyset desde la página conocida más cercana.
+ *
+ * Con {@link #trackChanges} el modelo escucha {@link EntityChanges} y aplica
+ * cada alta, modificación o baja sobre la fila afectada: una modificación
+ * relee solo esa fila y una baja descarta desde su página en adelante. Esto
+ * supone orden por id; con otro orden cualquier cambio recarga la tabla.
+ *
+ * Como todo modelo de Swing, solo debe usarse desde el EDT.
+ *
+ * @author camper
+ */
+public class PagedTableModel<T> extends AbstractTableModel implements EntityChangeListener {
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_MAX_PAGES = 20;
+
+    private final String[] columns;
+    private final Function<PageRequest, Page<T>> fetcher;
+    private final Function<PageRequest, List<PageRequest>> boundaries;
+    private final IntSupplier counter;
+    private final ColumnValue<T> values;
+    private final String sortKey;
+    private final int pageSize;
+
+    private final Map<Integer, List<T>> pages;
+    // Petición que empieza en cada página, conocida cuando se cargó la anterior
+    private final Map<Integer, PageRequest> cursors = new HashMap<>();
+    private final Map<Integer, CompletableFuture<Page<T>>> loading = new HashMap<>();
+    // Muestreo de cursores en curso o hecho; se repite al invalidar los cursores
+    private CompletableFuture<List<PageRequest>> sampling;
+    // Página a la que se está llegando por keyset desde una anterior, o -1
+    private int seekTarget = -1;
+    private CompletableFuture<Integer> counting;
+    private int rowCount;
+    // Descartan respuestas que llegan después de un refresh() o de mover filas
+    private int countGeneration;
+    private int pageGeneration;
+    private int cursorGeneration;
+
+    private ToIntFunction<T> idOf;
+    private IntFunction<T> loader;
+
+    public PagedTableModel(String[] columns, Function<PageRequest, Page<T>> fetcher,
+                           Function<PageRequest, List<PageRequest>> boundaries, IntSupplier counter,
+                           ColumnValue<T> values) {
+        this(columns, fetcher, boundaries, counter, values, null, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param boundaries dada la primera página, cursores que abren cada una de las siguientes
+     * @param sortKey    clave de orden aceptada por el DAO, o null para ordenar por id
+     * @param maxPages   páginas que se mantienen en memoria
+     */
+    public PagedTableModel(String[] columns, Function<PageRequest, Page<T>> fetcher,
+                           Function<PageRequest, List<PageRequest>> boundaries, IntSupplier counter,
+                           ColumnValue<T> values, String sortKey, int pageSize, int maxPages) {
+        this.columns = columns;
+        this.fetcher = fetcher;
+        this.boundaries = boundaries;
+        this.counter = counter;
+        this.values = values;
+        this.sortKey = sortKey;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /** Descarta lo cargado y vuelve a contar las filas. */
+    public void refresh() {
+        refresh(count -> { });
+    }
+
+    /** Como {@link #refresh()}, avisando en el EDT cuando se conoce el número de filas. */
+    public void refresh(IntConsumer onCounted) {
+        countGeneration++;
+        discardLoading();
+        pages.clear();
+        cursors.clear();
+        discardSampling();
+        if (counting != null) {
+            counting.cancel(true);
+        }
+        int requested = countGeneration;
+        counting = AsyncDAO.onEdt(AsyncDAO.supply(counter::getAsInt), count -> {
+            if (requested != countGeneration) {
+                return;
+            }
+            rowCount = count;
+            fireTableDataChanged();
+            onCounted.accept(count);
+        }, error -> System.err.println("Error counting table rows: " + AsyncDAO.describe(error)));
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row != null ? values.valueAt(row, columnIndex) : null;
+    }
+
+    /** Entidad de la fila, o null si su página todavía se está cargando. */
+    public T getRow(int rowIndex) {
+        int page = rowIndex / pageSize;
+        List<T> items = pages.get(page);
+        if (items == null) {
+            requestPage(page);
+            return null;
+        }
+        if (!pages.containsKey(page + 1)) {
+            requestPage(page + 1);
+        }
+        int index = rowIndex % pageSize;
+        return index < items.size() ? items.get(index) : null;
+    }
+
+    private void requestPage(int page) {
+        if (loading.containsKey(page) || page * pageSize >= rowCount) {
+            return;
+        }
+        PageRequest pageRequest = page == 0 ? firstPage() : cursors.get(page);
+        if (pageRequest == null) {
+            seek(page);
+            return;
+        }
+        int requested = pageGeneration;
+        CompletableFuture<Page<T>> future = AsyncDAO.supply(() -> fetcher.apply(pageRequest));
+        loading.put(page, future);
+        AsyncDAO.onEdt(future, result -> {
+            if (requested != pageGeneration) {
+                return;
+            }
+            loading.remove(page);
+            pages.put(page, new ArrayList<>(result.getItems()));
+            if (result.hasNext()) {
+                cursors.put(page + 1, result.getNext());
+            }
+            int first = page * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+            if (seekTarget > page && result.hasNext()) {
+                int target = seekTarget;
+                seekTarget = -1;
+                requestPage(target);
+            }
+        }, error -> {
+            if (requested == pageGeneration) {
+                loading.remove(page);
+            }
+            System.err.println("Error loading table page " + page + ": " + AsyncDAO.describe(error));
+        });
+    }
+
+    private PageRequest firstPage() {
+        return sortKey == null ? PageRequest.first(pageSize) : PageRequest.first(sortKey, pageSize);
+    }
+
+    /** Página sin cursor: primero se muestrean los cursores y, si falta alguno, se avanza por keyset. */
+    private void seek(int page) {
+        if (sampling == null) {
+            sampleBoundaries();
+            return;
+        }
+        if (!sampling.isDone()) {
+            return;
+        }
+        int nearest = 0;
+        for (int known : cursors.keySet()) {
+            if (known < page && known > nearest) {
+                nearest = known;
+            }
+        }
+        seekTarget = page;
+        requestPage(nearest);
+    }
+
+    private void sampleBoundaries() {
+        PageRequest first = firstPage();
+        int requested = cursorGeneration;
+        sampling = AsyncDAO.onEdt(AsyncDAO.supply(() -> boundaries.apply(first)), starts -> {
+            if (requested != cursorGeneration) {
+                return;
+            }
+            for (int i = 0; i < starts.size(); i++) {
+                cursors.putIfAbsent(i + 1, starts.get(i));
+            }
+            // Las filas visibles que esperaban cursor vuelven a pedir su página
+            if (rowCount > 0) {
+                fireTableRowsUpdated(0, rowCount - 1);
+            }
+        }, error -> System.err.println("Error sampling table page boundaries: " + AsyncDAO.describe(error)));
+    }
+
+    /**
+     * Suscribe el modelo a los cambios de {@code type}.
+     *
+     * @param idOf   id de una fila
+     * @param loader relee una fila por id; se ejecuta fuera del EDT
+     */
+    public void trackChanges(Class<T> type, ToIntFunction<T> idOf, IntFunction<T> loader) {
+        this.idOf = idOf;
+        this.loader = loader;
+        EntityChanges.subscribe(type, this);
+    }
+
+    @Override
+    public void entityChanged(EntityChange change) {
+        if (sortKey != null) {
+            refresh();
+            return;
+        }
+        switch (change.getOperation()) {
+            case INSERTED:
+                rowInserted();
+                break;
+            case UPDATED:
+                rowUpdated(change.getId());
+                break;
+            case DELETED:
+                rowDeleted(change.getId());
+                break;
+        }
+    }
+
+    /** Con orden por id una alta siempre va al final. */
+    private void rowInserted() {
+        int row = rowCount++;
+        int page = row / pageSize;
+        // La última página está incompleta: se vuelve a pedir cuando se pinte
+        pages.remove(page);
+        discardLoading();
+        fireTableRowsInserted(row, row);
+    }
+
+    private void rowUpdated(int id) {
+        if (findRow(id) < 0) {
+            return;
+        }
+        AsyncDAO.onEdt(AsyncDAO.supply(() -> loader.apply(id)), fresh -> {
+            // La posición puede haber cambiado mientras se releía
+            int row = findRow(id);
+            if (row < 0) {
+                return;
+            }
+            if (fresh == null) {
+                rowDeleted(id);
+                return;
+            }
+            pages.get(row / pageSize).set(row % pageSize, fresh);
+            fireTableRowsUpdated(row, row);
+        }, error -> System.err.println("Error reloading table row " + id + ": " + AsyncDAO.describe(error)));
+    }
+
+    private void rowDeleted(int id) {
+        int row = findRow(id);
+        if (row < 0) {
+            // No sabemos en qué posición estaba
+            refresh();
+            return;
+        }
+        int page = row / pageSize;
+        rowCount--;
+        // Las filas siguientes suben una posición: las páginas desde la
+        // afectada dejan de cuadrar. El cursor de esa página sigue valiendo.
+        pages.keySet().removeIf(p -> p >= page);
+        discardSampling();
+        cursors.keySet().removeIf(p -> p > page);
+        discardLoading();
+        fireTableRowsDeleted(row, row);
+    }
+
+    private int findRow(int id) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> items = entry.getValue();
+            for (int i = 0; i < items.size(); i++) {
+                if (idOf.applyAsInt(items.get(i)) == id) {
+                    return entry.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void discardLoading() {
+        pageGeneration++;
+        seekTarget = -1;
+        loading.values().forEach(future -> future.cancel(true));
+        loading.clear();
+    }
+
+    /** Los cursores muestreados dejan de valer: el próximo salto vuelve a muestrear. */
+    private void discardSampling() {
+        cursorGeneration++;
+        if (sampling != null) {
+            sampling.cancel(true);
+            sampling = null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ColumnValue<T> {
+        Object valueAt(T row, int column);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades para armar consultas con listas IN de tamaño variable.
+ *
+ * @author camper
+ */
+public class QueryUtil {
+    /** Máximo de parámetros por lista IN; las listas más largas se parten en varios lotes. */
+    public static final int IN_CHUNK_SIZE = 500;
+
+    private QueryUtil() {
+    }
+
+    /** Devuelve "(?, ?, ..., ?)" con {@code count} marcadores. */
+    public static String inPlaceholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
+    /** Parte la lista de ids en lotes de a lo sumo {@link #IN_CHUNK_SIZE} elementos. */
+    public static List<List<Integer>> chunk(List<Integer> ids) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + IN_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
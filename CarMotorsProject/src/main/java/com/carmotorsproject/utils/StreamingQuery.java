@@ -0,0 +1,132 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import config.DatabaseConnection;
+import java.lang.ref.Cleaner;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lectura en streaming de consultas grandes.
+ *
+ * Con MySQL Connector/J, un statement forward-only y read-only con
+ * {@code fetchSize = Integer.MIN_VALUE} entrega las filas una a una desde el
+ * servidor en lugar de cargar todo el ResultSet en memoria. El Stream devuelto
+ * es dueño de la conexión: se libera al cerrar el Stream (usar
+ * try-with-resources), al recorrerlo completo o si falla la lectura. Si el
+ * Stream se abandona sin cerrarlo, un Cleaner devuelve la conexión cuando el
+ * recolector lo descarta.
+ *
+ * Mientras el Stream está abierto su conexión no admite otras consultas, así
+ * que el consumidor no debe llamar a un DAO desde dentro del recorrido si eso
+ * puede agotar el pool.
+ *
+ * @author camper
+ */
+public class StreamingQuery {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private StreamingQuery() {
+    }
+
+    public static <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) {
+        Resources resources = new Resources();
+        try {
+            resources.db = DatabaseConnection.getConnection();
+            resources.pstmt = resources.db.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            resources.pstmt.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.length; i++) {
+                resources.pstmt.setObject(i + 1, params[i]);
+            }
+            resources.rs = resources.pstmt.executeQuery();
+        } catch (SQLException e) {
+            resources.run();
+            throw new RuntimeException("Error opening streaming query: " + e.getMessage());
+        }
+
+        RowSpliterator<T> spliterator = new RowSpliterator<>(resources, mapper);
+        Cleaner.Cleanable cleanable = CLEANER.register(spliterator, resources);
+        return StreamSupport.stream(spliterator, false).onClose(cleanable::clean);
+    }
+
+    /**
+     * Recursos JDBC de un Stream. No debe referenciar al Spliterator para que
+     * el Cleaner pueda detectar cuándo queda inalcanzable.
+     */
+    private static final class Resources implements Runnable {
+        private Connection db;
+        private PreparedStatement pstmt;
+        private ResultSet rs;
+        private boolean closed;
+
+        @Override
+        public synchronized void run() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error closing streaming query: " + e.getMessage());
+            } finally {
+                if (db != null) {
+                    try {
+                        db.close();
+                    } catch (SQLException e) {
+                        System.err.println("Error releasing streaming connection: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Resources resources;
+        private final RowMapper<T> mapper;
+
+        private RowSpliterator(Resources resources, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resources = resources;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            T row;
+            synchronized (resources) {
+                if (resources.closed) {
+                    return false;
+                }
+                try {
+                    if (!resources.rs.next()) {
+                        // Recorrido completo: devolvemos la conexión sin esperar al close()
+                        resources.run();
+                        return false;
+                    }
+                    row = mapper.mapRow(resources.rs);
+                } catch (SQLException e) {
+                    resources.run();
+                    throw new RuntimeException("Error reading streaming query: " + e.getMessage());
+                }
+            }
+            action.accept(row);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Número fijo de locks repartidos por clave. Dos operaciones sobre la misma
+ * clave siempre comparten lock; sobre claves distintas casi nunca, así que no
+ * se esperan entre sí como con un único lock global.
+ *
+ * Los locks son reentrantes: quien ya tiene el de una clave puede volver a
+ * pedirlo. Para tomar varias claves a la vez se usa {@link #getAll(Collection)},
+ * que devuelve los locks en un orden fijo; tomarlos uno a uno con get en el
+ * orden de las claves puede interbloquear.
+ *
+ * @author camper
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /** @param stripes número de locks; se redondea a la siguiente potencia de dos */
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReentrantLock get(int key) {
+        return stripes[indexOf(key)];
+    }
+
+    /** Locks de las claves, sin repetir y en orden de franja: tomarlos en ese orden y soltarlos al revés. */
+    public List<ReentrantLock> getAll(Collection<Integer> keys) {
+        boolean[] used = new boolean[stripes.length];
+        for (int key : keys) {
+            used[indexOf(key)] = true;
+        }
+        List<ReentrantLock> locks = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            if (used[i]) {
+                locks.add(stripes[i]);
+            }
+        }
+        return locks;
+    }
+
+    private int indexOf(int key) {
+        // Mezcla los bits para que ids consecutivos no caigan en locks vecinos por patrón
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Modo de ejecución con hilos virtuales (Java 21+).
+ *
+ * Se activa con -Dcarmotors.virtualThreads=true o compilando con el perfil
+ * java21 del pom, que incluye carmotors-runtime.properties con el modo ya
+ * activado. La propiedad de sistema tiene prioridad sobre el fichero.
+ *
+ * El proyecto compila para Java 11, así que los hilos virtuales se crean por
+ * reflexión. Si la JVM no los soporta se avisa y se siguen usando hilos normales.
+ *
+ * @author camper
+ */
+public final class VirtualThreads {
+    public static final String PROPERTY = "carmotors.virtualThreads";
+    private static final String RUNTIME_PROPERTIES = "/carmotors-runtime.properties";
+
+    private static final boolean ENABLED = readSetting() && isSupported();
+
+    private VirtualThreads() {
+    }
+
+    /** true si el modo está pedido y la JVM tiene hilos virtuales. */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Executor que crea un hilo virtual por tarea, o null si la JVM no los
+     * soporta. Los hilos se llaman prefix0, prefix1, ...
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hilos del sistema que ejecutan los hilos virtuales: el valor de
+     * jdk.virtualThreadScheduler.parallelism o, por defecto, los procesadores.
+     */
+    public static int carrierParallelism() {
+        String value = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid jdk.virtualThreadScheduler.parallelism: " + value);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static boolean readSetting() {
+        String value = System.getProperty(PROPERTY);
+        if (value == null) {
+            try (InputStream in = VirtualThreads.class.getResourceAsStream(RUNTIME_PROPERTIES)) {
+                if (in != null) {
+                    Properties properties = new Properties();
+                    properties.load(in);
+                    value = properties.getProperty(PROPERTY);
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading " + RUNTIME_PROPERTIES + ": " + e.getMessage());
+            }
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private static boolean isSupported() {
+        ExecutorService probe = newExecutor("carmotors-probe-");
+        if (probe == null) {
+            System.err.println("Virtual threads require Java 21 or later; using platform threads.");
+            return false;
+        }
+        probe.shutdown();
+        return true;
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ *
+ * Cada llamada a {@link #borrow()} entrega una conexión envuelta en un proxy;
+ * al invocar {@code close()} sobre ella la conexión vuelve al pool en lugar de
+ * cerrarse. Las conexiones que llevan tiempo sin usarse se validan antes de
+ * entregarlas, las que fallan se reemplazan por una nueva y las ociosas se
+ * cierran periódicamente.
+ *
+ * Cada conexión física guarda además una caché LRU de PreparedStatement por
+ * texto SQL: {@code prepareStatement(sql)} y {@code prepareStatement(sql, keys)}
+ * devuelven el statement ya preparado si existe, y su {@code close()} lo limpia
+ * y lo deja en la caché en lugar de cerrarlo. Junto con
+ * {@code useServerPrepStmts=true} en la URL, el servidor solo analiza y planifica
+ * cada consulta una vez por conexión. Todos los statements se entregan
+ * instrumentados por {@link QueryMetrics}.
+ *
+ * @author ADMiN
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final Set<String> STATEMENT_OPTION_SETTERS = Set.of(
+            "setMaxRows", "setLargeMaxRows", "setQueryTimeout", "setFetchSize", "setFetchDirection", "setMaxFieldSize");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private int totalCount;
+    private int activeCount;
+    private boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    private final ScheduledExecutorService evictor;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long maxWaitMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The pool size must be greater than zero.");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Toma una conexión del pool, esperando como máximo {@code maxWaitMillis}
+     * si todas están en uso. La conexión devuelta debe cerrarse (idealmente con
+     * try-with-resources) para devolverla al pool.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        PooledEntry entry = null;
+
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("The connection pool has been closed.");
+                }
+                entry = idle.pollFirst();
+                if (entry != null) {
+                    break;
+                }
+                if (totalCount < maxSize) {
+                    // Reservamos el cupo; la conexión física se abre fuera del lock
+                    totalCount++;
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeoutCount.incrementAndGet();
+                    throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection.");
+                }
+                try {
+                    available.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection.", e);
+                }
+            }
+            activeCount++;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (entry == null) {
+                entry = new PooledEntry(openPhysical());
+            } else if (needsValidation(entry) && !isValid(entry.connection)) {
+                closeQuietly(entry.connection);
+                entry = new PooledEntry(openPhysical());
+            }
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalCount--;
+                activeCount--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        recordWait(System.nanoTime() - start);
+        return wrap(entry);
+    }
+
+    /** Instantánea de las métricas actuales del pool. */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long borrows = borrowCount.get();
+            double avgWaitMillis = borrows == 0 ? 0.0 : totalWaitNanos.get() / (double) borrows / 1_000_000.0;
+            return new PoolStats(activeCount, idle.size(), totalCount, maxSize, borrows,
+                    avgWaitMillis, maxWaitNanos.get() / 1_000_000.0, timeoutCount.get(),
+                    createdCount.get(), evictedCount.get(), statementHits.get(), statementMisses.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Cierra las conexiones ociosas y rechaza nuevos préstamos. */
+    public void shutdown() {
+        List<PooledEntry> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            totalCount -= toClose.size();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        for (PooledEntry entry : toClose) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    private boolean needsValidation(PooledEntry entry) {
+        return System.currentTimeMillis() - entry.lastUsed >= validationIntervalMillis;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void release(PooledEntry entry, boolean broken) {
+        boolean discard = broken;
+        if (!discard) {
+            try {
+                // Statements que el usuario no cerró vuelven a quedar libres
+                for (CachedStatement cached : new ArrayList<>(entry.statements.values())) {
+                    if (cached.inUse) {
+                        resetStatement(entry, cached, true);
+                    }
+                }
+                // Dejamos la conexión limpia para el siguiente usuario
+                if (!entry.connection.getAutoCommit()) {
+                    entry.connection.rollback();
+                    entry.connection.setAutoCommit(true);
+                }
+                if (entry.connection.isReadOnly()) {
+                    entry.connection.setReadOnly(false);
+                }
+            } catch (SQLException e) {
+                discard = true;
+            }
+        }
+
+        lock.lock();
+        try {
+            activeCount--;
+            if (discard || closed) {
+                totalCount--;
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.addFirst(entry);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (discard || closed) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    private void evictIdle() {
+        List<PooledEntry> toClose = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // Las más antiguas están al final de la cola
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsed >= idleTimeoutMillis) {
+                    it.remove();
+                    totalCount--;
+                    toClose.add(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledEntry entry : toClose) {
+            closeQuietly(entry.connection);
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private Connection wrap(PooledEntry entry) {
+        PooledConnectionHandler handler = new PooledConnectionHandler(entry);
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                handler);
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * Devuelve el statement en caché para (sql, autoGeneratedKeys) o prepara uno
+     * nuevo. Si el mismo SQL ya está abierto en esta conexión se prepara uno
+     * aparte, fuera de la caché.
+     */
+    private PreparedStatement prepareCached(PooledConnectionHandler handler, String sql, int autoGeneratedKeys) throws SQLException {
+        PooledEntry entry = handler.entry;
+        String key = autoGeneratedKeys + "|" + sql;
+        CachedStatement cached = entry.statements.get(key);
+        boolean hit = cached != null && !cached.inUse;
+        (hit ? statementHits : statementMisses).incrementAndGet();
+        QueryRegistry.recordLookup(sql, hit);
+
+        if (cached != null && cached.inUse) {
+            return entry.connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        if (cached == null) {
+            cached = new CachedStatement(key, entry.connection.prepareStatement(sql, autoGeneratedKeys));
+            entry.statements.put(key, cached);
+        }
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatementHandler(handler, cached));
+    }
+
+    /** Deja el statement listo para el siguiente uso; si no se puede, lo saca de la caché. */
+    private static void resetStatement(PooledEntry entry, CachedStatement cached, boolean resetOptions) {
+        PreparedStatement statement = cached.statement;
+        try {
+            ResultSet rs = statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            if (resetOptions) {
+                statement.setMaxRows(0);
+                statement.setQueryTimeout(0);
+                statement.setFetchSize(0);
+                statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+                statement.setMaxFieldSize(0);
+            }
+            cached.inUse = false;
+        } catch (SQLException e) {
+            entry.statements.remove(cached.key);
+            closeQuietly(statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    private final class PooledEntry {
+        private final Connection connection;
+        private final Map<String, CachedStatement> statements;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledEntry(Connection connection) {
+            this.connection = connection;
+            // LRU por acceso; el más antiguo se cierra al superar el tamaño, salvo que esté en uso
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() > statementCacheSize && !eldest.getValue().inUse) {
+                        closeQuietly(eldest.getValue().statement);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static final class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        private CachedStatement(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Intercepta {@code close()} para devolver la conexión al pool y marca como
+     * rota la conexión si el driver reporta un error de comunicación (SQLState 08xxx).
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private Connection proxy;
+        private boolean returned;
+        private boolean broken;
+
+        private PooledConnectionHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.connection + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("The connection has already been returned to the pool.");
+            }
+            try {
+                if ("prepareStatement".equals(name)) {
+                    PreparedStatement statement;
+                    if (statementCacheSize > 0 && isCacheable(args)) {
+                        int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        statement = prepareCached(this, (String) args[0], autoGeneratedKeys);
+                    } else {
+                        statement = (PreparedStatement) method.invoke(entry.connection, args);
+                    }
+                    return QueryMetrics.instrument(statement, (String) args[0]);
+                }
+                return method.invoke(entry.connection, args);
+            } catch (InvocationTargetException e) {
+                throw checkBroken(e.getCause());
+            } catch (SQLException e) {
+                throw checkBroken(e);
+            }
+        }
+
+        /** Solo prepareStatement(sql) y prepareStatement(sql, autoGeneratedKeys) pasan por la caché. */
+        private boolean isCacheable(Object[] args) {
+            return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+        }
+
+        private Throwable checkBroken(Throwable cause) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    broken = true;
+                }
+            }
+            return cause;
+        }
+    }
+
+    /**
+     * Vista de un statement en caché: {@code close()} lo limpia y lo devuelve a
+     * la caché de su conexión en lugar de cerrarlo.
+     */
+    private final class CachedStatementHandler implements InvocationHandler {
+        private final PooledConnectionHandler owner;
+        private final CachedStatement cached;
+        private boolean closed;
+        private boolean optionsChanged;
+
+        private CachedStatementHandler(PooledConnectionHandler owner, CachedStatement cached) {
+            this.owner = owner;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (!owner.returned) {
+                            resetStatement(owner.entry, cached, optionsChanged);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || owner.returned || cached.statement.isClosed();
+                case "getConnection":
+                    return owner.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            if (closed || owner.returned) {
+                throw new SQLException("The statement has already been closed.");
+            }
+            if (STATEMENT_OPTION_SETTERS.contains(name)) {
+                optionsChanged = true;
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw owner.checkBroken(e.getCause());
+            }
+        }
+    }
+}
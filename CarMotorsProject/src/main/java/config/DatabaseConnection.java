@@ -5,50 +5,97 @@
  */
 package config;
 
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
+ * Punto de acceso a la base de datos. Las conexiones se toman de un pool
+ * compartido y deben cerrarse después de cada operación para devolverlas.
  *
  * @author ADMiN
  */
 public class DatabaseConnection {
-     private static final String host = "jdbc:mysql://localhost:3306/carmotors";
+     private static final String host = "jdbc:mysql://localhost:3306/carmotors?rewriteBatchedStatements=true&useServerPrepStmts=true";
     private static final String user = "root";
     private static final String password = "ivan1703";
 
-    private static Connection con;
+    private static final int MAX_POOL_SIZE = 10;
+    private static final int MIN_IDLE = 1;
+    private static final long MAX_WAIT_MILLIS = 10_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long VALIDATION_INTERVAL_MILLIS = 30_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    // Volcado periódico de QueryMetrics; -Dcarmotors.metrics.file= (vacío) lo desactiva
+    private static final String METRICS_FILE = System.getProperty("carmotors.metrics.file", "carmotors-query-metrics.txt");
+    private static final long METRICS_DUMP_PERIOD_MILLIS = Long.getLong("carmotors.metrics.periodMillis", 60_000);
+    // Migraciones de db/migration al abrir el pool; -Dcarmotors.migrations=false las omite
+    private static final boolean RUN_MIGRATIONS = !"false".equals(System.getProperty("carmotors.migrations"));
+
+    private static ConnectionPool pool;
 
     DatabaseConnection() {
-        this.con = null;
     }
 
-    public static Connection getConnection() {
-        if (con == null) {
-            try {
-                con = DriverManager.getConnection(host, user, password);
-                System.out.println("Conexion exitosa");
-            } catch (SQLException e) {
-                System.err.println("Error al conectar con la base de datos: " + e.getMessage());
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(host, user, password, MAX_POOL_SIZE, MIN_IDLE,
+                    MAX_WAIT_MILLIS, IDLE_TIMEOUT_MILLIS, VALIDATION_INTERVAL_MILLIS, STATEMENT_CACHE_SIZE);
+            if (!METRICS_FILE.isEmpty()) {
+                QueryMetrics.startPeriodicDump(Paths.get(METRICS_FILE), METRICS_DUMP_PERIOD_MILLIS);
+            }
+            if (RUN_MIGRATIONS) {
+                migrate(pool);
             }
         }
+        return pool;
+    }
 
-        return con;
+    private static void migrate(ConnectionPool pool) {
+        try (Connection db = pool.borrow()) {
+            SchemaMigrator.migrate(db);
+        } catch (SQLException e) {
+            // Sin migrar la aplicación sigue funcionando; se reintenta en el próximo arranque
+            System.err.println("Error al migrar el esquema: " + e.getMessage());
+        }
     }
 
-    public static void closeConnection() {
-        if (con != null) {
-            try {
-                con.close();
-                con = null;
-            } catch (SQLException e) {
-                System.err.println("Error al desconectar de la base de datos: " + e.getMessage());
-            }
+    /**
+     * Toma una conexión del pool. Usar siempre con try-with-resources: al
+     * cerrarla se devuelve al pool.
+     */
+    public static Connection getConnection() throws SQLException {
+        try {
+            return getPool().borrow();
+        } catch (SQLException e) {
+            System.err.println("Error al conectar con la base de datos: " + e.getMessage());
+            throw e;
         }
     }
 
-    
-    
+    /** Conexiones físicas como máximo; los executors de fondo no deben pedir más. */
+    public static int getMaxPoolSize() {
+        return MAX_POOL_SIZE;
+    }
+
+    public static PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    public static List<QueryStats> getQueryStats() {
+        return QueryMetrics.snapshot();
+    }
+
+    public static synchronized void closeConnection() {
+        QueryMetrics.stopPeriodicDump();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+
+
 }
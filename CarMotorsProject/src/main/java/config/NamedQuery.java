@@ -0,0 +1,57 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consulta SQL declarada una sola vez con un nombre ("PartDAO.findById").
+ * Se prepara a través del pool, que reutiliza el PreparedStatement de cada
+ * conexión física; los contadores indican cuántas veces se reutilizó (hit) o
+ * hubo que prepararla de nuevo (miss).
+ *
+ * @author ADMiN
+ */
+public class NamedQuery {
+    private final String name;
+    private final String sql;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    NamedQuery(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    public PreparedStatement prepare(Connection db) throws SQLException {
+        return db.prepareStatement(sql);
+    }
+
+    public PreparedStatement prepare(Connection db, int autoGeneratedKeys) throws SQLException {
+        return db.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    void recordLookup(boolean hit) {
+        if (hit) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+    }
+
+    public String getName() { return name; }
+    public String getSql() { return sql; }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("%s[hits=%d, misses=%d]", name, hits.get(), misses.get());
+    }
+}
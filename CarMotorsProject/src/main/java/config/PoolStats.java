@@ -0,0 +1,68 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+/**
+ * Métricas del pool de conexiones en un instante dado.
+ *
+ * @author ADMiN
+ */
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int maxSize;
+    private final long borrowCount;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long evictedCount;
+    private final long statementHits;
+    private final long statementMisses;
+
+    public PoolStats(int active, int idle, int total, int maxSize, long borrowCount, double averageWaitMillis,
+                     double maxWaitMillis, long timeoutCount, long createdCount, long evictedCount,
+                     long statementHits, long statementMisses) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.borrowCount = borrowCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.evictedCount = evictedCount;
+        this.statementHits = statementHits;
+        this.statementMisses = statementMisses;
+    }
+
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getTotal() { return total; }
+    public int getMaxSize() { return maxSize; }
+    public long getBorrowCount() { return borrowCount; }
+    public double getAverageWaitMillis() { return averageWaitMillis; }
+    public double getMaxWaitMillis() { return maxWaitMillis; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public long getCreatedCount() { return createdCount; }
+    public long getEvictedCount() { return evictedCount; }
+    public long getStatementHits() { return statementHits; }
+    public long getStatementMisses() { return statementMisses; }
+
+    public double getStatementHitRate() {
+        long lookups = statementHits + statementMisses;
+        return lookups == 0 ? 0.0 : statementHits / (double) lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats[active=%d, idle=%d, total=%d/%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, created=%d, evicted=%d, stmtHits=%d, stmtMisses=%d]",
+                active, idle, total, maxSize, borrowCount, averageWaitMillis, maxWaitMillis, timeoutCount, createdCount, evictedCount,
+                statementHits, statementMisses);
+    }
+}
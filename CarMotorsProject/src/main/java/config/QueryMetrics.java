@@ -0,0 +1,258 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Instrumentación de las consultas que pasan por el pool.
+ *
+ * Cada PreparedStatement entregado por {@link ConnectionPool} se envuelve en un
+ * proxy que mide las ejecuciones y cuenta las filas leídas (o afectadas). Las
+ * métricas se agrupan por plantilla SQL y por el método que la ejecuta
+ * (p. ej. "PartDAO.findById"). {@link #snapshot()} devuelve el estado actual y
+ * {@link #startPeriodicDump(Path, long)} lo escribe periódicamente a un archivo.
+ *
+ * @author ADMiN
+ */
+public class QueryMetrics {
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    // Las listas IN de distinto tamaño cuentan como una sola plantilla
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = true;
+    private static ScheduledExecutorService dumper;
+
+    private QueryMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /** Envuelve el statement para medirlo; el llamador se resuelve aquí, al preparar. */
+    static PreparedStatement instrument(PreparedStatement statement, String sql) {
+        if (!enabled) {
+            return statement;
+        }
+        String caller = findCaller();
+        String template = IN_LIST.matcher(sql).replaceAll("(?, ...)");
+        Entry entry = entries.computeIfAbsent(caller + "|" + template, key -> new Entry(caller, template));
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementHandler(statement, entry));
+    }
+
+    /** Métricas actuales, de mayor a menor tiempo total. */
+    public static List<QueryStats> snapshot() {
+        List<QueryStats> stats = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            stats.add(entry.toStats());
+        }
+        stats.sort(Comparator.comparingDouble(QueryStats::getTotalMillis).reversed());
+        return stats;
+    }
+
+    public static void reset() {
+        entries.clear();
+    }
+
+    /** Escribe el snapshot en {@code file}, reemplazándolo de forma atómica. */
+    public static void dump(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Query metrics at ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append('\n');
+        for (QueryStats stats : snapshot()) {
+            sb.append(stats).append('\n');
+        }
+        Path absolute = file.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(tmp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static synchronized void startPeriodicDump(Path file, long periodMillis) {
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carmotors-query-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try {
+                dump(file);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error writing query metrics: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    /** Primer marco de la pila fuera del pool, la instrumentación y las utilidades JDBC. */
+    private static String findCaller() {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !isInfrastructure(frame.getClassName()))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.startsWith("config.")
+                || className.startsWith("com.carmotorsproject.utils.")
+                || className.startsWith("java.")
+                || className.startsWith("jdk.")
+                || className.startsWith("sun.")
+                || className.startsWith("com.sun.")
+                || className.contains("$Proxy");
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring(className.lastIndexOf('.') + 1);
+        int inner = name.indexOf('$');
+        return inner > 0 ? name.substring(0, inner) : name;
+    }
+
+    private static final class Entry {
+        private final String caller;
+        private final String sql;
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Entry(String caller, String sql) {
+            this.caller = caller;
+            this.sql = sql;
+        }
+
+        private QueryStats toStats() {
+            return new QueryStats(caller, sql, executions.get(), rows.get(), errors.get(),
+                    latency.getTotalMicros(), latency.getMaxMicros(), latency.getCounts());
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final Entry entry;
+
+        private StatementHandler(PreparedStatement statement, Entry entry) {
+            this.statement = statement;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!EXECUTE_METHODS.contains(name)) {
+                switch (name) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "getResultSet":
+                        ResultSet current = statement.getResultSet();
+                        return current != null ? countRows(current) : null;
+                    default:
+                        return invokeTarget(method, args);
+                }
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(method, args);
+            } catch (Throwable e) {
+                entry.errors.incrementAndGet();
+                throw e;
+            } finally {
+                entry.executions.incrementAndGet();
+                entry.latency.record(System.nanoTime() - start);
+            }
+
+            if (result instanceof ResultSet) {
+                return countRows((ResultSet) result);
+            }
+            if (result instanceof Integer || result instanceof Long) {
+                entry.rows.addAndGet(Math.max(0, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    entry.rows.addAndGet(Math.max(0, count));
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    entry.rows.addAndGet(Math.max(0, count));
+                }
+            }
+            return result;
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private ResultSet countRows(ResultSet rs) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        Object value;
+                        try {
+                            value = method.invoke(rs, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (Boolean.TRUE.equals(value) && "next".equals(method.getName())) {
+                            entry.rows.incrementAndGet();
+                        }
+                        return value;
+                    });
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las consultas con nombre de los DAOs. Cada DAO declara sus
+ * consultas como constantes, de modo que el SQL de cada operación existe una
+ * sola vez y el pool puede atribuirle los aciertos de su caché de statements.
+ *
+ * @author ADMiN
+ */
+public class QueryRegistry {
+    private static final Map<String, NamedQuery> byName = new ConcurrentHashMap<>();
+    private static final Map<String, NamedQuery> bySql = new ConcurrentHashMap<>();
+
+    private QueryRegistry() {
+    }
+
+    public static NamedQuery register(String name, String sql) {
+        NamedQuery query = new NamedQuery(name, sql);
+        if (byName.putIfAbsent(name, query) != null) {
+            throw new IllegalStateException("Query already registered: " + name);
+        }
+        bySql.putIfAbsent(sql, query);
+        return query;
+    }
+
+    public static NamedQuery get(String name) {
+        return byName.get(name);
+    }
+
+    /** Lo llama el pool al buscar un statement en su caché. */
+    static void recordLookup(String sql, boolean hit) {
+        NamedQuery query = bySql.get(sql);
+        if (query != null) {
+            query.recordLookup(hit);
+        }
+    }
+
+    /** Consultas registradas, de la más usada a la menos usada. */
+    public static List<NamedQuery> getQueries() {
+        List<NamedQuery> queries = new ArrayList<>(byName.values());
+        queries.sort(Comparator.comparingLong((NamedQuery q) -> q.getHits() + q.getMisses()).reversed());
+        return queries;
+    }
+}
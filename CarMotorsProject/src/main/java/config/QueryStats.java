@@ -0,0 +1,62 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+/**
+ * Métricas de una plantilla SQL, por método que la ejecuta, en un instante dado.
+ *
+ * @author ADMiN
+ */
+public class QueryStats {
+    private final String caller;
+    private final String sql;
+    private final long executions;
+    private final long rows;
+    private final long errors;
+    private final long totalMicros;
+    private final long maxMicros;
+    private final long[] bucketCounts;
+
+    QueryStats(String caller, String sql, long executions, long rows, long errors,
+               long totalMicros, long maxMicros, long[] bucketCounts) {
+        this.caller = caller;
+        this.sql = sql;
+        this.executions = executions;
+        this.rows = rows;
+        this.errors = errors;
+        this.totalMicros = totalMicros;
+        this.maxMicros = maxMicros;
+        this.bucketCounts = bucketCounts;
+    }
+
+    public String getCaller() { return caller; }
+    public String getSql() { return sql; }
+    public long getExecutions() { return executions; }
+    /** Filas leídas de los ResultSet, o filas afectadas en escrituras. */
+    public long getRows() { return rows; }
+    public long getErrors() { return errors; }
+    public double getTotalMillis() { return totalMicros / 1_000.0; }
+    public double getMaxMillis() { return maxMicros / 1_000.0; }
+
+    public double getAverageMillis() {
+        return executions == 0 ? 0.0 : totalMicros / (double) executions / 1_000.0;
+    }
+
+    public double getPercentileMillis(double p) {
+        return LatencyHistogram.percentileMicros(bucketCounts, maxMicros, p) / 1_000.0;
+    }
+
+    public long[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | n=%d rows=%d errors=%d total=%.1fms avg=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms | %s",
+                caller, executions, rows, errors, getTotalMillis(), getAverageMillis(),
+                getPercentileMillis(0.50), getPercentileMillis(0.95), getPercentileMillis(0.99), getMaxMillis(), sql);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Aplica los scripts de db/migration que aún no se han ejecutado sobre la base
+ * de datos y los registra en la tabla schema_history.
+ *
+ * Cada script se llama V{versión}__{descripción}.sql y se declara en
+ * {@link #SCRIPTS}; se aplican en orden de versión, una sola vez. MySQL
+ * confirma cada sentencia DDL por separado, así que un script no es atómico:
+ * si falla a medias se detiene ahí sin registrarlo, y las sentencias ya
+ * hechas deben poder repetirse (un índice o una columna que ya existe se da
+ * por creado).
+ * Un bloqueo con nombre evita que dos instancias migren a la vez.
+ *
+ * @author ADMiN
+ */
+public class SchemaMigrator {
+    private static final String LOCATION = "/db/migration/";
+    static final String[] SCRIPTS = {
+        "V1__parts_indexes.sql",
+        "V2__services_vehicles_indexes.sql",
+        "V3__customers_invoices_indexes.sql",
+        "V4__parts_lifespan_index.sql",
+        "V5__stock_reservations.sql",
+        "V6__stock_ledger.sql",
+        "V7__update_date_millis.sql"
+    };
+
+    private static final String LOCK_NAME = "carmotors.schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    // ER_DUP_FIELDNAME y ER_DUP_KEYNAME: la columna o el índice ya existe (creado a mano o por un intento anterior)
+    private static final int DUPLICATE_FIELD_NAME = 1060;
+    private static final int DUPLICATE_KEY_NAME = 1061;
+
+    private static final String CREATE_HISTORY =
+            "CREATE TABLE IF NOT EXISTS schema_history ("
+            + "version INT NOT NULL PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "script VARCHAR(255) NOT NULL, "
+            + "checksum BIGINT NOT NULL, "
+            + "installed_on DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "execution_time_ms INT NOT NULL)";
+    private static final String SELECT_HISTORY = "SELECT version, checksum FROM schema_history";
+    private static final String INSERT_HISTORY =
+            "INSERT INTO schema_history (version, description, script, checksum, execution_time_ms) VALUES (?, ?, ?, ?, ?)";
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     *
+     * @return cuántas se aplicaron
+     */
+    public static int migrate(Connection db) throws SQLException {
+        List<Migration> migrations = load();
+        if (!acquireLock(db)) {
+            throw new SQLException("Otra instancia está migrando el esquema; se esperó " + LOCK_TIMEOUT_SECONDS + " s");
+        }
+        try (Statement st = db.createStatement()) {
+            st.execute(CREATE_HISTORY);
+            Map<Integer, Long> applied = appliedVersions(db);
+            int count = 0;
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.version);
+                if (checksum != null) {
+                    if (checksum != migration.checksum) {
+                        System.err.println("Advertencia: " + migration.script
+                                + " cambió después de aplicarse; las migraciones aplicadas no deben editarse");
+                    }
+                    continue;
+                }
+                apply(db, migration);
+                count++;
+            }
+            return count;
+        } finally {
+            releaseLock(db);
+        }
+    }
+
+    private static void apply(Connection db, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement st = db.createStatement()) {
+            for (String sql : migration.statements) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != DUPLICATE_FIELD_NAME && e.getErrorCode() != DUPLICATE_KEY_NAME) {
+                        throw new SQLException("Error en " + migration.script + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        int elapsed = (int) ((System.nanoTime() - start) / 1_000_000);
+        try (PreparedStatement pstmt = db.prepareStatement(INSERT_HISTORY)) {
+            pstmt.setInt(1, migration.version);
+            pstmt.setString(2, migration.description);
+            pstmt.setString(3, migration.script);
+            pstmt.setLong(4, migration.checksum);
+            pstmt.setInt(5, elapsed);
+            pstmt.executeUpdate();
+        }
+        System.out.println("Migración " + migration.script + " aplicada en " + elapsed + " ms");
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection db) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (PreparedStatement pstmt = db.prepareStatement(SELECT_HISTORY);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean acquireLock(Connection db) throws SQLException {
+        try (PreparedStatement pstmt = db.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection db) {
+        try (PreparedStatement pstmt = db.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error al liberar el bloqueo de migración: " + e.getMessage());
+        }
+    }
+
+    /** Lee y valida los scripts declarados, ordenados por versión. */
+    static List<Migration> load() {
+        List<Migration> migrations = new ArrayList<>();
+        int previous = 0;
+        for (String script : SCRIPTS) {
+            Migration migration = new Migration(script, read(script));
+            if (migration.version <= previous) {
+                throw new IllegalStateException("Versiones de migración desordenadas o repetidas: " + script);
+            }
+            previous = migration.version;
+            migrations.add(migration);
+        }
+        return migrations;
+    }
+
+    private static String read(String script) {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(LOCATION + script)) {
+            if (in == null) {
+                throw new IllegalStateException("No se encontró la migración " + LOCATION + script);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al leer la migración " + script + ": " + e.getMessage());
+        }
+    }
+
+    /** Sentencias del script separadas por ';' al final de línea, sin comentarios "--". */
+    static List<String> split(String text) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\\r?\\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1).trim());
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final long checksum;
+        final List<String> statements;
+
+        Migration(String script, String text) {
+            int separator = script.indexOf("__");
+            if (!script.startsWith("V") || separator < 2 || !script.endsWith(".sql")) {
+                throw new IllegalStateException("Nombre de migración inválido: " + script);
+            }
+            this.version = Integer.parseInt(script.substring(1, separator));
+            this.description = script.substring(separator + 2, script.length() - 4).replace('_', ' ');
+            this.script = script;
+            CRC32 crc = new CRC32();
+            crc.update(text.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+            this.statements = split(text);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Índices de la tabla parts.
+-- idx_parts_name: búsqueda por nombre (name LIKE 'filtro%') y listados ORDER BY name LIMIT n,
+--   que sin índice hacen filesort de toda la tabla.
+-- idx_parts_status: filtros por estado (Available / Reserved / Out_of_service) de inventario y reportes.
+-- idx_parts_stock: reporte de bajo stock (quantity_in_stock <= minimum_stock). La comparación entre
+--   columnas no permite un rango, pero el índice cubre la condición y se recorre sin leer las filas.
+CREATE INDEX idx_parts_name ON parts (name) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX idx_parts_status ON parts (status) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX idx_parts_stock ON parts (quantity_in_stock, minimum_stock) ALGORITHM=INPLACE LOCK=NONE;
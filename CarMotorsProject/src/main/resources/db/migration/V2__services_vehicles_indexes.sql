@@ -0,0 +1,6 @@
+-- Índices de services y vehicles.
+-- idx_services_status_start: servicios por estado en un rango de fechas (status = ? AND start_date BETWEEN ? AND ?)
+--   y colas de trabajo por estado ordenadas por fecha de inicio.
+-- idx_vehicles_license_plate: búsqueda de un vehículo por placa en recepción.
+CREATE INDEX idx_services_status_start ON services (status, start_date) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX idx_vehicles_license_plate ON vehicles (license_plate) ALGORITHM=INPLACE LOCK=NONE;
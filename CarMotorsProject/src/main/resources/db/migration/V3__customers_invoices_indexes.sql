@@ -0,0 +1,5 @@
+-- Índices de customers e invoices.
+-- idx_customers_identification: búsqueda de un cliente por número de identificación.
+-- idx_invoices_issue_date: facturas de un periodo (issue_date BETWEEN ? AND ?) y listados por fecha.
+CREATE INDEX idx_customers_identification ON customers (identification_number) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX idx_invoices_issue_date ON invoices (issue_date) ALGORITHM=INPLACE LOCK=NONE;
@@ -0,0 +1,3 @@
+-- idx_parts_lifespan: reporte de caducidad (estimated_lifespan < ?), que solo debe leer los repuestos
+--   caducados o por caducar y no toda la tabla.
+CREATE INDEX idx_parts_lifespan ON parts (estimated_lifespan) ALGORITHM=INPLACE LOCK=NONE;
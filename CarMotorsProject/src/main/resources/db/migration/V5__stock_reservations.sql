@@ -0,0 +1,19 @@
+-- Reservas de stock.
+-- parts.reserved_quantity: unidades apartadas y aún no consumidas. Lo disponible es
+--   quantity_in_stock - reserved_quantity; reservar y consumir son UPDATE condicionados a que
+--   alcance, así que dos equipos no pueden llevarse la misma unidad.
+-- stock_reservations: una fila por reserva abierta, para confirmarla o liberarla por id y para
+--   liberar las que quedaron colgadas (created_at).
+ALTER TABLE parts ADD COLUMN reserved_quantity INT NOT NULL DEFAULT 0, ALGORITHM=INPLACE, LOCK=NONE;
+CREATE TABLE IF NOT EXISTS stock_reservations (
+  reservation_id INT NOT NULL AUTO_INCREMENT,
+  part_id INT NOT NULL,
+  service_id INT NOT NULL,
+  quantity INT NOT NULL,
+  created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (reservation_id),
+  KEY idx_stock_reservations_part (part_id),
+  KEY idx_stock_reservations_service (service_id),
+  KEY idx_stock_reservations_created (created_at),
+  CONSTRAINT fk_stock_reservations_parts FOREIGN KEY (part_id) REFERENCES parts (part_id) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
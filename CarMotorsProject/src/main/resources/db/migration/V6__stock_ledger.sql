@@ -0,0 +1,29 @@
+-- Libro de movimientos de stock.
+-- stock_movements: solo se insertan filas, nunca se modifican. quantity lleva signo: entradas
+--   (Receipt, Return) positivas, consumos (Usage) negativos, ajustes (Adjustment) de cualquier signo.
+--   Se escriben en la misma transacción que el cambio de parts.quantity_in_stock. No tiene FK a
+--   parts para que el historial sobreviva a la baja del repuesto.
+--   (part_id, movement_id): cola del libro desde la última foto de un repuesto.
+--   (created_at): consumo en un período sin recorrer el historial.
+-- stock_snapshots: saldo de cada repuesto hasta un movement_id. El saldo actual es la última foto
+--   más la cola. La foto inicial (last_movement_id = 0) toma el stock que había antes del libro.
+CREATE TABLE IF NOT EXISTS stock_movements (
+  movement_id BIGINT NOT NULL AUTO_INCREMENT,
+  part_id INT NOT NULL,
+  movement_type VARCHAR(20) NOT NULL,
+  quantity INT NOT NULL,
+  reference_id INT NULL,
+  created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (movement_id),
+  KEY idx_stock_movements_part (part_id, movement_id),
+  KEY idx_stock_movements_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+  part_id INT NOT NULL,
+  last_movement_id BIGINT NOT NULL,
+  balance INT NOT NULL,
+  snapshot_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY (part_id, last_movement_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+INSERT IGNORE INTO stock_snapshots (part_id, last_movement_id, balance)
+SELECT part_id, 0, quantity_in_stock FROM parts;
@@ -0,0 +1,7 @@
+-- last_update_date con milisegundos en las tablas que las cachés en memoria verifican contra la base
+-- (CachedPartDAO, CustomerSearchService, VehicleLookup). Con precisión de segundos, un cambio hecho
+-- desde otro equipo en el mismo segundo que la lectura anterior deja la fecha igual y nunca se
+-- detecta. Cambiar la precisión reescribe la tabla (ALGORITHM=COPY); las lecturas siguen disponibles.
+ALTER TABLE parts MODIFY last_update_date DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3), ALGORITHM=COPY, LOCK=SHARED;
+ALTER TABLE customers MODIFY last_update_date DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3), ALGORITHM=COPY, LOCK=SHARED;
+ALTER TABLE vehicles MODIFY last_update_date DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3), ALGORITHM=COPY, LOCK=SHARED;
@@ -0,0 +1,97 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.carmotorsproject.customers.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mide CustomerSearchService con clientes generados, sin base de datos.
+ * Uso: java ...CustomerSearchBenchmark [clientes] (por defecto 1.000.000).
+ * Conviene darle memoria de sobra, p. ej. -Xmx4g.
+ *
+ * @author ADMiN
+ */
+public class CustomerSearchBenchmark {
+    private static final String[] FIRST_NAMES = {"Juan", "María", "Carlos", "Ana", "Luis", "Laura", "Andrés",
+        "Camila", "Jorge", "Valentina", "Felipe", "Daniela", "Santiago", "Paula", "Mateo", "Sofía"};
+    private static final String[] LAST_NAMES = {"Gómez", "Rodríguez", "Martínez", "López", "García", "Pérez",
+        "Hernández", "Díaz", "Moreno", "Álvarez", "Romero", "Torres", "Ramírez", "Vargas", "Castro", "Rojas"};
+    private static final int WARMUP = 200;
+    private static final int RUNS = 1000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Customer> customers = generate(size, new Random(42));
+
+        long start = System.nanoTime();
+        CustomerSearchService service = new CustomerSearchService(() -> customers);
+        service.search("warmup", 1);
+        System.out.printf("Índice de %,d clientes construido en %,d ms%n", service.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        Random random = new Random(7);
+        Customer sample = customers.get(random.nextInt(size));
+        String[] queries = {
+            sample.getIdentificationNumber(),
+            sample.getIdentificationNumber().replaceAll("[^0-9]", "").substring(0, 6),
+            sample.getPhone().replace(" ", ""),
+            sample.getEmail(),
+            sample.getName(),
+            "gomez",
+            "mar",
+            "camila torres 310"
+        };
+        for (String query : queries) {
+            measure(service, query);
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            Customer customer = customers.get(random.nextInt(size));
+            customer.setPhone("320 " + (1_000_000 + random.nextInt(9_000_000)));
+            service.indexed(customer);
+        }
+        System.out.printf("10.000 modificaciones aplicadas al índice en %,d ms%n",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void measure(CustomerSearchService service, String query) {
+        for (int i = 0; i < WARMUP; i++) {
+            service.search(query, 50);
+        }
+        long[] times = new long[RUNS];
+        int found = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            found = service.search(query, 50).size();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-32s %3d resultados  p50 %,8.1f µs  p99 %,8.1f µs%n", "\"" + query + "\"", found,
+                times[RUNS / 2] / 1000.0, times[RUNS * 99 / 100] / 1000.0);
+    }
+
+    private static List<Customer> generate(int size, Random random) {
+        List<Customer> customers = new ArrayList<>(size);
+        Date now = new Date();
+        for (int id = 1; id <= size; id++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String second = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String identification = String.format("CC-%,d", 10_000_000 + random.nextInt(1_000_000_000));
+            String phone = String.format("3%02d %03d %04d", random.nextInt(30), random.nextInt(1000),
+                    random.nextInt(10_000));
+            String email = (first + "." + last + id + "@correo.com").toLowerCase();
+            customers.add(new Customer(id, first + " " + last + " " + second, identification, phone, email,
+                    "Calle " + random.nextInt(200) + " # " + random.nextInt(100), now, now));
+        }
+        return customers;
+    }
+}
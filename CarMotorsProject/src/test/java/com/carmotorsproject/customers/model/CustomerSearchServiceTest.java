@@ -0,0 +1,154 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.carmotorsproject.customers.model;
+
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Cambios hechos desde otro equipo (directamente en la tabla, sin pasar por
+ * el CustomerDAO de esta aplicación) deben aparecer en la búsqueda tras la
+ * verificación periódica.
+ *
+ * @author ADMiN
+ */
+public class CustomerSearchServiceTest {
+
+    private TableDAO table;
+    private CustomerSearchService service;
+
+    @Before
+    public void setUp() {
+        table = new TableDAO();
+        table.put(customer(1, "Juan Gómez", "CC-1.234.567", "300 123 4567", 1000));
+        table.put(customer(2, "María Torres", "CC-7.654.321", "310 765 4321", 1000));
+        service = new CustomerSearchService(table);
+    }
+
+    @Test
+    public void customerAddedElsewhereIsFoundAfterCheck() {
+        assertEquals(1, service.search("juan", 10).size());
+        table.put(customer(3, "Camila Rojas", "CC-5.555.555", "320 555 5555", 2000));
+
+        assertTrue(service.search("camila", 10).isEmpty());
+        assertEquals(1, service.checkConsistency());
+
+        List<Customer> found = service.search("camila", 10);
+        assertEquals(1, found.size());
+        assertEquals(3, found.get(0).getCustomerId());
+        assertEquals(3, service.search("CC5555555", 10).get(0).getCustomerId());
+    }
+
+    @Test
+    public void customerModifiedElsewhereIsReindexed() {
+        assertEquals(1, service.search("3001234567", 10).size());
+        table.put(customer(1, "Juan Gómez", "CC-1.234.567", "301 999 8888", 2000));
+
+        assertEquals(1, service.checkConsistency());
+
+        assertTrue(service.search("3001234567", 10).isEmpty());
+        assertEquals(1, service.search("3019998888", 10).get(0).getCustomerId());
+    }
+
+    @Test
+    public void customerDeletedElsewhereIsRemoved() {
+        assertEquals(1, service.search("maría", 10).size());
+        table.rows.remove(2);
+
+        assertEquals(1, service.checkConsistency());
+
+        assertTrue(service.search("maría", 10).isEmpty());
+        assertEquals(1, service.size());
+    }
+
+    @Test
+    public void unchangedTableReindexesNothing() {
+        service.search("juan", 10);
+        assertEquals(0, service.checkConsistency());
+    }
+
+    private static Customer customer(int id, String name, String identification, String phone, long updated) {
+        return new Customer(id, name, identification, phone, "c" + id + "@correo.com", "Calle " + id,
+                new Date(0), new Date(updated));
+    }
+
+    /** Tabla de clientes en memoria que otro equipo puede modificar por debajo. */
+    private static class TableDAO implements CustomerDAOInterface {
+        private final Map<Integer, Customer> rows = new TreeMap<>();
+
+        void put(Customer customer) {
+            rows.put(customer.getCustomerId(), customer);
+        }
+
+        @Override
+        public void save(Customer customer) {
+            put(customer);
+        }
+
+        @Override
+        public Customer findById(int id) {
+            return rows.get(id);
+        }
+
+        @Override
+        public List<Customer> findAll() {
+            return new ArrayList<>(rows.values());
+        }
+
+        @Override
+        public void update(Customer customer) {
+            put(customer);
+        }
+
+        @Override
+        public void delete(int id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public Page<Customer> findPage(PageRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PageRequest> findPageBoundaries(PageRequest first) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public List<Customer> findByIds(List<Integer> ids) {
+            List<Customer> customers = new ArrayList<>();
+            for (Integer id : ids) {
+                if (rows.containsKey(id)) {
+                    customers.add(rows.get(id));
+                }
+            }
+            return customers;
+        }
+
+        @Override
+        public Map<Integer, Date> findLastUpdateDates() {
+            Map<Integer, Date> dates = new HashMap<>();
+            rows.forEach((id, customer) -> dates.put(id, customer.getLastUpdateDate()));
+            return dates;
+        }
+    }
+}
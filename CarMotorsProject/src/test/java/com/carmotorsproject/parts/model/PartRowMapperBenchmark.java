@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.utils.FakeJdbc;
+import com.carmotorsproject.utils.RowMapper;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara el mapeo de filas de {@code parts} por nombre de columna (como lo
+ * hacía PartDAO.mapPart antes de los RowMapper) con {@link PartRowMapper}, que
+ * resuelve los índices una vez por ResultSet. Usa el ResultSet en memoria de
+ * {@link FakeJdbc}, así que no necesita base de datos.
+ * Uso: java ...PartRowMapperBenchmark [filas] (por defecto 1.000).
+ *
+ * @author camper
+ */
+public class PartRowMapperBenchmark {
+    private static final String[] COLUMNS = {"part_id", "name", "type", "compatible_make_model", "supplier_id",
+        "quantity_in_stock", "minimum_stock", "entry_date", "estimated_lifespan", "status", "batch_id",
+        "creation_date", "last_update_date"};
+    private static final int WARMUP = 2000;
+    private static final int RUNS = 5000;
+
+    public static void main(String[] args) throws SQLException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        List<Object[]> rows = generate(size, new Random(42));
+
+        // Se alternan varias rondas para que ninguna variante se beneficie del orden
+        for (int round = 1; round <= 3; round++) {
+            System.out.printf("Ronda %d, %,d filas por ResultSet%n", round, size);
+            measure("por nombre (mapPart)", rows, PartRowMapperBenchmark::mapByName);
+            measure("por índice (PartRowMapper)", rows, null);
+        }
+    }
+
+    /** Equivalente del antiguo PartDAO.mapPart: 14 búsquedas por nombre en cada fila. */
+    private static Part mapByName(ResultSet rs) throws SQLException {
+        return new Part(
+            rs.getInt("part_id"),
+            rs.getString("name"),
+            rs.getString("type"),
+            rs.getString("compatible_make_model"),
+            rs.getInt("supplier_id") != 0 ? rs.getInt("supplier_id") : null,
+            rs.getInt("quantity_in_stock"),
+            rs.getInt("minimum_stock"),
+            rs.getDate("entry_date"),
+            rs.getDate("estimated_lifespan"),
+            rs.getString("status"),
+            rs.getString("batch_id"),
+            rs.getTimestamp("creation_date"),
+            rs.getTimestamp("last_update_date")
+        );
+    }
+
+    /**
+     * Mide lo que tarda en mapearse un ResultSet completo. Con {@code byName}
+     * nulo se usa un PartRowMapper nuevo por ResultSet, como hacen los DAO.
+     */
+    private static void measure(String label, List<Object[]> rows, RowMapper<Part> byName) throws SQLException {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += mapAll(rows, byName);
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            checksum += mapAll(rows, byName);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("  %-28s p50 %,8.1f µs  p99 %,8.1f µs  (%,.0f ns/fila, checksum %d)%n", label,
+                times[RUNS / 2] / 1000.0, times[RUNS * 99 / 100] / 1000.0,
+                (double) times[RUNS / 2] / rows.size(), checksum);
+    }
+
+    private static long mapAll(List<Object[]> rows, RowMapper<Part> byName) throws SQLException {
+        ResultSet rs = FakeJdbc.resultSet(COLUMNS, rows);
+        RowMapper<Part> mapper = byName != null ? byName : new PartRowMapper();
+        long sum = 0;
+        while (rs.next()) {
+            sum += mapper.mapRow(rs).getQuantityInStock();
+        }
+        return sum;
+    }
+
+    private static List<Object[]> generate(int size, Random random) {
+        List<Object[]> rows = new ArrayList<>(size);
+        long now = System.currentTimeMillis();
+        String[] types = {"Mechanical", "Electrical", "Bodywork", "Consumable"};
+        for (int id = 1; id <= size; id++) {
+            rows.add(new Object[]{
+                id,
+                "Repuesto " + id,
+                types[random.nextInt(types.length)],
+                random.nextBoolean() ? "Mazda 3 2018" : null,
+                random.nextInt(5) == 0 ? null : 1 + random.nextInt(40),
+                random.nextInt(200),
+                5 + random.nextInt(10),
+                new Date(now - random.nextInt(365) * 86_400_000L),
+                random.nextBoolean() ? new Date(now + random.nextInt(730) * 86_400_000L) : null,
+                "Available",
+                "L-" + random.nextInt(1000),
+                new Timestamp(now),
+                new Timestamp(now)
+            });
+        }
+        return rows;
+    }
+}
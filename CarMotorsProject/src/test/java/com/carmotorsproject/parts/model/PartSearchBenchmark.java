@@ -0,0 +1,118 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Mide {@link CachedPartDAO#search(String, int)} (el {@link
+ * com.carmotorsproject.utils.NGramIndex} de la instantánea) con repuestos
+ * generados, sin base de datos: el DAO de fondo solo sirve la carga inicial.
+ * Uso: java ...PartSearchBenchmark [repuestos] (por defecto 1.000.000).
+ * Conviene darle memoria de sobra, p. ej. -Xmx4g.
+ *
+ * @author camper
+ */
+public class PartSearchBenchmark {
+    private static final String[] NAMES = {"Filtro de aceite", "Filtro de aire", "Filtro de combustible",
+        "Pastillas de freno", "Disco de freno", "Bujía", "Correa de distribución", "Amortiguador", "Batería",
+        "Radiador", "Bomba de agua", "Alternador", "Kit de embrague", "Sensor de oxígeno", "Válvula EGR",
+        "Rótula", "Terminal de dirección", "Empaque de culata"};
+    private static final String[] BRANDS = {"Bosch", "Mann", "Brembo", "NGK", "Gates", "Monroe", "Valeo",
+        "Denso", "Sachs", "Mahle"};
+    private static final String[] MODELS = {"Mazda 3", "Chevrolet Spark", "Renault Logan", "Kia Picanto",
+        "Toyota Hilux", "Nissan March", "Ford Fiesta", "Hyundai Accent"};
+    private static final String[] TYPES = {"Mechanical", "Electrical", "Bodywork", "Consumable"};
+    private static final int WARMUP = 200;
+    private static final int RUNS = 1000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Part> parts = generate(size, new Random(42));
+
+        long start = System.nanoTime();
+        CachedPartDAO dao = new CachedPartDAO(loadOnly(parts));
+        dao.search("warmup", 1);
+        System.out.printf("Índice de %,d repuestos construido en %,d ms%n", dao.count(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        Random random = new Random(7);
+        Part sample = parts.get(random.nextInt(size));
+        String[] queries = {
+            sample.getBatchId(),
+            sample.getName(),
+            "filtro aceite bosch",
+            "freno brembo mazda",
+            "valvula",
+            "filtro",
+            "fi",
+            "empaq"
+        };
+        for (String query : queries) {
+            measure(dao, query);
+        }
+    }
+
+    private static void measure(CachedPartDAO dao, String query) {
+        for (int i = 0; i < WARMUP; i++) {
+            dao.search(query, 50);
+        }
+        long[] times = new long[RUNS];
+        int found = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            found = dao.search(query, 50).size();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-40s %3d resultados  p50 %,8.1f µs  p99 %,8.1f µs%n", "\"" + query + "\"", found,
+                times[RUNS / 2] / 1000.0, times[RUNS * 99 / 100] / 1000.0);
+    }
+
+    /**
+     * DAO de fondo que solo responde lo que CachedPartDAO necesita para cargar
+     * la instantánea, contar y verificarla; cualquier otra llamada falla.
+     */
+    private static PartDAOInterface loadOnly(List<Part> parts) {
+        Map<Integer, Date> dates = new HashMap<>();
+        for (Part part : parts) {
+            dates.put(part.getPartId(), part.getLastUpdateDate());
+        }
+        return (PartDAOInterface) Proxy.newProxyInstance(PartDAOInterface.class.getClassLoader(),
+                new Class<?>[]{PartDAOInterface.class}, (proxy, method, methodArgs) -> {
+                    switch (method.getName()) {
+                        case "streamAll":
+                            return parts.stream();
+                        case "count":
+                            return parts.size();
+                        case "findLastUpdateDates":
+                            return dates;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static List<Part> generate(int size, Random random) {
+        List<Part> parts = new ArrayList<>(size);
+        Date now = new Date();
+        for (int id = 1; id <= size; id++) {
+            String name = NAMES[random.nextInt(NAMES.length)] + " " + BRANDS[random.nextInt(BRANDS.length)]
+                    + " " + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26))
+                    + "-" + (1000 + random.nextInt(9000));
+            String model = MODELS[random.nextInt(MODELS.length)] + " " + (2005 + random.nextInt(20));
+            parts.add(new Part(id, name, TYPES[random.nextInt(TYPES.length)], model, null, random.nextInt(200),
+                    5, now, null, "Available", "L-" + (100_000 + id), now, now));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.parts.model;
+
+import com.carmotorsproject.services.model.PartsInService;
+import com.carmotorsproject.services.model.Service;
+import com.carmotorsproject.services.model.ServiceDAO;
+import config.DatabaseConnection;
+import config.QueryRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Reservas y consumos de stock concurrentes contra la base de datos
+ * configurada. Cada prueba crea su propio cliente, vehículo, servicio y
+ * repuestos y los borra al terminar, junto con sus movimientos del libro.
+ * Sin base de datos se omiten.
+ *
+ * @author camper
+ */
+public class StockReservationConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 40;
+
+    private final PartDAO dao = new PartDAO();
+    private final List<Integer> partIds = new ArrayList<>();
+    private final List<Integer> savedServiceIds = Collections.synchronizedList(new ArrayList<>());
+    private int customerId;
+    private int vehicleId;
+    private int serviceId;
+
+    @BeforeClass
+    public static void requireDatabase() {
+        // Sin volcado de métricas a un archivo del directorio de trabajo
+        System.setProperty("carmotors.metrics.file", "");
+        try (Connection db = DatabaseConnection.getConnection()) {
+            Assume.assumeTrue(db.isValid(2));
+        } catch (SQLException e) {
+            Assume.assumeTrue("Sin base de datos: " + e.getMessage(), false);
+        }
+    }
+
+    @Before
+    public void createService() throws SQLException {
+        long tag = System.nanoTime();
+        try (Connection db = DatabaseConnection.getConnection()) {
+            customerId = insert(db, "INSERT INTO customers (name, identification_number) VALUES ('Prueba stock', 'TEST-" + tag + "')");
+            vehicleId = insert(db, "INSERT INTO vehicles (customer_id, license_plate) VALUES (" + customerId + ", 'T" + (tag % 1_000_000_000) + "')");
+            serviceId = insert(db, "INSERT INTO services (maintenance_type, vehicle_id, status) VALUES ('Corrective', " + vehicleId + ", 'Pending')");
+        }
+    }
+
+    @After
+    public void deleteTestData() throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             Statement st = db.createStatement()) {
+            for (int partId : partIds) {
+                st.executeUpdate("DELETE FROM stock_movements WHERE part_id = " + partId);
+                st.executeUpdate("DELETE FROM stock_snapshots WHERE part_id = " + partId);
+                // parts_in_service y stock_reservations se borran en cascada
+                st.executeUpdate("DELETE FROM parts WHERE part_id = " + partId);
+            }
+            for (int savedServiceId : savedServiceIds) {
+                st.executeUpdate("DELETE FROM services WHERE service_id = " + savedServiceId);
+            }
+            st.executeUpdate("DELETE FROM services WHERE service_id = " + serviceId);
+            st.executeUpdate("DELETE FROM vehicles WHERE vehicle_id = " + vehicleId);
+            st.executeUpdate("DELETE FROM customers WHERE customer_id = " + customerId);
+        }
+    }
+
+    /**
+     * Muchos hilos reservan de a una unidad hasta agotar el stock; cada reserva
+     * se confirma, se libera o se abandona. Nunca se consume más de lo que
+     * había, una reserva no se confirma dos veces y al liberar las abandonadas
+     * no queda nada reservado.
+     */
+    @Test
+    public void reservationsNeverOversell() throws Exception {
+        int stock = 50;
+        int partId = createPart(stock);
+        AtomicInteger committed = new AtomicInteger();
+        List<StockReservation> abandoned = Collections.synchronizedList(new ArrayList<>());
+
+        List<Throwable> failures = runConcurrently(THREADS, thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                StockReservation reservation;
+                try {
+                    reservation = dao.reserveStock(partId, serviceId, 1);
+                } catch (IllegalStateException soldOut) {
+                    continue;
+                }
+                int roll = random.nextInt(10);
+                if (roll < 6) {
+                    dao.commitReservation(reservation, 10.0);
+                    committed.incrementAndGet();
+                    try {
+                        dao.commitReservation(reservation, 10.0);
+                        throw new AssertionError("Reservation " + reservation.getReservationId() + " was committed twice");
+                    } catch (IllegalStateException expected) {
+                        // ya cerrada
+                    }
+                } else if (roll < 8) {
+                    dao.releaseReservation(reservation);
+                    dao.releaseReservation(reservation);
+                } else {
+                    abandoned.add(reservation);
+                }
+            }
+        });
+        for (StockReservation reservation : abandoned) {
+            dao.releaseReservation(reservation);
+        }
+
+        assertEquals("Errores en los hilos: " + failures, 0, failures.size());
+        assertTrue("Se confirmaron " + committed.get() + " de " + stock, committed.get() <= stock);
+        int[] row = stockRow(partId);
+        assertEquals(stock - committed.get(), row[0]);
+        assertEquals("Quedaron unidades reservadas", 0, row[1]);
+        assertEquals(committed.get(), count("SELECT COUNT(*) FROM parts_in_service WHERE part_id = " + partId));
+        assertEquals("El libro no cuadra con el stock", row[0],
+                count("SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE part_id = " + partId));
+    }
+
+    /**
+     * La última unidad la pelean recordPartUsage, reserva + confirmación y otro
+     * equipo que ejecuta el mismo UPDATE condicional sin pasar por los locks de
+     * este proceso. Solo uno se la lleva y el stock termina en cero.
+     */
+    @Test
+    public void lastUnitIsConsumedOnce() throws Exception {
+        int partId = createPart(1);
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Throwable> failures = runConcurrently(THREADS, thread -> {
+            try {
+                switch (thread % 3) {
+                    case 0:
+                        dao.recordPartUsage(serviceId, partId, 1, 10.0);
+                        break;
+                    case 1:
+                        dao.commitReservation(dao.reserveStock(partId, serviceId, 1), 10.0);
+                        break;
+                    default:
+                        if (!consumeFromOtherWorkstation(partId)) {
+                            rejected.incrementAndGet();
+                            return;
+                        }
+                        break;
+                }
+                consumed.incrementAndGet();
+            } catch (IllegalStateException soldOut) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals("Errores en los hilos: " + failures, 0, failures.size());
+        assertEquals(1, consumed.get());
+        assertEquals(THREADS - 1, rejected.get());
+        int[] row = stockRow(partId);
+        assertEquals(0, row[0]);
+        assertEquals(0, row[1]);
+    }
+
+    /**
+     * Dos equipos guardan a la vez servicios que usan los mismos repuestos.
+     * ServiceDAO bloquea las filas de parts (en orden de part_id) antes de
+     * insertar las líneas de parts_in_service, así que ninguno de los dos
+     * termina como víctima de un deadlock y el libro cuadra con el stock.
+     */
+    @Test
+    public void servicesSharingPartsAreSavedConcurrently() throws Exception {
+        int rounds = 20;
+        int first = createPart(1000);
+        int second = createPart(1000);
+        ServiceDAO services = new ServiceDAO();
+
+        List<Throwable> failures = runConcurrently(2, thread -> {
+            for (int i = 0; i < rounds; i++) {
+                List<PartsInService> parts = new ArrayList<>();
+                // Cada hilo agrega los repuestos en un orden distinto
+                parts.add(new PartsInService(0, 0, thread == 0 ? first : second, 1, 10.0));
+                parts.add(new PartsInService(0, 0, thread == 0 ? second : first, 1, 10.0));
+                Service service = new Service(0, "Corrective", vehicleId, null, "Prueba stock", null, null,
+                        null, null, "Pending", new Date(), null, null, new ArrayList<>(), parts);
+                services.save(service);
+                savedServiceIds.add(service.getServiceId());
+            }
+        });
+
+        assertEquals("Errores en los hilos: " + failures, 0, failures.size());
+        for (int partId : new int[]{first, second}) {
+            int[] row = stockRow(partId);
+            assertEquals(1000 - 2 * rounds, row[0]);
+            assertEquals("El libro no cuadra con el stock", row[0],
+                    count("SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE part_id = " + partId));
+        }
+    }
+
+    /** El UPDATE condicional de PartDAO en una conexión propia, como lo haría otro equipo. */
+    private static boolean consumeFromOtherWorkstation(int partId) throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = QueryRegistry.get("PartDAO.adjustStock").prepare(db)) {
+            pstmt.setInt(1, -1);
+            pstmt.setInt(2, partId);
+            pstmt.setInt(3, -1);
+            pstmt.setInt(4, -1);
+            return pstmt.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Lanza los hilos a la vez y devuelve lo que lanzaron, en lugar de perderlo
+     * dentro del pool.
+     */
+    private static List<Throwable> runConcurrently(int threads, Worker worker) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<Void> task = () -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(5, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                } catch (TimeoutException e) {
+                    failures.add(e);
+                }
+            }
+            return failures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int createPart(int stock) {
+        Date now = new Date();
+        Part part = new Part(0, "Prueba stock " + now.getTime(), "Mechanical", null, null,
+                stock, 0, now, null, "Available", null, now, now);
+        dao.save(part);
+        partIds.add(part.getPartId());
+        return part.getPartId();
+    }
+
+    /** quantity_in_stock y reserved_quantity leídos de la tabla, sin cachés. */
+    private static int[] stockRow(int partId) throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery("SELECT quantity_in_stock, reserved_quantity FROM parts WHERE part_id = " + partId)) {
+            assertTrue(rs.next());
+            return new int[]{rs.getInt(1), rs.getInt(2)};
+        }
+    }
+
+    private static int count(String sql) throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int insert(Connection db, String sql) throws SQLException {
+        try (Statement st = db.createStatement()) {
+            st.executeUpdate(sql, Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet rs = st.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.FakeJdbc;
+import com.carmotorsproject.utils.QueryUtil;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Comprueba que la carga en lote de servicios hace un número fijo de
+ * consultas: tres en findAll y tres por lote IN en findByIds, sin importar
+ * cuántos servicios haya.
+ *
+ * @author camper
+ */
+public class ServiceDAOStatementCountTest {
+
+    private final ServiceDAO dao = new ServiceDAO();
+
+    private static FakeJdbc database(int services) {
+        FakeJdbc jdbc = new FakeJdbc();
+        FakeJdbc.Table serviceTable = jdbc.table("services", "service_id", "maintenance_type", "vehicle_id",
+                "mileage", "description", "initial_diagnosis", "final_observations", "estimated_time",
+                "labor_cost", "status", "start_date", "end_date", "warranty_until");
+        FakeJdbc.Table technicians = jdbc.table("technicians_service", "service_id", "technician_id");
+        FakeJdbc.Table parts = jdbc.table("parts_in_service", "parts_in_service_id", "service_id", "part_id",
+                "quantity_used", "unit_price");
+        Date now = new Date();
+        for (int id = 1; id <= services; id++) {
+            serviceTable.row(id, "Preventive", id, 10000 + id, "Servicio " + id, null, null, 2,
+                    50.0, "Pending", now, null, null);
+            technicians.row(id, 1);
+            technicians.row(id, 2);
+            parts.row(id, id, 7, 1, 12.5);
+        }
+        return jdbc;
+    }
+
+    private static List<Integer> ids(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    @Test
+    public void findAllUsesThreeStatementsRegardlessOfServiceCount() throws Exception {
+        for (int services : new int[]{1, 10, 1000}) {
+            FakeJdbc jdbc = database(services);
+            Connection db = jdbc.connection();
+
+            List<Service> loaded = dao.findAll(db);
+
+            assertEquals(services, loaded.size());
+            assertEquals("findAll con " + services + " servicios", 3, jdbc.statementCount());
+            assertEquals(2, loaded.get(0).getTechnicianIds().size());
+            assertEquals(1, loaded.get(0).getPartsInService().size());
+        }
+    }
+
+    @Test
+    public void findByIdsUsesThreeStatementsPerInChunk() throws Exception {
+        int count = QueryUtil.IN_CHUNK_SIZE * 2 + 200;
+        FakeJdbc jdbc = database(count);
+
+        List<Service> loaded = dao.findByIds(jdbc.connection(), ids(count));
+
+        assertEquals(count, loaded.size());
+        assertEquals(3 * 3, jdbc.statementCount());
+        for (Service service : loaded) {
+            assertEquals(2, service.getTechnicianIds().size());
+            assertEquals(1, service.getPartsInService().size());
+        }
+    }
+
+    @Test
+    public void findByIdsWithinOneChunkUsesThreeStatements() throws Exception {
+        FakeJdbc jdbc = database(50);
+
+        List<Service> loaded = dao.findByIds(jdbc.connection(), ids(20));
+
+        assertEquals(20, loaded.size());
+        assertEquals(3, jdbc.statementCount());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.parts.model.Part;
+import com.carmotorsproject.parts.model.PartDAO;
+import config.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Los repuestos de un servicio mueven el stock y quedan en el libro: el alta
+ * los consume, la edición consume o devuelve la diferencia y la baja de un
+ * servicio sin terminar los devuelve. Sin base de datos se omiten.
+ *
+ * @author camper
+ */
+public class ServiceDAOStockTest {
+    private static final int STOCK = 10;
+
+    private final ServiceDAO dao = new ServiceDAO();
+    private final List<Integer> serviceIds = new ArrayList<>();
+    private int customerId;
+    private int vehicleId;
+    private int partId;
+
+    @BeforeClass
+    public static void requireDatabase() {
+        // Sin volcado de métricas a un archivo del directorio de trabajo
+        System.setProperty("carmotors.metrics.file", "");
+        try (Connection db = DatabaseConnection.getConnection()) {
+            Assume.assumeTrue(db.isValid(2));
+        } catch (SQLException e) {
+            Assume.assumeTrue("Sin base de datos: " + e.getMessage(), false);
+        }
+    }
+
+    @Before
+    public void createVehicleAndPart() throws SQLException {
+        long tag = System.nanoTime();
+        try (Connection db = DatabaseConnection.getConnection()) {
+            customerId = insert(db, "INSERT INTO customers (name, identification_number) VALUES ('Prueba stock', 'TEST-" + tag + "')");
+            vehicleId = insert(db, "INSERT INTO vehicles (customer_id, license_plate) VALUES (" + customerId + ", 'T" + (tag % 1_000_000_000) + "')");
+        }
+        Date now = new Date();
+        Part part = new Part(0, "Prueba servicio " + now.getTime(), "Mechanical", null, null,
+                STOCK, 0, now, null, "Available", null, now, now);
+        new PartDAO().save(part);
+        partId = part.getPartId();
+    }
+
+    @After
+    public void deleteTestData() throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             Statement st = db.createStatement()) {
+            st.executeUpdate("DELETE FROM stock_movements WHERE part_id = " + partId);
+            st.executeUpdate("DELETE FROM stock_snapshots WHERE part_id = " + partId);
+            for (int serviceId : serviceIds) {
+                st.executeUpdate("DELETE FROM services WHERE service_id = " + serviceId);
+            }
+            st.executeUpdate("DELETE FROM parts WHERE part_id = " + partId);
+            st.executeUpdate("DELETE FROM vehicles WHERE vehicle_id = " + vehicleId);
+            st.executeUpdate("DELETE FROM customers WHERE customer_id = " + customerId);
+        }
+    }
+
+    @Test
+    public void servicePartsMoveStockThroughTheLedger() throws SQLException {
+        Service service = service(3);
+        dao.save(service);
+        serviceIds.add(service.getServiceId());
+        assertEquals(STOCK - 3, stock());
+        assertEquals(-3, ledger("Usage"));
+
+        service.setPartsInService(usage(5));
+        dao.update(service);
+        assertEquals(STOCK - 5, stock());
+        assertEquals(-5, ledger("Usage"));
+
+        service.setPartsInService(usage(1));
+        dao.update(service);
+        assertEquals(STOCK - 1, stock());
+        assertEquals(4, ledger("Return"));
+
+        dao.delete(service.getServiceId());
+        assertEquals(STOCK, stock());
+        assertEquals("El libro no cuadra con el stock", stock(), ledger(null));
+    }
+
+    @Test
+    public void completedServiceKeepsItsPartsWhenDeleted() throws SQLException {
+        Service service = service(2);
+        service.setStatus(ServiceStatus.Completed.name());
+        dao.save(service);
+        serviceIds.add(service.getServiceId());
+
+        dao.delete(service.getServiceId());
+
+        assertEquals(STOCK - 2, stock());
+        assertEquals(0, ledger("Return"));
+        assertEquals("El libro no cuadra con el stock", stock(), ledger(null));
+    }
+
+    @Test
+    public void serviceWithoutEnoughStockIsNotSaved() throws SQLException {
+        Service service = service(STOCK + 1);
+        try {
+            dao.save(service);
+            fail("A service using more than the available stock was saved");
+        } catch (IllegalStateException expected) {
+            // sin stock suficiente
+        }
+        if (service.getServiceId() != 0) {
+            serviceIds.add(service.getServiceId());
+        }
+        assertEquals(STOCK, stock());
+        assertEquals(0, count("SELECT COUNT(*) FROM parts_in_service WHERE part_id = " + partId));
+        assertEquals(0, count("SELECT COUNT(*) FROM services WHERE service_id = " + service.getServiceId()));
+    }
+
+    private Service service(int quantity) {
+        return new Service(0, "Corrective", vehicleId, null, "Prueba stock", null, null, null, null,
+                "Pending", new Date(), null, null, new ArrayList<>(), usage(quantity));
+    }
+
+    private List<PartsInService> usage(int quantity) {
+        List<PartsInService> parts = new ArrayList<>();
+        parts.add(new PartsInService(0, 0, partId, quantity, 10.0));
+        return parts;
+    }
+
+    private int stock() throws SQLException {
+        return count("SELECT quantity_in_stock FROM parts WHERE part_id = " + partId);
+    }
+
+    /** Suma de los movimientos del repuesto en el libro, de un tipo o de todos. */
+    private int ledger(String type) throws SQLException {
+        return count("SELECT COALESCE(SUM(quantity), 0) FROM stock_movements WHERE part_id = " + partId
+                + (type != null ? " AND movement_type = '" + type + "'" : ""));
+    }
+
+    private static int count(String sql) throws SQLException {
+        try (Connection db = DatabaseConnection.getConnection();
+             Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int insert(Connection db, String sql) throws SQLException {
+        try (Statement st = db.createStatement()) {
+            st.executeUpdate(sql, Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet rs = st.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.services.model;
+
+import com.carmotorsproject.utils.Page;
+import com.carmotorsproject.utils.PageRequest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Vehículos registrados o cambiados desde otro equipo deben poder elegirse
+ * sin reiniciar: la búsqueda que no encuentra nada verifica contra la tabla.
+ *
+ * @author camper
+ */
+public class VehicleLookupTest {
+
+    private TableDAO table;
+    private VehicleLookup lookup;
+
+    @Before
+    public void setUp() {
+        table = new TableDAO();
+        table.put(vehicle(1, "ABC-123", 1000));
+        table.put(vehicle(2, "XYZ-987", 1000));
+        lookup = new VehicleLookup(table);
+    }
+
+    @Test
+    public void vehicleAddedElsewhereIsFoundOnMiss() {
+        assertNotNull(lookup.findByPlate("abc123"));
+        table.put(vehicle(3, "KLM-456", 2000));
+
+        Vehicle found = lookup.findByPlate("KLM 456");
+
+        assertNotNull(found);
+        assertEquals(3, found.getVehicleId());
+        assertEquals(1, table.dateReads);
+    }
+
+    @Test
+    public void prefixSearchRechecksOnMiss() {
+        assertEquals(1, lookup.findByPlatePrefix("AB", 10).size());
+        table.put(vehicle(3, "KLM-456", 2000));
+
+        List<Vehicle> found = lookup.findByPlatePrefix("kl", 10);
+
+        assertEquals(1, found.size());
+        assertEquals("KLM-456", found.get(0).getLicensePlate());
+    }
+
+    @Test
+    public void missesAreThrottledUntilNextCheck() {
+        assertNull(lookup.findByPlate("NOPE-000"));
+        assertEquals(1, table.dateReads);
+        table.put(vehicle(3, "KLM-456", 2000));
+
+        // La verificación anterior es demasiado reciente
+        assertNull(lookup.findByPlate("KLM-456"));
+        assertEquals(1, table.dateReads);
+
+        assertEquals(1, lookup.checkConsistency());
+        assertNotNull(lookup.findByPlate("KLM-456"));
+    }
+
+    @Test
+    public void plateChangedAndVehicleDeletedElsewhere() {
+        assertNotNull(lookup.findByPlate("ABC-123"));
+        table.put(vehicle(1, "ABD-124", 2000));
+        table.rows.remove(2);
+
+        assertEquals(2, lookup.checkConsistency());
+
+        assertNull(lookup.findByPlate("ABC-123"));
+        assertEquals(1, lookup.findByPlate("ABD124").getVehicleId());
+        assertEquals(0, lookup.findByPlatePrefix("XY", 10).size());
+        assertEquals(1, lookup.findByPlatePrefix("AB", 10).size());
+    }
+
+    private static Vehicle vehicle(int id, String plate, long updated) {
+        return new Vehicle(id, 1, plate, "Mazda", "3", 2018, new Date(0), new Date(updated));
+    }
+
+    /** Tabla de vehículos en memoria que otro equipo puede modificar por debajo. */
+    private static class TableDAO implements VehicleDAOInterface {
+        private final Map<Integer, Vehicle> rows = new TreeMap<>();
+        private int dateReads;
+
+        void put(Vehicle vehicle) {
+            rows.put(vehicle.getVehicleId(), vehicle);
+        }
+
+        @Override
+        public void save(Vehicle vehicle) {
+            put(vehicle);
+        }
+
+        @Override
+        public Vehicle findById(int id) {
+            return rows.get(id);
+        }
+
+        @Override
+        public List<Vehicle> findAll() {
+            return new ArrayList<>(rows.values());
+        }
+
+        @Override
+        public void update(Vehicle vehicle) {
+            put(vehicle);
+        }
+
+        @Override
+        public void delete(int id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public Page<Vehicle> findPage(PageRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PageRequest> findPageBoundaries(PageRequest first) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public List<Vehicle> findByIds(List<Integer> ids) {
+            List<Vehicle> vehicles = new ArrayList<>();
+            for (Integer id : ids) {
+                if (rows.containsKey(id)) {
+                    vehicles.add(rows.get(id));
+                }
+            }
+            return vehicles;
+        }
+
+        @Override
+        public Map<Integer, Date> findLastUpdateDates() {
+            dateReads++;
+            Map<Integer, Date> dates = new HashMap<>();
+            rows.forEach((id, vehicle) -> dates.put(id, vehicle.getLastUpdateDate()));
+            return dates;
+        }
+    }
+}
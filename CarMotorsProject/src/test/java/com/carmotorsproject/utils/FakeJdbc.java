@@ -0,0 +1,247 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC en memoria para las pruebas que no necesitan MySQL.
+ *
+ * Entiende lo justo para los DAO: "SELECT ... FROM tabla" con un
+ * "WHERE columna IN (?, ...)" opcional. Cuenta cada sentencia ejecutada y
+ * guarda su SQL, para comprobar cuántas consultas hace una operación.
+ *
+ * @author camper
+ */
+public class FakeJdbc {
+    private static final Pattern FROM = Pattern.compile("\\bFROM\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_IN = Pattern.compile("\\bWHERE\\s+(\\w+)\\s+IN\\s*\\(", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> EXECUTE_METHODS = new HashSet<>(Arrays.asList(
+            "execute", "executeQuery", "executeUpdate", "executeBatch"));
+
+    private final Map<String, Table> tables = new HashMap<>();
+    private final List<String> executed = new ArrayList<>();
+
+    /** Crea (o vacía) una tabla con esas columnas. */
+    public Table table(String name, String... columns) {
+        Table table = new Table(columns);
+        tables.put(name.toLowerCase(Locale.ROOT), table);
+        return table;
+    }
+
+    /** Sentencias ejecutadas desde la creación o el último {@link #reset()}. */
+    public int statementCount() {
+        return executed.size();
+    }
+
+    public List<String> executedSql() {
+        return new ArrayList<>(executed);
+    }
+
+    public void reset() {
+        executed.clear();
+    }
+
+    public Connection connection() {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement((String) args[0]);
+                case "getAutoCommit":
+                case "isClosed":
+                    return false;
+                case "isValid":
+                    return true;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeJdbc.Connection";
+                default:
+                    return null;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private PreparedStatement statement(String sql) {
+        Map<Integer, Object> params = new TreeMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                executed.add(sql);
+                if (name.equals("executeQuery")) {
+                    return query(sql, new ArrayList<>(params.values()));
+                }
+                return name.equals("executeBatch") ? new int[0] : name.equals("execute") ? Boolean.FALSE : 0;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                params.put((Integer) args[0], args[1]);
+                return null;
+            }
+            switch (name) {
+                case "clearParameters":
+                    params.clear();
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return sql;
+                default:
+                    return null;
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private ResultSet query(String sql, List<Object> params) throws SQLException {
+        Matcher from = FROM.matcher(sql);
+        if (!from.find()) {
+            throw new SQLException("FakeJdbc no entiende: " + sql);
+        }
+        Table table = tables.get(from.group(1).toLowerCase(Locale.ROOT));
+        if (table == null) {
+            throw new SQLException("Tabla desconocida: " + from.group(1));
+        }
+        List<Object[]> rows = table.rows;
+        Matcher in = WHERE_IN.matcher(sql);
+        if (in.find()) {
+            int column = table.findColumn(in.group(1)) - 1;
+            Set<Object> values = new HashSet<>(params);
+            rows = new ArrayList<>();
+            for (Object[] row : table.rows) {
+                if (values.contains(row[column])) {
+                    rows.add(row);
+                }
+            }
+        }
+        return resultSet(table.columns, rows);
+    }
+
+    /**
+     * ResultSet sobre filas en memoria. Las columnas se buscan por nombre en un
+     * TreeMap sin distinguir mayúsculas, como hace Connector/J en findColumn y
+     * en cada getXxx(String).
+     */
+    public static ResultSet resultSet(String[] columns, List<Object[]> rows) {
+        Map<String, Integer> byLabel = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < columns.length; i++) {
+            byLabel.putIfAbsent(columns[i], i + 1);
+        }
+        int[] cursor = {-1};
+        boolean[] lastNull = {false};
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "next":
+                    return ++cursor[0] < rows.size();
+                case "findColumn":
+                    return column(byLabel, (String) args[0]);
+                case "wasNull":
+                    return lastNull[0];
+                case "close":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeJdbc.ResultSet";
+                default:
+                    break;
+            }
+            if (!name.startsWith("get") || args == null || args.length != 1) {
+                throw new UnsupportedOperationException(name);
+            }
+            int index = args[0] instanceof Integer ? (Integer) args[0] : column(byLabel, (String) args[0]);
+            Object value = rows.get(cursor[0])[index - 1];
+            lastNull[0] = value == null;
+            return convert(name, value);
+        };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, handler);
+    }
+
+    private static int column(Map<String, Integer> byLabel, String label) throws SQLException {
+        Integer index = byLabel.get(label);
+        if (index == null) {
+            throw new SQLException("Columna desconocida: " + label);
+        }
+        return index;
+    }
+
+    private static Object convert(String getter, Object value) {
+        switch (getter) {
+            case "getInt":
+                return value == null ? 0 : ((Number) value).intValue();
+            case "getLong":
+                return value == null ? 0L : ((Number) value).longValue();
+            case "getDouble":
+                return value == null ? 0.0 : ((Number) value).doubleValue();
+            case "getString":
+                return value == null ? null : value.toString();
+            case "getTimestamp":
+                return value == null ? null : new Timestamp(((java.util.Date) value).getTime());
+            case "getDate":
+                return value == null ? null : new java.sql.Date(((java.util.Date) value).getTime());
+            default:
+                return value;
+        }
+    }
+
+    public static class Table {
+        private final String[] columns;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private Table(String[] columns) {
+            this.columns = columns;
+        }
+
+        public Table row(Object... values) {
+            if (values.length != columns.length) {
+                throw new IllegalArgumentException("Se esperaban " + columns.length + " valores");
+            }
+            rows.add(values);
+            return this;
+        }
+
+        public int size() {
+            return rows.size();
+        }
+
+        private int findColumn(String name) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equalsIgnoreCase(name)) {
+                    return i + 1;
+                }
+            }
+            throw new IllegalArgumentException("Columna desconocida: " + name);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.carmotorsproject.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Orden y cortes de {@link NGramIndex#search(String, int)}: palabra exacta,
+ * prefijo y subcadena, términos cortos, reindexado y el límite con la parada
+ * anticipada.
+ *
+ * @author camper
+ */
+public class NGramIndexTest {
+
+    @Test
+    public void exactWordBeatsPrefixBeatsSubstring() {
+        NGramIndex index = new NGramIndex(1);
+        index.put(1, "Prefiltro");
+        index.put(2, "Filtros");
+        index.put(3, "Filtro de aceite");
+
+        assertArrayEquals(new int[]{3, 2, 1}, index.search("filtro", 10));
+        // Sin palabra exacta, los dos prefijos empatan y desempata el id
+        assertArrayEquals(new int[]{2, 3, 1}, index.search("filt", 10));
+    }
+
+    @Test
+    public void fieldWeightsOrderTheSameMatch() {
+        NGramIndex index = new NGramIndex(4, 1);
+        index.put(1, "Bomba", "Filtro");
+        index.put(2, "Filtro", "Bomba");
+
+        assertArrayEquals(new int[]{2, 1}, index.search("filtro", 10));
+        assertArrayEquals(new int[]{1, 2}, index.search("bomba", 10));
+    }
+
+    @Test
+    public void allTermsMustMatch() {
+        NGramIndex index = new NGramIndex(1, 1);
+        index.put(1, "Filtro de aceite", "Mazda 3");
+        index.put(2, "Filtro de aire", "Mazda 3");
+        index.put(3, "Aceite 20W50", "Renault");
+
+        assertArrayEquals(new int[]{1}, index.search("filtro aceite", 10));
+        assertArrayEquals(new int[]{1, 2}, index.search("mazda filtro", 10));
+        assertEquals(0, index.search("filtro renault", 10).length);
+    }
+
+    @Test
+    public void shortTermsOnlyMatchWordPrefixes() {
+        NGramIndex index = new NGramIndex(1);
+        index.put(1, "Filtro");
+        index.put(2, "Alfiler");
+
+        assertArrayEquals(new int[]{1}, index.search("fi", 10));
+        assertArrayEquals(new int[]{2}, index.search("a", 10));
+        assertArrayEquals(new int[]{1}, index.search("F", 10));
+        // "lt" está dentro de "filtro", pero un término corto no se busca como subcadena
+        assertEquals(0, index.search("lt", 10).length);
+    }
+
+    @Test
+    public void accentsCaseAndPunctuationAreIgnored() {
+        NGramIndex index = new NGramIndex(1);
+        index.put(1, "Válvula de ESCAPE");
+        index.put(2, "Junta-tapa (válvulas)");
+
+        assertArrayEquals(new int[]{1, 2}, index.search("VALVULA", 10));
+        assertArrayEquals(new int[]{2}, index.search("junta tapa", 10));
+        assertEquals(0, index.search("  -- ", 10).length);
+    }
+
+    @Test
+    public void reindexReplacesTheOldText() {
+        NGramIndex index = new NGramIndex(1);
+        index.put(1, "Filtro de aceite");
+        index.put(2, "Prefiltro");
+
+        index.put(1, "Bujía");
+
+        assertEquals(2, index.size());
+        assertArrayEquals(new int[]{2}, index.search("filtro", 10));
+        assertArrayEquals(new int[]{1}, index.search("bujia", 10));
+        // La cota de la palabra exacta que ya no existe no debe cortar la búsqueda
+        assertArrayEquals(new int[]{2}, index.search("filtro", 1));
+    }
+
+    @Test
+    public void removeDropsTheEntity() {
+        NGramIndex index = new NGramIndex(1);
+        index.put(1, "Filtro");
+        index.put(2, "Filtro");
+
+        index.remove(1);
+        index.remove(99);
+
+        assertEquals(1, index.size());
+        assertArrayEquals(new int[]{2}, index.search("filtro", 10));
+        index.remove(2);
+        assertEquals(0, index.search("filtro", 10).length);
+        assertEquals(0, index.search("f", 10).length);
+    }
+
+    @Test
+    public void limitKeepsTheBestAndBreaksTiesById() {
+        NGramIndex index = new NGramIndex(1);
+        for (int id = 1; id <= 1000; id++) {
+            index.put(id, "Filtro " + id);
+        }
+
+        // Todos empatan con la puntuación máxima: se para tras los cinco primeros ids
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, index.search("filtro", 5));
+        assertEquals(1000, index.search("filtro", 2000).length);
+        assertEquals(0, index.search("filtro", 0).length);
+    }
+
+    @Test
+    public void earlyTerminationDoesNotSkipABetterLaterMatch() {
+        NGramIndex index = new NGramIndex(1);
+        for (int id = 1; id <= 1000; id++) {
+            index.put(id, "Prefiltro " + id);
+        }
+        index.put(5000, "Filtros");
+        index.put(9000, "Filtro");
+
+        assertArrayEquals(new int[]{9000}, index.search("filtro", 1));
+        assertArrayEquals(new int[]{9000, 5000, 1}, index.search("filtro", 3));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Comprueba con EXPLAIN que cada índice creado por las migraciones es el que
+ * el optimizador elige para la consulta que lo justifica.
+ *
+ * Con las pocas filas de la base de desarrollo MySQL prefiere leer la tabla
+ * entera, así que cada tabla se copia a una tabla temporal de la sesión
+ * (CREATE TEMPORARY TABLE ... LIKE copia los índices, no las FK) y se llena
+ * con {@link #ROWS} filas de cardinalidad realista antes de ejecutar EXPLAIN.
+ * Los datos reales no se tocan y las tablas temporales desaparecen al cerrar
+ * la sesión.
+ *
+ * Si la columna {@code key} no es el índice esperado la prueba falla; si el
+ * índice solo aparece en {@code possible_keys} se marca como omitida con el
+ * plan elegido, para que quede a la vista en el informe. Sin base de datos
+ * todas se omiten.
+ *
+ * @author ADMiN
+ */
+public class IndexUsageTest {
+    private static final int ROWS = 20000;
+
+    // Tabla, columnas a llenar y SELECT sobre la secuencia n = 1..ROWS
+    private static final String[][] SEEDS = {
+        {"parts", "name, type, quantity_in_stock, minimum_stock, entry_date, estimated_lifespan, status",
+            "SELECT IF(n % 100 = 0, CONCAT('Filtro ', n), CONCAT('Repuesto ', n)), 'Mechanical', n % 50, 5,"
+            + " DATE '2024-01-01', IF(n % 20 = 0, DATE '2024-01-01' + INTERVAL n % 700 DAY, NULL),"
+            + " IF(n % 100 = 1, 'Reserved', 'Available')"},
+        {"services", "maintenance_type, vehicle_id, status, start_date",
+            "SELECT 'Preventive', n, ELT(1 + n % 4, 'Pending', 'In_progress', 'Completed', 'Delivered'),"
+            + " TIMESTAMP '2021-01-01 00:00:00' + INTERVAL n * 3 HOUR"},
+        {"vehicles", "customer_id, license_plate",
+            "SELECT n, IF(n = 1, 'ABC123', CONCAT('P', LPAD(n, 6, '0')))"},
+        {"customers", "name, identification_number",
+            "SELECT CONCAT('Cliente ', n), IF(n = 1, '1234567890', CONCAT('ID', n))"},
+        {"invoices", "service_id, issue_date, invoice_number",
+            "SELECT n, TIMESTAMP '2021-01-01 00:00:00' + INTERVAL n * 3 HOUR, CONCAT('F-', n)"},
+        {"stock_movements", "part_id, movement_type, quantity, created_at",
+            "SELECT 1 + n % 2000, ELT(1 + n % 4, 'Receipt', 'Usage', 'Adjustment', 'Return'), 1,"
+            + " TIMESTAMP '2021-01-01 00:00:00' + INTERVAL n * 3 HOUR"}
+    };
+
+    private static Connection db;
+
+    @BeforeClass
+    public static void seed() {
+        // Sin volcado de métricas a un archivo del directorio de trabajo
+        System.setProperty("carmotors.metrics.file", "");
+        try {
+            db = DatabaseConnection.getConnection();
+        } catch (SQLException e) {
+            Assume.assumeTrue("Sin base de datos: " + e.getMessage(), false);
+        }
+        try (Statement st = db.createStatement()) {
+            st.execute("SET SESSION cte_max_recursion_depth = " + ROWS);
+            for (String[] seed : SEEDS) {
+                String table = temporary(seed[0]);
+                st.execute("DROP TEMPORARY TABLE IF EXISTS " + table);
+                st.execute("CREATE TEMPORARY TABLE " + table + " LIKE " + seed[0]);
+                st.execute("INSERT INTO " + table + " (" + seed[1] + ")"
+                        + " WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < " + ROWS + ") "
+                        + seed[2] + " FROM seq");
+                st.execute("ANALYZE TABLE " + table);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error preparing index test tables: " + e.getMessage(), e);
+        }
+    }
+
+    @AfterClass
+    public static void dropTables() throws SQLException {
+        if (db == null) {
+            return;
+        }
+        try (Statement st = db.createStatement()) {
+            for (String[] seed : SEEDS) {
+                st.execute("DROP TEMPORARY TABLE IF EXISTS " + temporary(seed[0]));
+            }
+        } finally {
+            db.close();
+            db = null;
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    @Test
+    public void partsName() throws SQLException {
+        assertIndex("idx_parts_name", "SELECT * FROM tmp_parts WHERE name LIKE 'fil%' ORDER BY name LIMIT 50");
+    }
+
+    @Test
+    public void partsStatus() throws SQLException {
+        assertIndex("idx_parts_status", "SELECT part_id, name FROM tmp_parts WHERE status = 'Reserved'");
+    }
+
+    @Test
+    public void partsStock() throws SQLException {
+        assertIndex("idx_parts_stock",
+                "SELECT part_id, quantity_in_stock, minimum_stock FROM tmp_parts WHERE quantity_in_stock <= minimum_stock");
+    }
+
+    @Test
+    public void partsLifespan() throws SQLException {
+        assertIndex("idx_parts_lifespan",
+                "SELECT * FROM tmp_parts WHERE estimated_lifespan IS NOT NULL ORDER BY estimated_lifespan, part_id");
+    }
+
+    @Test
+    public void servicesStatusStart() throws SQLException {
+        assertIndex("idx_services_status_start", "SELECT * FROM tmp_services WHERE status = 'Completed'"
+                + " AND start_date >= '2024-01-01' AND start_date < '2024-02-01'");
+    }
+
+    @Test
+    public void vehiclesLicensePlate() throws SQLException {
+        assertIndex("idx_vehicles_license_plate", "SELECT * FROM tmp_vehicles WHERE license_plate = 'ABC123'");
+    }
+
+    @Test
+    public void customersIdentification() throws SQLException {
+        assertIndex("idx_customers_identification",
+                "SELECT * FROM tmp_customers WHERE identification_number = '1234567890'");
+    }
+
+    @Test
+    public void invoicesIssueDate() throws SQLException {
+        assertIndex("idx_invoices_issue_date",
+                "SELECT * FROM tmp_invoices WHERE issue_date >= '2024-01-01' AND issue_date < '2024-02-01'");
+    }
+
+    @Test
+    public void stockMovementsPart() throws SQLException {
+        assertIndex("idx_stock_movements_part", "SELECT COALESCE(SUM(quantity), 0), MAX(movement_id)"
+                + " FROM tmp_stock_movements WHERE part_id = 1 AND movement_id > 0");
+    }
+
+    @Test
+    public void stockMovementsCreated() throws SQLException {
+        assertIndex("idx_stock_movements_created", "SELECT part_id, -SUM(quantity) FROM tmp_stock_movements"
+                + " WHERE created_at >= '2024-01-01' AND created_at < '2024-02-01'"
+                + " AND movement_type IN ('Usage', 'Return') GROUP BY part_id");
+    }
+
+    private static void assertIndex(String index, String sql) throws SQLException {
+        try (Statement st = db.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            assertTrue("EXPLAIN sin filas: " + sql, rs.next());
+            String key = rs.getString("key");
+            String possibleKeys = rs.getString("possible_keys");
+            String plan = "key=" + key + ", possible_keys=" + possibleKeys + ", type=" + rs.getString("type")
+                    + ", rows=" + rs.getString("rows") + ", Extra=" + rs.getString("Extra");
+            if (index.equals(key)) {
+                return;
+            }
+            if (possibleKeys != null && possibleKeys.contains(index)) {
+                Assume.assumeTrue(index + " solo aparece en possible_keys (" + plan + ")", false);
+            }
+            assertEquals(index + " no se usa: " + plan, index, key);
+        }
+    }
+
+    private static String temporary(String table) {
+        return "tmp_" + table;
+    }
+}